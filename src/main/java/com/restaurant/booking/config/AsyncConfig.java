@@ -1,9 +1,23 @@
 package com.restaurant.booking.config;
 
+import com.restaurant.booking.tenant.TenantContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-}
\ No newline at end of file
+
+    /**
+     * Las tareas @Async se ejecutan como el restaurante que las lanzó
+     */
+    @Bean
+    public TaskDecorator tenantTaskDecorator() {
+        return task -> {
+            Long restaurantId = TenantContext.peek();
+            return () -> TenantContext.runAs(restaurantId, task);
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.restaurant.booking.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binarios para las tablets de sala: con {@code Accept: application/cbor}
+ * o {@code application/x-jackson-smile} cualquier endpoint devuelve los mismos
+ * DTOs sin el coste de generar y parsear JSON. JSON sigue siendo el formato por defecto.
+ *
+ * Los convertidores sustituyen a los que Spring MVC registra por defecto al
+ * detectar las librerías, para usar la configuración de Jackson de la aplicación.
+ */
+@Configuration
+public class BinaryContentConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+    }
+
+    /**
+     * Fechas y horas como arrays de enteros ([2026,10,19], [21,30]) en lugar de
+     * texto ISO: en binario ocupan la mitad y se decodifican sin parsear.
+     */
+    public static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder.factory(factory)
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
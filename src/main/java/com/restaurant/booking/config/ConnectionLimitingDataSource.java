@@ -0,0 +1,102 @@
+package com.restaurant.booking.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita las conexiones en uso con un semáforo del tamaño del pool.
+ *
+ * Con hilos virtuales puede haber miles de peticiones a la vez: en lugar de que
+ * todas compitan dentro del pool de conexiones (y caduquen por timeout), esperan
+ * aquí aparcadas, algo muy barato para un hilo virtual. El permiso se devuelve
+ * al cerrar la conexión.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConnections, long acquireTimeoutMs) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No hay conexiones libres tras " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    /**
+     * Envuelve la conexión para devolver el permiso una sola vez al cerrarla
+     */
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
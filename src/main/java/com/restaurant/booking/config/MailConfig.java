@@ -0,0 +1,46 @@
+package com.restaurant.booking.config;
+
+import com.restaurant.booking.mail.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.Properties;
+
+/**
+ * Mail sender con pool de conexiones SMTP (sustituye al JavaMailSenderImpl de
+ * Spring Boot, con la misma configuración spring.mail.*)
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    /**
+     * Perezoso: jakarta.mail no se carga hasta el primer envío
+     */
+    @Bean
+    @Lazy
+    public PooledJavaMailSender mailSender(MailProperties properties,
+                                           @Value("${app.mail.pool.max-connections:2}") int maxConnections,
+                                           @Value("${app.mail.pool.idle-timeout-ms:60000}") long idleTimeoutMs,
+                                           @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, idleTimeoutMs, maxMessagesPerConnection);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(properties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+}
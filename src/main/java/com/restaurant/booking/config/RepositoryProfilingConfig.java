@@ -0,0 +1,40 @@
+package com.restaurant.booking.config;
+
+import com.restaurant.booking.profiling.RepositoryProfiler;
+import com.restaurant.booking.profiling.RepositoryProfilingInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Histogramas de latencia por método de repositorio
+ * (app.profiling.repositories.enabled, activado por defecto)
+ */
+@Configuration
+public class RepositoryProfilingConfig {
+
+    /**
+     * Añade el interceptor a cada repositorio antes de que se cree su proxy. El
+     * profiler se pide al crear el repositorio y no aquí: un BeanPostProcessor no
+     * debe forzar la creación de otros beans.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryProfilingPostProcessor(Environment environment,
+                                                                     ObjectProvider<RepositoryProfiler> profiler) {
+        boolean enabled = environment.getProperty("app.profiling.repositories.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(new RepositoryProfilingInterceptor(
+                                    profiler.getObject(), repository.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.restaurant.booking.config;
+
+import com.restaurant.booking.logging.SlowRepositoryCallInterceptor;
+import com.restaurant.booking.logging.SlowRequestFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Log de operaciones lentas: peticiones HTTP por encima de
+ * app.slow-log.request-threshold-ms y llamadas a repositorios por encima de
+ * app.slow-log.repository-threshold-ms (0: desactivado).
+ */
+@Configuration
+public class SlowOperationLogConfig {
+
+    /**
+     * Añade el interceptor a cada repositorio antes de que se cree su proxy
+     */
+    @Bean
+    public static BeanPostProcessor slowRepositoryCallPostProcessor(Environment environment) {
+        long thresholdMs = environment.getProperty("app.slow-log.repository-threshold-ms", Long.class, 100L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (thresholdMs > 0 && bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(new SlowRepositoryCallInterceptor(
+                                    repository.getRepositoryInterface().getSimpleName(), thresholdMs))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * El primero de la cadena, para medir también la seguridad y el resto de filtros
+     */
+    @Bean
+    public FilterRegistrationBean<SlowRequestFilter> slowRequestFilter(
+            @Value("${app.slow-log.request-threshold-ms:500}") long thresholdMs) {
+        FilterRegistrationBean<SlowRequestFilter> registration = new FilterRegistrationBean<>(new SlowRequestFilter(thresholdMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(thresholdMs > 0);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.restaurant.booking.config;
+
+import com.restaurant.booking.tenant.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Ajustes del modo hilos virtuales (spring.threads.virtual.enabled=true, Java 21).
+ *
+ * Spring Boot ya ejecuta Tomcat y @Async sobre hilos virtuales; aquí se añade
+ * el semáforo que limita el acceso a la BD al tamaño del pool de conexiones.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // El DataSource enrutado ya limita cada uno de sus pools por separado
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource
+                        || bean instanceof TenantRoutingDataSource) {
+                    return bean;
+                }
+                int maxConnections = bean instanceof HikariDataSource hikari
+                        ? hikari.getMaximumPoolSize()
+                        : environment.getProperty("app.db.max-concurrency", Integer.class, 10);
+                long acquireTimeoutMs = environment.getProperty("app.db.acquire-timeout-ms", Long.class, 30000L);
+                return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeoutMs);
+            }
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.exception.PreconditionFailedException;
+
+/**
+ * ETag / If-Match de los recursos versionados.
+ *
+ * El ETag es la versión de la entidad ("7"); el de una mesa añade su estado
+ * ("7.OCCUPIED"), que es lo que compara el compare-and-set de la sala en
+ * memoria.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(Long version, Enum<?> state) {
+        return "\"" + version + "." + state.name() + "\"";
+    }
+
+    /**
+     * Lee el If-Match (null si no viene o es "*"). If-Match usa comparación
+     * fuerte (RFC 9110): un ETag débil (W/"7") nunca coincide.
+     * @throws PreconditionFailedException si es débil o no tiene el formato de nuestros ETag
+     */
+    static Tag parse(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match no admite ETag débiles: " + ifMatch);
+        }
+        value = value.replace("\"", "");
+        int dot = value.indexOf('.');
+        try {
+            Long version = Long.valueOf(dot < 0 ? value : value.substring(0, dot));
+            return new Tag(version, dot < 0 ? null : value.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match no válido: " + ifMatch);
+        }
+    }
+
+    /**
+     * Versión y, si lo lleva, estado esperados
+     */
+    record Tag(Long version, String state) {
+
+        <E extends Enum<E>> E stateAs(Class<E> type) {
+            if (state == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(type, state);
+            } catch (IllegalArgumentException e) {
+                throw new PreconditionFailedException("If-Match no válido: estado " + state);
+            }
+        }
+    }
+}
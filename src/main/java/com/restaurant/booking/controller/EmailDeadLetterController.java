@@ -0,0 +1,59 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.dto.EmailDeadLetterDTO;
+import com.restaurant.booking.service.EmailDeadLetterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/emails/dead-letters")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class EmailDeadLetterController {
+
+    private final EmailDeadLetterService deadLetterService;
+
+    /**
+     * GET /api/emails/dead-letters
+     * Solo ADMIN. Emails que no se pudieron enviar y aún no se han reenviado.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<EmailDeadLetterDTO> getPending() {
+        return deadLetterService.getPending();
+    }
+
+    /**
+     * POST /api/emails/dead-letters/{id}/replay
+     * Solo ADMIN. Vuelve a poner el email en la cola de salida.
+     */
+    @PostMapping("/{id}/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> replay(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(deadLetterService.replay(id));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * POST /api/emails/dead-letters/replay
+     * Solo ADMIN. Reenvía todos los emails fallidos pendientes.
+     */
+    @PostMapping("/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> replayAll() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("replayed", deadLetterService.replayAll());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,33 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.event.FloorEventBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/floor")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class FloorEventController {
+
+    private final FloorEventBroadcaster broadcaster;
+
+    /**
+     * GET /api/floor/events
+     * ADMIN y STAFF: stream SSE con los cambios de mesas y reservas.
+     * Al reconectar, el navegador envía Last-Event-ID y se reenvían los eventos perdidos
+     * (o RESYNC si el id es de antes de un reinicio).
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam
+    ) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return broadcaster.subscribe(lastEventId);
+    }
+}
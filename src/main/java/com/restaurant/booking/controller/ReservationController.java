@@ -1,14 +1,19 @@
 package com.restaurant.booking.controller;
 
+import com.restaurant.booking.dto.BulkStatusRequest;
+import com.restaurant.booking.dto.CalendarDayDTO;
 import com.restaurant.booking.dto.CreateReservationRequest;
 import com.restaurant.booking.dto.ReservationDTO;
 import com.restaurant.booking.enums.ReservationStatus;
 import com.restaurant.booking.model.User;
 import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.service.CalendarService;
+import com.restaurant.booking.service.OptimisticRetry;
 import com.restaurant.booking.service.ReservationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -27,6 +33,8 @@ public class ReservationController {
 
     private final ReservationService reservationService;
     private final UserRepository userRepository;
+    private final OptimisticRetry optimisticRetry;
+    private final CalendarService calendarService;
 
     /**
      * GET /api/reservations
@@ -68,7 +76,7 @@ public class ReservationController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.ok(reservation);
+        return ResponseEntity.ok().eTag(ETags.of(reservation.getVersion())).body(reservation);
     }
 
     /**
@@ -117,6 +125,17 @@ public class ReservationController {
         return reservationService.getReservationsBetweenDates(startDate, endDate);
     }
 
+    /**
+     * GET /api/reservations/calendar?month=2025-06
+     * Resumen por día del mes: reservas, comensales y reparto por estado
+     * Solo ADMIN y STAFF
+     */
+    @GetMapping("/calendar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public List<CalendarDayDTO> getCalendar(@RequestParam YearMonth month) {
+        return calendarService.getMonth(month);
+    }
+
     /**
      * GET /api/reservations/today/confirmed
      * Solo ADMIN y STAFF
@@ -157,26 +176,47 @@ public class ReservationController {
     /**
      * PATCH /api/reservations/{id}/status
      * Solo ADMIN y STAFF pueden cambiar estados
+     * Con If-Match falla (412) si la reserva cambió; sin él se reintenta ante conflictos
      */
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
     public ResponseEntity<ReservationDTO> updateReservationStatus(
             @PathVariable Long id,
-            @RequestParam ReservationStatus status
+            @RequestParam ReservationStatus status,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        ETags.Tag expected = ETags.parse(ifMatch);
+        ReservationDTO reservation = expected != null
+                ? reservationService.updateReservationStatus(id, status, expected.version())
+                : optimisticRetry.execute(() -> reservationService.updateReservationStatus(id, status));
+        return ResponseEntity.ok().eTag(ETags.of(reservation.getVersion())).body(reservation);
+    }
+
+    /**
+     * PATCH /api/reservations/bulk-status
+     * Cierre de servicio: cambia de golpe todas las reservas del día en un estado
+     * (opcionalmente de una mesa o ubicación). Solo ADMIN y STAFF
+     */
+    @PatchMapping("/bulk-status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public ResponseEntity<List<ReservationDTO>> bulkUpdateStatus(
+            @Valid @RequestBody BulkStatusRequest request
     ) {
-        ReservationDTO reservation = reservationService.updateReservationStatus(id, status);
-        return ResponseEntity.ok(reservation);
+        List<ReservationDTO> reservations = reservationService.bulkUpdateStatus(request);
+        return ResponseEntity.ok(reservations);
     }
 
     /**
      * PATCH /api/reservations/{id}/cancel
      * CUSTOMER solo puede cancelar sus propias reservas
      * ADMIN y STAFF pueden cancelar cualquiera
+     * Con If-Match falla (412) si la reserva cambió
      */
     @PatchMapping("/{id}/cancel")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     public ResponseEntity<ReservationDTO> cancelReservation(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication authentication
     ) {
         String username = authentication.getName();
@@ -194,8 +234,11 @@ public class ReservationController {
             }
         }
 
-        ReservationDTO cancelled = reservationService.cancelReservation(id);
-        return ResponseEntity.ok(cancelled);
+        ETags.Tag expected = ETags.parse(ifMatch);
+        ReservationDTO cancelled = expected != null
+                ? reservationService.cancelReservation(id, expected.version())
+                : optimisticRetry.execute(() -> reservationService.cancelReservation(id));
+        return ResponseEntity.ok().eTag(ETags.of(cancelled.getVersion())).body(cancelled);
     }
 
     /**
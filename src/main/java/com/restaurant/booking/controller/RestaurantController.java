@@ -0,0 +1,77 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.model.Restaurant;
+import com.restaurant.booking.service.RestaurantService;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/restaurants")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class RestaurantController {
+
+    private final RestaurantService restaurantService;
+
+    /**
+     * GET /api/restaurants
+     * Público: el cliente elige restaurante antes de registrarse o iniciar sesión
+     */
+    @GetMapping
+    public List<Restaurant> getActiveRestaurants() {
+        return restaurantService.getActiveRestaurants();
+    }
+
+    /**
+     * GET /api/restaurants/all
+     * Solo ADMIN del restaurante por defecto
+     */
+    @GetMapping("/all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Restaurant>> getAllRestaurants() {
+        if (!isDefaultRestaurant()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(restaurantService.getAllRestaurants());
+    }
+
+    /**
+     * POST /api/restaurants
+     * Solo ADMIN del restaurante por defecto
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Restaurant> createRestaurant(@Valid @RequestBody Restaurant restaurant) {
+        if (!isDefaultRestaurant()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(restaurantService.createRestaurant(restaurant));
+    }
+
+    /**
+     * PATCH /api/restaurants/{id}/active?active=false
+     * Solo ADMIN del restaurante por defecto
+     */
+    @PatchMapping("/{id}/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Restaurant> setActive(@PathVariable Long id, @RequestParam boolean active) {
+        if (!isDefaultRestaurant()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(restaurantService.setActive(id, active));
+    }
+
+    /**
+     * Los administradores de cada local no gestionan el catálogo de restaurantes
+     */
+    private boolean isDefaultRestaurant() {
+        return TenantContext.getDefaultRestaurantId().equals(TenantContext.getRestaurantId());
+    }
+}
@@ -1,15 +1,21 @@
 package com.restaurant.booking.controller;
 
 import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.TableLocation;
 import com.restaurant.booking.enums.TableStatus;
+import com.restaurant.booking.service.OptimisticRetry;
 import com.restaurant.booking.service.RestaurantTableService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +25,7 @@ import java.util.List;
 public class RestaurantTableController {
 
     private final RestaurantTableService tableService;
+    private final OptimisticRetry optimisticRetry;
 
     /**
      * GET /api/tables
@@ -38,7 +45,7 @@ public class RestaurantTableController {
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
     public ResponseEntity<TableDTO> getTableById(@PathVariable Long id) {
         TableDTO table = tableService.getTableById(id);
-        return ResponseEntity.ok(table);
+        return ResponseEntity.ok().eTag(ETags.of(table.getVersion(), table.getStatus())).body(table);
     }
 
     /**
@@ -61,6 +68,22 @@ public class RestaurantTableController {
         return tableService.getAvailableTablesByCapacity(guests);
     }
 
+    /**
+     * GET /api/tables/allocation?date=2025-06-20&time=21:00&guests=12
+     * Mesas que se asignarían a un grupo (juntando mesas vecinas si ninguna basta).
+     * ADMIN y STAFF
+     */
+    @GetMapping("/allocation")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public List<TableDTO> allocateTables(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam LocalTime time,
+            @RequestParam Integer guests,
+            @RequestParam(required = false) TableLocation location
+    ) {
+        return tableService.allocateTables(date, time, guests, location);
+    }
+
     /**
      * POST /api/tables
      * Solo ADMIN puede crear mesas
@@ -75,29 +98,39 @@ public class RestaurantTableController {
     /**
      * PUT /api/tables/{id}
      * Solo ADMIN puede editar mesas
+     * Con If-Match falla (412) si la mesa cambió; sin él se reintenta ante conflictos
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<TableDTO> updateTable(
             @PathVariable Long id,
-            @Valid @RequestBody TableDTO tableDTO
+            @Valid @RequestBody TableDTO tableDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        TableDTO updated = tableService.updateTable(id, tableDTO);
-        return ResponseEntity.ok(updated);
+        ETags.Tag expected = ETags.parse(ifMatch);
+        TableDTO updated = expected != null
+                ? tableService.updateTable(id, tableDTO, expected.version(), expected.stateAs(TableStatus.class))
+                : optimisticRetry.execute(() -> tableService.updateTable(id, tableDTO));
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion(), updated.getStatus())).body(updated);
     }
 
     /**
      * PATCH /api/tables/{id}/status
      * ADMIN y STAFF pueden cambiar estado de mesas
+     * Con If-Match el cambio solo se aplica si la mesa sigue en el estado leído (si no, 412)
      */
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
     public ResponseEntity<TableDTO> updateTableStatus(
             @PathVariable Long id,
-            @RequestParam TableStatus status
+            @RequestParam TableStatus status,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        TableDTO updated = tableService.updateTableStatus(id, status);
-        return ResponseEntity.ok(updated);
+        ETags.Tag expected = ETags.parse(ifMatch);
+        TableDTO updated = expected != null
+                ? tableService.updateTableStatus(id, status, expected.version(), expected.stateAs(TableStatus.class))
+                : tableService.updateTableStatus(id, status);
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion(), updated.getStatus())).body(updated);
     }
 
     /**
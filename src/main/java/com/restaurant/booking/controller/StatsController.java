@@ -0,0 +1,83 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.dto.CacheRegionStatsDTO;
+import com.restaurant.booking.dto.DailyStatsDTO;
+import com.restaurant.booking.dto.RepositoryMethodStatsDTO;
+import com.restaurant.booking.profiling.RepositoryProfiler;
+import com.restaurant.booking.service.CacheStatsService;
+import com.restaurant.booking.service.OccupancyStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class StatsController {
+
+    private final OccupancyStatsService statsService;
+    private final CacheStatsService cacheStatsService;
+    private final RepositoryProfiler repositoryProfiler;
+
+    /**
+     * GET /api/stats/daily?from=2026-01-01&to=2026-12-31
+     * Solo ADMIN. Por defecto, los últimos 365 días.
+     */
+    @GetMapping("/daily")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<DailyStatsDTO> getDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(364);
+        return statsService.getDailyStats(start, end);
+    }
+
+    /**
+     * POST /api/stats/rebuild?from=2026-01-01&to=2026-12-31
+     * Solo ADMIN. Recalcula las estadísticas desde las reservas.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        int rows = statsService.rebuild(from, to);
+        Map<String, Object> response = new HashMap<>();
+        response.put("from", from);
+        response.put("to", to);
+        response.put("rows", rows);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/stats/cache
+     * Solo ADMIN. Aciertos y fallos de la caché de segundo nivel por región.
+     */
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<CacheRegionStatsDTO> getCacheStats() {
+        return cacheStatsService.getRegionStats();
+    }
+
+    /**
+     * GET /api/stats/repositories?limit=20
+     * Solo ADMIN. Métodos de repositorio que más tiempo de base de datos consumen,
+     * con percentiles de latencia y filas devueltas.
+     */
+    @GetMapping("/repositories")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<RepositoryMethodStatsDTO> getRepositoryStats(@RequestParam(defaultValue = "20") int limit) {
+        return repositoryProfiler.getTopByTotalTime(Math.max(1, limit));
+    }
+}
@@ -0,0 +1,30 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.dto.SyncChangesDTO;
+import com.restaurant.booking.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * GET /api/sync/changes?since=<cursor>&limit=500
+     * ADMIN y STAFF. Sin since devuelve todo (primera carga); después, solo lo que cambió.
+     * Mientras hasMore sea true hay que volver a llamar con el nuevo cursor.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public SyncChangesDTO getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit
+    ) {
+        return syncService.getChanges(since, limit);
+    }
+}
@@ -1,9 +1,12 @@
 package com.restaurant.booking.controller;
 
+import com.restaurant.booking.dto.GuestSearchResultDTO;
 import com.restaurant.booking.model.User;
+import com.restaurant.booking.service.OptimisticRetry;
 import com.restaurant.booking.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,6 +21,7 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final OptimisticRetry optimisticRetry;
 
     /**
      * GET /api/users
@@ -29,6 +33,20 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    /**
+     * GET /api/users/search?q=garc&limit=20
+     * ADMIN y STAFF: búsqueda mientras se teclea por nombre, username, email o
+     * teléfono (principio o final), con las próximas reservas de cada cliente
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public List<GuestSearchResultDTO> searchGuests(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return userService.searchGuests(q, limit);
+    }
+
     /**
      * GET /api/users/{id}
      * Solo ADMIN
@@ -37,7 +55,7 @@ public class UserController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
         User user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(user);
     }
 
     /**
@@ -77,12 +95,20 @@ public class UserController {
     /**
      * PUT /api/users/{id}
      * Solo ADMIN
+     * Con If-Match falla (412) si el usuario cambió; sin él se reintenta ante conflictos
      */
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User user) {
-        User updated = userService.updateUser(id, user);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<User> updateUser(
+            @PathVariable Long id,
+            @Valid @RequestBody User user,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        ETags.Tag expected = ETags.parse(ifMatch);
+        User updated = expected != null
+                ? userService.updateUser(id, user, expected.version())
+                : optimisticRetry.execute(() -> userService.updateUser(id, user));
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
     /**
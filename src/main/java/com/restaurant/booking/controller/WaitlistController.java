@@ -0,0 +1,99 @@
+package com.restaurant.booking.controller;
+
+import com.restaurant.booking.dto.WaitlistEntryDTO;
+import com.restaurant.booking.dto.WaitlistRequest;
+import com.restaurant.booking.model.User;
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final UserRepository userRepository;
+
+    /**
+     * POST /api/waitlist
+     * CUSTOMER solo puede apuntarse a sí mismo
+     * ADMIN y STAFF pueden apuntar a cualquier cliente
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(
+            @Valid @RequestBody WaitlistRequest request,
+            Authentication authentication
+    ) {
+        if (isCustomer(authentication) && !currentUser(authentication).getId().equals(request.getUserId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        WaitlistEntryDTO entry = waitlistService.join(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+    }
+
+    /**
+     * GET /api/waitlist/my-entries
+     * Entradas del usuario actual (CUSTOMER)
+     */
+    @GetMapping("/my-entries")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public List<WaitlistEntryDTO> getMyEntries(Authentication authentication) {
+        return waitlistService.getEntriesByUser(currentUser(authentication).getId());
+    }
+
+    /**
+     * GET /api/waitlist/date/{date}
+     * Solo ADMIN y STAFF
+     */
+    @GetMapping("/date/{date}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public List<WaitlistEntryDTO> getEntriesByDate(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return waitlistService.getEntriesByDate(date);
+    }
+
+    /**
+     * PATCH /api/waitlist/{id}/cancel
+     * CUSTOMER solo puede cancelar sus propias entradas
+     */
+    @PatchMapping("/{id}/cancel")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    public ResponseEntity<WaitlistEntryDTO> cancelEntry(
+            @PathVariable Long id,
+            Authentication authentication
+    ) {
+        if (isCustomer(authentication)) {
+            WaitlistEntryDTO entry = waitlistService.getEntryById(id);
+            if (!entry.getUserId().equals(currentUser(authentication).getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        }
+
+        return ResponseEntity.ok(waitlistService.cancel(id));
+    }
+
+    private boolean isCustomer(Authentication authentication) {
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+        return role.equals("ROLE_CUSTOMER");
+    }
+
+    private User currentUser(Authentication authentication) {
+        return userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+    }
+}
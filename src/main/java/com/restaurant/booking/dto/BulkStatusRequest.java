@@ -0,0 +1,33 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.enums.TableLocation;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Cambio de estado masivo: todas las reservas de una fecha en un estado,
+ * opcionalmente solo de una mesa o de una ubicación
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+
+    @NotNull(message = "La fecha es obligatoria")
+    private LocalDate date;
+
+    @NotNull(message = "El estado actual es obligatorio")
+    private ReservationStatus fromStatus;
+
+    @NotNull(message = "El nuevo estado es obligatorio")
+    private ReservationStatus toStatus;
+
+    private Long tableId;
+
+    private TableLocation location;
+}
@@ -0,0 +1,19 @@
+package com.restaurant.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aciertos y fallos de una región de la caché de segundo nivel desde el arranque
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDTO {
+    private String region;
+    private Long hits;
+    private Long misses;
+    private Long puts;
+    private Double hitRate;
+}
@@ -0,0 +1,19 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarDayDTO {
+    private LocalDate date;
+    private long reservations;      // Todas, en cualquier estado
+    private long covers;            // Comensales de las reservas no canceladas ni no-show
+    private Map<ReservationStatus, Long> byStatus;  // Solo los estados con alguna reserva
+}
@@ -0,0 +1,9 @@
+package com.restaurant.booking.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila modificada (id y marca de tiempo) para paginar la sincronización por (updated_at, id)
+ */
+public record ChangeRef(Long id, LocalDateTime updatedAt) {
+}
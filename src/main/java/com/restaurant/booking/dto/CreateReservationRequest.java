@@ -18,7 +18,7 @@ public class CreateReservationRequest {
     @NotNull(message = "El ID de usuario es obligatorio")
     private Long userId;
 
-    @NotNull(message = "El ID de mesa es obligatorio")
+    // Opcional: sin mesa (o si no basta para el grupo) se asignan mesas libres, juntándolas si hace falta
     private Long tableId;
 
     @NotNull(message = "La fecha es obligatoria")
@@ -0,0 +1,28 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.TableLocation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Estadísticas de un día en una ubicación (location = null: total del día)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStatsDTO {
+    private LocalDate date;
+    private TableLocation location;
+    private Integer reservations;
+    private Integer covers;
+    private Integer seats;
+    private Integer completed;
+    private Integer cancelled;
+    private Integer noShows;
+    private Double occupancyRate;
+    private Double noShowRate;
+    private Double cancellationRate;
+}
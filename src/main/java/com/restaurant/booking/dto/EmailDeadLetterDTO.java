@@ -0,0 +1,23 @@
+package com.restaurant.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email fallido (sin el mensaje completo)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDeadLetterDTO {
+    private Long id;
+    private String recipients;
+    private String subject;
+    private Integer attempts;
+    private String lastError;
+    private LocalDateTime failedAt;
+    private LocalDateTime replayedAt;
+}
@@ -0,0 +1,19 @@
+package com.restaurant.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestSearchResultDTO {
+    private Long userId;
+    private String username;
+    private String fullName;
+    private String email;
+    private String phone;
+    private List<ReservationDTO> upcomingReservations;  // PENDING, CONFIRMED y SEATED desde hoy
+}
@@ -0,0 +1,27 @@
+package com.restaurant.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latencia (en ms) y filas de un método de repositorio desde el arranque, más
+ * las llamadas y el p99 del último intervalo cerrado
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepositoryMethodStatsDTO {
+    private String repository;
+    private String method;
+    private Long calls;
+    private Double totalMs;
+    private Double meanMs;
+    private Double p50Ms;
+    private Double p99Ms;
+    private Double maxMs;
+    private Long rows;
+    private Long rowsP99;
+    private Long recentCalls;
+    private Double recentP99Ms;
+}
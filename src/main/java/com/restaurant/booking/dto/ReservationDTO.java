@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -23,4 +24,6 @@ public class ReservationDTO {
     private Integer guests;
     private ReservationStatus status;
     private String specialRequests;
+    private Long version;           // Para If-Match (también va en el ETag)
+    private List<Long> joinedTableIds;  // Mesas juntadas con la principal (grupos grandes)
 }
\ No newline at end of file
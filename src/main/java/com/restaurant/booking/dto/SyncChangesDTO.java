@@ -0,0 +1,28 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.SyncEntityType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChangesDTO {
+    private List<ReservationDTO> reservations;  // Reservas creadas o modificadas
+    private List<TableDTO> tables;              // Mesas creadas o modificadas
+    private List<Deleted> deleted;              // Filas borradas
+    private String cursor;                      // Enviar como since en la siguiente llamada
+    private boolean hasMore;                    // Quedan cambios: volver a llamar ya
+    private boolean fullResync;                 // El cursor era demasiado antiguo: descartar los datos locales
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Deleted {
+        private SyncEntityType type;
+        private Long id;
+    }
+}
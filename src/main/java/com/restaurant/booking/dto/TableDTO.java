@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Set;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,4 +18,6 @@ public class TableDTO {
     private TableLocation location;
     private TableStatus status;
     private String description;
+    private Long version;           // Versión de la entidad; el ETag añade el estado
+    private Set<Long> joinableWith; // Mesas vecinas con las que se puede juntar
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.enums.WaitlistStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    private Long userId;
+    private String userName;
+    private LocalDate desiredDate;
+    private LocalTime windowStart;
+    private LocalTime windowEnd;
+    private Integer guests;
+    private TableLocation location;
+    private WaitlistStatus status;
+    private Long reservationId;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.restaurant.booking.dto;
+
+import com.restaurant.booking.enums.TableLocation;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistRequest {
+
+    @NotNull(message = "El ID de usuario es obligatorio")
+    private Long userId;
+
+    @NotNull(message = "La fecha es obligatoria")
+    private LocalDate desiredDate;
+
+    @NotNull(message = "El inicio de la franja es obligatorio")
+    private LocalTime windowStart;
+
+    @NotNull(message = "El fin de la franja es obligatorio")
+    private LocalTime windowEnd;
+
+    @NotNull(message = "El número de comensales es obligatorio")
+    @Min(value = 1, message = "Debe haber al menos 1 comensal")
+    private Integer guests;
+
+    // Opcional: si no se indica, vale cualquier ubicación
+    private TableLocation location;
+}
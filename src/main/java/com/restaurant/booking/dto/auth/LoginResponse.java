@@ -14,4 +14,5 @@ public class LoginResponse {
     private String email;
     private String fullName;
     private String role;
+    private Long restaurantId;
 }
\ No newline at end of file
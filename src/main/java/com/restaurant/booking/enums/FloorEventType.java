@@ -0,0 +1,11 @@
+package com.restaurant.booking.enums;
+
+public enum FloorEventType {
+    TABLE_STATUS_CHANGED,       // Cambio de estado de una mesa
+    RESERVATION_CREATED,        // Nueva reserva
+    RESERVATION_STATUS_CHANGED, // Cambio de estado de una reserva
+    RESERVATION_CANCELLED,      // Reserva cancelada
+    TABLES_STATUS_CHANGED,      // Cambio de estado de varias mesas (payload: lista)
+    RESERVATIONS_STATUS_CHANGED, // Cambio de estado masivo de reservas (payload: lista)
+    RESYNC                      // El cliente debe recargar el estado completo
+}
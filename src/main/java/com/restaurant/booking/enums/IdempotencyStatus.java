@@ -0,0 +1,6 @@
+package com.restaurant.booking.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,    // La primera petición se está ejecutando
+    COMPLETED       // Respuesta guardada, se reenvía a los duplicados
+}
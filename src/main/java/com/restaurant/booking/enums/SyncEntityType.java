@@ -0,0 +1,6 @@
+package com.restaurant.booking.enums;
+
+public enum SyncEntityType {
+    RESERVATION,    // Reserva
+    TABLE           // Mesa
+}
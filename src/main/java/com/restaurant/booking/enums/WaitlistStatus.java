@@ -0,0 +1,8 @@
+package com.restaurant.booking.enums;
+
+public enum WaitlistStatus {
+    WAITING,        // En espera de un hueco
+    BOOKED,         // Se le asignó una reserva
+    CANCELLED,      // Cancelada por el cliente
+    EXPIRED         // La fecha pasó sin hueco
+}
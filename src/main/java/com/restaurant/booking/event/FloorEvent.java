@@ -0,0 +1,29 @@
+package com.restaurant.booking.event;
+
+import com.restaurant.booking.enums.FloorEventType;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento incremental del estado de sala (mesas y reservas).
+ * El id (secuencia del restaurante) lo asigna el broadcaster al publicarse,
+ * tras el commit; solo lo reciben los clientes del mismo restaurante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorEvent {
+    private long id;
+    private Long restaurantId;
+    private FloorEventType type;
+    private Object payload;
+    private LocalDateTime occurredAt;
+
+    public static FloorEvent of(FloorEventType type, Object payload) {
+        return new FloorEvent(0, TenantContext.getRestaurantId(), type, payload, LocalDateTime.now());
+    }
+}
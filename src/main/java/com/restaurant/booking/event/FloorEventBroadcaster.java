@@ -0,0 +1,390 @@
+package com.restaurant.booking.event;
+
+import com.restaurant.booking.enums.FloorEventType;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Difunde los eventos de sala a los clientes SSE.
+ *
+ * Un único hilo despachador recibe los eventos ya confirmados (AFTER_COMMIT),
+ * les asigna un id secuencial de su restaurante, los guarda en el buffer
+ * circular del restaurante para poder reenviarlos (Last-Event-ID) y los copia
+ * al buffer acotado de cada cliente.
+ * La escritura en los sockets la hace un pool pequeño de escritores, así que un
+ * cliente lento nunca frena al resto: si su buffer se llena se cierra su
+ * conexión y, al reconectar, recupera lo perdido desde el buffer circular.
+ * Un cliente que deja de leer bloquea a su escritor dentro de send(): pasado
+ * app.events.send-timeout-ms se le desconecta y el pool suma un hilo mientras
+ * ese escritor siga atascado (hasta que el timeout de escritura del servidor
+ * lo libere), así que los demás clientes siguen teniendo writer-threads hilos.
+ * Cada cliente solo recibe los eventos de su restaurante, y cada restaurante
+ * guarda sus últimos app.events.replay-size eventos.
+ *
+ * El id SSE es "arranque-secuencia": la secuencia vuelve a empezar en cada
+ * arranque, así que un Last-Event-ID de otro arranque (o de otra instancia)
+ * no se puede comparar y el cliente recibe RESYNC.
+ */
+@Slf4j
+@Component
+public class FloorEventBroadcaster {
+
+    @Value("${app.events.replay-size:1024}")
+    private int replaySize;
+
+    @Value("${app.events.client-buffer-size:256}")
+    private int clientBufferSize;
+
+    @Value("${app.events.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${app.events.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${app.events.heartbeat-seconds:20}")
+    private long heartbeatSeconds;
+
+    @Value("${app.events.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<Subscriber, Boolean> subscribers = new ConcurrentHashMap<>();
+
+    // Distingue los ids de este arranque de los de anteriores
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Restaurante → eventos recientes. Solo accedido desde el hilo despachador
+    private final Map<Long, Replay> replays = new HashMap<>();
+
+    private Thread dispatcher;
+    private ThreadPoolExecutor writers;
+    private final AtomicInteger stalledWriters = new AtomicInteger();
+    private ScheduledExecutorService heartbeat;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+
+        AtomicInteger writerCount = new AtomicInteger();
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "floor-events-writer-" + writerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "floor-events-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(() -> commands.offer(this::sendHeartbeat),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeat.scheduleAtFixedRate(this::dropStalledSubscribers, 1, 1, TimeUnit.SECONDS);
+
+        dispatcher = new Thread(this::dispatchLoop, "floor-events-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+        for (Subscriber subscriber : subscribers.keySet()) {
+            try {
+                subscriber.emitter.complete();
+            } catch (IllegalStateException e) {
+                // El servidor ya cerró la conexión
+            }
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Recibe los eventos publicados por los servicios una vez hecho el commit.
+     * Nunca bloquea al hilo que hizo la transacción.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFloorEvent(FloorEvent event) {
+        commands.offer(() -> broadcast(event));
+    }
+
+    /**
+     * Registra un nuevo cliente y le reenvía los eventos posteriores a lastEventId
+     * (el último id SSE que recibió, null si es la primera conexión)
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Subscriber subscriber = new Subscriber(TenantContext.getRestaurantId(), emitter,
+                new ArrayBlockingQueue<>(clientBufferSize));
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        commands.offer(() -> register(subscriber, lastEventId));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // ==================== HILO DESPACHADOR ====================
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                commands.take().run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error en el despachador de eventos de sala: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void broadcast(FloorEvent source) {
+        Replay replay = replay(source.getRestaurantId());
+        FloorEvent event = new FloorEvent(++replay.lastEventId, source.getRestaurantId(), source.getType(),
+                source.getPayload(), source.getOccurredAt());
+        replay.events[(int) (event.getId() % replay.events.length)] = event;
+
+        for (Subscriber subscriber : subscribers.keySet()) {
+            if (subscriber.restaurantId.equals(event.getRestaurantId())) {
+                enqueue(subscriber, event);
+            }
+        }
+    }
+
+    private void register(Subscriber subscriber, String lastEventId) {
+        Replay replay = replay(subscriber.restaurantId);
+        boolean resuming = lastEventId != null && !lastEventId.isBlank();
+        Long lastSeenId = resuming ? sequenceOf(lastEventId) : null;
+        if (resuming && (lastSeenId == null || lastSeenId > replay.lastEventId)) {
+            // Id de otro arranque o instancia (o no es nuestro): no se sabe qué se perdió
+            subscriber.buffer.offer(resyncEvent(subscriber.restaurantId, replay));
+        } else if (lastSeenId != null && lastSeenId < replay.lastEventId) {
+            long oldestRetained = Math.max(1, replay.lastEventId - replay.events.length + 1);
+            if (lastSeenId + 1 < oldestRetained || replay.lastEventId - lastSeenId > clientBufferSize) {
+                // Ya no tenemos todo lo que se perdió: el cliente debe recargar
+                subscriber.buffer.offer(resyncEvent(subscriber.restaurantId, replay));
+            } else {
+                for (long id = lastSeenId + 1; id <= replay.lastEventId; id++) {
+                    subscriber.buffer.offer(replay.events[(int) (id % replay.events.length)]);
+                }
+            }
+        }
+        subscribers.put(subscriber, Boolean.TRUE);
+        scheduleDrain(subscriber);
+    }
+
+    private void enqueue(Subscriber subscriber, FloorEvent event) {
+        if (!subscriber.buffer.offer(event)) {
+            // Cliente demasiado lento: se desconecta y recuperará con Last-Event-ID
+            drop(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    /**
+     * Quita al cliente de la difusión. La conexión la cierra su escritor:
+     * complete() espera a que acabe el send() en curso, y aquí no se puede esperar.
+     */
+    private void drop(Subscriber subscriber) {
+        if (subscriber.dropped) {
+            return;
+        }
+        subscribers.remove(subscriber);
+        subscriber.dropped = true;
+        scheduleDrain(subscriber);
+    }
+
+    private void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers.keySet()) {
+            if (subscriber.buffer.isEmpty() && !subscriber.draining.get()) {
+                subscriber.heartbeatPending = true;
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Hilo del heartbeat: desconecta a los clientes con un send() que dura más
+     * de sendTimeoutMs y suma un escritor por cada hilo que se queda atascado
+     */
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers.keySet()) {
+            long started = subscriber.sendStartedAt;
+            if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)
+                    && !subscriber.stalled) {
+                subscriber.stalled = true;
+                log.warn("Cliente SSE del restaurante {} sin leer desde hace más de {} ms: se desconecta",
+                        subscriber.restaurantId, sendTimeoutMs);
+                resizeWriters(stalledWriters.incrementAndGet());
+                drop(subscriber);
+            }
+        }
+    }
+
+    private synchronized void resizeWriters(int stalled) {
+        int size = writerThreads + stalled;
+        if (size > writers.getMaximumPoolSize()) {
+            writers.setMaximumPoolSize(size);
+            writers.setCorePoolSize(size);
+        } else {
+            writers.setCorePoolSize(size);
+            writers.setMaximumPoolSize(size);
+        }
+    }
+
+    private Replay replay(Long restaurantId) {
+        return replays.computeIfAbsent(restaurantId, id -> new Replay(replaySize));
+    }
+
+    /**
+     * Secuencia de un id SSE de este arranque; null si es de otro o no tiene nuestro formato
+     */
+    private Long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static FloorEvent resyncEvent(Long restaurantId, Replay replay) {
+        return new FloorEvent(replay.lastEventId, restaurantId, FloorEventType.RESYNC, null, LocalDateTime.now());
+    }
+
+    // ==================== ESCRITORES ====================
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.heartbeatPending && !subscriber.dropped) {
+                subscriber.heartbeatPending = false;
+                send(subscriber, SseEmitter.event().comment("ping"));
+            }
+
+            List<FloorEvent> batch = new ArrayList<>();
+            while (!subscriber.dropped && subscriber.buffer.drainTo(batch, 64) > 0) {
+                for (FloorEvent event : batch) {
+                    send(subscriber, SseEmitter.event()
+                            .id(epoch + "-" + event.getId())
+                            .name(event.getType().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                batch.clear();
+            }
+            if (subscriber.dropped) {
+                if (!subscriber.closed) {
+                    subscriber.closed = true;
+                    subscriber.emitter.complete();
+                }
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.dropped = true;
+            subscriber.closed = true;
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            if (subscriber.stalled) {
+                // El escritor atascado vuelve al pool: ya no hace falta el hilo extra
+                subscriber.stalled = false;
+                resizeWriters(stalledWriters.decrementAndGet());
+            }
+            subscriber.draining.set(false);
+        }
+
+        // Puede haber llegado un evento (o la desconexión) justo después de vaciar el buffer
+        if (subscriber.dropped || !subscriber.buffer.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private static void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedAt = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendStartedAt = 0;
+        }
+    }
+
+    /**
+     * Últimos eventos de un restaurante, en un buffer circular indexado por id
+     */
+    private static final class Replay {
+        final FloorEvent[] events;
+        long lastEventId = 0;
+
+        Replay(int size) {
+            events = new FloorEvent[size];
+        }
+    }
+
+    private static final class Subscriber {
+        final Long restaurantId;
+        final SseEmitter emitter;
+        final BlockingQueue<FloorEvent> buffer;
+        final AtomicBoolean draining = new AtomicBoolean(false);
+        volatile boolean heartbeatPending;
+        // Momento (nanoTime) en que empezó el send() en curso, 0 si no hay ninguno
+        volatile long sendStartedAt;
+        // Ya no recibe eventos: su escritor cierra la conexión
+        volatile boolean dropped;
+        volatile boolean closed;
+        // Su escritor se quedó atascado y se sumó un hilo al pool por él
+        volatile boolean stalled;
+
+        Subscriber(Long restaurantId, SseEmitter emitter, BlockingQueue<FloorEvent> buffer) {
+            this.restaurantId = restaurantId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.restaurant.booking.event;
+
+import com.restaurant.booking.enums.TableLocation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Una mesa ha quedado libre en una fecha y hora (cancelación o no-show)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotFreedEvent {
+    private Long restaurantId;
+    private Long tableId;
+    private Integer capacity;
+    private TableLocation location;
+    private LocalDate date;
+    private LocalTime time;
+}
@@ -0,0 +1,61 @@
+package com.restaurant.booking.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Respuestas de error de la concurrencia optimista, de la capacidad de
+ * cocina y de los borrados bloqueados, con el mismo formato ({"error": "..."}) que el resto de la API
+ */
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Otra petición modificó la fila entre la lectura y el commit
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLock(ObjectOptimisticLockingFailureException e) {
+        log.debug("Conflicto de versión: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "El recurso ha sido modificado por otra petición, vuelve a cargarlo"));
+    }
+
+    /**
+     * El cliente partía de una versión que ya no es la actual
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailed(PreconditionFailedException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    /**
+     * La cocina no admite más comensales en ese tramo; se sugiere el más cercano con sitio
+     */
+    @ExceptionHandler(SlotQuotaExceededException.class)
+    public ResponseEntity<Map<String, String>> handleSlotQuotaExceeded(SlotQuotaExceededException e) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        if (e.getSuggestedTime() != null) {
+            body.put("suggestedTime", e.getSuggestedTime().toString());
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    /**
+     * Borrado de una mesa o un usuario que aún tiene reservas
+     */
+    @ExceptionHandler(ResourceInUseException.class)
+    public ResponseEntity<Map<String, String>> handleResourceInUse(ResourceInUseException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,11 @@
+package com.restaurant.booking.exception;
+
+/**
+ * El If-Match de la petición no coincide con la versión actual del recurso (412)
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
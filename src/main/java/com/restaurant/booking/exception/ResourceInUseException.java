@@ -0,0 +1,11 @@
+package com.restaurant.booking.exception;
+
+/**
+ * No se puede borrar el recurso porque otros datos lo referencian (409)
+ */
+public class ResourceInUseException extends RuntimeException {
+
+    public ResourceInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.booking.exception;
+
+import lombok.Getter;
+
+import java.time.LocalTime;
+
+/**
+ * La cocina no admite más comensales en el tramo pedido (409). Si hay un tramo
+ * cercano con sitio, lo lleva como sugerencia.
+ */
+@Getter
+public class SlotQuotaExceededException extends RuntimeException {
+
+    private final LocalTime suggestedTime;
+
+    public SlotQuotaExceededException(String message, LocalTime suggestedTime) {
+        super(message);
+        this.suggestedTime = suggestedTime;
+    }
+}
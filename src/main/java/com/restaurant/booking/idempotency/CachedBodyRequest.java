@@ -0,0 +1,84 @@
+package com.restaurant.booking.idempotency;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Petición con el cuerpo leído por adelantado, para calcular su huella y
+ * que el controlador pueda volver a leerlo
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request) throws IOException {
+        super(request);
+        this.body = StreamUtils.copyToByteArray(request.getInputStream());
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream input = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            /**
+             * El cuerpo ya está en memoria: los datos están listos desde el
+             * principio, así que se avisa al momento en vez de esperar al socket
+             */
+            @Override
+            public void setReadListener(ReadListener listener) {
+                try {
+                    if (!isFinished()) {
+                        listener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() {
+                return input.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return input.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        Charset charset = getCharacterEncoding() != null
+                ? Charset.forName(getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
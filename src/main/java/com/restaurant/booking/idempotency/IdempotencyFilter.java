@@ -0,0 +1,161 @@
+package com.restaurant.booking.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Soporte del header Idempotency-Key en las escrituras de reservas.
+ *
+ * La primera petición con una clave se ejecuta y su respuesta se guarda; los
+ * reintentos con la misma clave reciben esa respuesta sin pasar por el
+ * controlador (ni validaciones, ni consultas, ni emails). Se registra en la
+ * cadena de seguridad detrás de la autorización, así la clave queda ligada
+ * al usuario autenticado.
+ *
+ * Se guardan el estado, las cabeceras (ETag, Location...) y el cuerpo. Los
+ * errores del servidor y los rechazos que dependen del momento (conflicto,
+ * precondición, límite de peticiones) no se guardan: un reintento posterior
+ * con la misma clave vuelve a ejecutarse.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH");
+    private static final String PATH_PREFIX = "/api/reservations";
+
+    // Rechazos sin efecto que pueden ir bien más tarde (p. ej. el 409 del cupo de cocina)
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpServletResponse.SC_CONFLICT, HttpServletResponse.SC_PRECONDITION_FAILED, 423, 429);
+
+    // Cabeceras que no se guardan: las pone el servidor o dependen de la petición
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "content-type", "content-length", "transfer-encoding", "date", "connection",
+            "keep-alive", "set-cookie", "vary");
+
+    private final IdempotencyStore store;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(HEADER) == null
+                || !METHODS.contains(request.getMethod())
+                || !request.getRequestURI().startsWith(PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String key = request.getHeader(HEADER).strip();
+        if (key.isEmpty() || key.length() > 255) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Idempotency-Key no válida");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        IdempotencyStore.Claim claim = store.claim(currentUser() + ":" + key, fingerprint(cachedRequest));
+
+        switch (claim.outcome()) {
+            case REPLAY -> replay(response, claim.response());
+            case MISMATCH -> response.sendError(422, "Idempotency-Key ya usada con otra petición");
+            case BUSY -> response.sendError(HttpServletResponse.SC_CONFLICT,
+                    "Hay una petición con la misma Idempotency-Key en curso");
+            case EXECUTE -> execute(cachedRequest, response, filterChain, claim);
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response,
+                         FilterChain filterChain, IdempotencyStore.Claim claim) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (ServletException | IOException | RuntimeException e) {
+            store.abandon(claim);
+            throw e;
+        }
+
+        if (wrapper.getStatus() >= 500 || RETRYABLE_STATUSES.contains(wrapper.getStatus())) {
+            store.abandon(claim);
+        } else {
+            store.complete(claim, new IdempotencyStore.StoredResponse(wrapper.getStatus(),
+                    wrapper.getContentType(), headersOf(wrapper), wrapper.getContentAsByteArray()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!SKIPPED_HEADERS.contains(lower) && !lower.startsWith("access-control-")
+                    && !headers.containsKey(name)) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        stored.headers().forEach((name, values) -> {
+            for (int i = 0; i < values.size(); i++) {
+                if (i == 0) {
+                    response.setHeader(name, values.get(i));
+                } else {
+                    response.addHeader(name, values.get(i));
+                }
+            }
+        });
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+        response.flushBuffer();
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private static String fingerprint(CachedBodyRequest request) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        // Accept también cuenta: la misma petición en otro formato es otra respuesta
+        data.write((request.getMethod() + " " + request.getRequestURI() + "?"
+                + (request.getQueryString() != null ? request.getQueryString() : "") + "\n"
+                + request.getHeader(HttpHeaders.ACCEPT) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        data.write(request.getBody());
+        return IdempotencyStore.sha256(data.toByteArray());
+    }
+}
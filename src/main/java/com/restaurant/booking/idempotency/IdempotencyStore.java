@@ -0,0 +1,313 @@
+package com.restaurant.booking.idempotency;
+
+import com.restaurant.booking.enums.IdempotencyStatus;
+import com.restaurant.booking.model.IdempotencyRecord;
+import com.restaurant.booking.repository.IdempotencyRecordRepository;
+import com.restaurant.booking.service.RestaurantService;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Respuestas guardadas por Idempotency-Key: en memoria (con caducidad) y en
+ * la tabla idempotency_records para sobrevivir a reinicios y a varias instancias.
+ *
+ * Una clave se reclama antes de ejecutar la petición. Los duplicados que
+ * llegan mientras la primera sigue en curso esperan su resultado (un future
+ * en la misma instancia, sondeo de la BD entre instancias) en vez de ejecutarse.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final RestaurantService restaurantService;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.idempotency.in-progress-timeout-ms:60000}")
+    private long inProgressTimeoutMs;
+
+    @Value("${app.idempotency.memory-max-entries:10000}")
+    private int memoryMaxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository, RestaurantService restaurantService) {
+        this.recordRepository = recordRepository;
+        this.restaurantService = restaurantService;
+    }
+
+    /**
+     * Respuesta HTTP guardada, con sus cabeceras (nombre → valores)
+     */
+    public record StoredResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+    }
+
+    public enum Outcome {
+        EXECUTE,    // Primera vez: ejecutar y llamar a complete() o abandon()
+        REPLAY,     // Ya hay respuesta: reenviarla
+        MISMATCH,   // La clave se usó con otra petición distinta
+        BUSY        // La primera petición sigue en curso tras esperar
+    }
+
+    public record Claim(Outcome outcome, StoredResponse response, String key, Entry entry) {
+    }
+
+    /**
+     * Reclama una clave para el restaurante actual
+     * @param scopedKey clave del cliente ya ligada a su usuario
+     * @param requestHash huella de la petición (método, ruta y cuerpo)
+     */
+    public Claim claim(String scopedKey, String requestHash) {
+        String keyHash = sha256(scopedKey);
+        String key = TenantContext.getRestaurantId() + ":" + keyHash;
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (System.currentTimeMillis() < deadline) {
+            // 1. Memoria: respuesta guardada o petición en curso en esta instancia
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                if (!existing.requestHash.equals(requestHash)) {
+                    return new Claim(Outcome.MISMATCH, null, key, null);
+                }
+                StoredResponse response = await(existing, deadline);
+                if (response != null && !existing.isExpired()) {
+                    return new Claim(Outcome.REPLAY, response, key, null);
+                }
+                if (existing.result.isDone()) {
+                    // La primera falló o caducó: se puede volver a intentar
+                    entries.remove(key, existing);
+                }
+                continue;
+            }
+
+            // 2. Base de datos: otra instancia o un arranque anterior
+            Optional<IdempotencyRecord> stored = recordRepository.findByKeyHash(keyHash);
+            if (stored.isPresent()) {
+                IdempotencyRecord record = stored.get();
+                if (record.getExpiresAt().isBefore(LocalDateTime.now()) || isAbandoned(record)) {
+                    recordRepository.deleteByKeyHash(keyHash);
+                    continue;
+                }
+                if (!record.getRequestHash().equals(requestHash)) {
+                    return new Claim(Outcome.MISMATCH, null, key, null);
+                }
+                if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                    StoredResponse response = new StoredResponse(record.getResponseStatus(),
+                            record.getContentType(), decodeHeaders(record.getResponseHeaders()),
+                            record.getResponseBody());
+                    remember(key, requestHash, response, record.getExpiresAt());
+                    return new Claim(Outcome.REPLAY, response, key, null);
+                }
+                // En curso en otra instancia
+                sleep(100);
+                continue;
+            }
+
+            // 3. Reclamar: primero en memoria y después en la BD (clave única)
+            Entry mine = new Entry(requestHash, keyHash);
+            if (entries.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            try {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setKeyHash(keyHash);
+                record.setRequestHash(requestHash);
+                record.setStatus(IdempotencyStatus.IN_PROGRESS);
+                record.setCreatedAt(LocalDateTime.now());
+                record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+                mine.recordId = recordRepository.saveAndFlush(record).getId();
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia la reclamó a la vez
+                entries.remove(key, mine);
+                mine.result.complete(null);
+                continue;
+            }
+            trimMemory();
+            return new Claim(Outcome.EXECUTE, null, key, mine);
+        }
+        return new Claim(Outcome.BUSY, null, key, null);
+    }
+
+    /**
+     * Guarda la respuesta de una petición reclamada y despierta a los duplicados
+     */
+    public void complete(Claim claim, StoredResponse response) {
+        Entry entry = claim.entry();
+        try {
+            IdempotencyRecord record = recordRepository.findById(entry.recordId)
+                    .orElseGet(IdempotencyRecord::new);
+            record.setKeyHash(entry.keyHash);
+            record.setRequestHash(entry.requestHash);
+            record.setStatus(IdempotencyStatus.COMPLETED);
+            record.setResponseStatus(response.status());
+            record.setContentType(response.contentType());
+            record.setResponseHeaders(encodeHeaders(response.headers()));
+            record.setResponseBody(response.body());
+            if (record.getCreatedAt() == null) {
+                record.setCreatedAt(LocalDateTime.now());
+            }
+            record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+            recordRepository.save(record);
+        } catch (Exception e) {
+            // La respuesta sigue en memoria; solo se pierde la copia duradera
+            log.warn("No se pudo guardar la respuesta idempotente: {}", e.getMessage());
+        }
+        entry.expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours);
+        entry.result.complete(response);
+    }
+
+    /**
+     * La petición reclamada falló: se libera la clave para que un reintento se ejecute
+     */
+    public void abandon(Claim claim) {
+        Entry entry = claim.entry();
+        entries.remove(claim.key(), entry);
+        try {
+            recordRepository.deleteByKeyHash(entry.keyHash);
+        } catch (Exception e) {
+            log.warn("No se pudo liberar la clave idempotente: {}", e.getMessage());
+        }
+        entry.result.complete(null);
+    }
+
+    /**
+     * Limpia las respuestas caducadas de memoria y de la BD
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        entries.entrySet().removeIf(e -> e.getValue().isExpired());
+        LocalDateTime now = LocalDateTime.now();
+        restaurantService.forEachRestaurant(restaurantId -> {
+            int deleted = recordRepository.deleteExpired(restaurantId, now);
+            if (deleted > 0) {
+                log.debug("Restaurante {}: {} claves idempotentes caducadas eliminadas", restaurantId, deleted);
+            }
+        });
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private StoredResponse await(Entry entry, long deadline) {
+        try {
+            long remaining = Math.max(1, deadline - System.currentTimeMillis());
+            return entry.result.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private boolean isAbandoned(IdempotencyRecord record) {
+        return record.getStatus() == IdempotencyStatus.IN_PROGRESS
+                && record.getCreatedAt().plus(Duration.ofMillis(inProgressTimeoutMs)).isBefore(LocalDateTime.now());
+    }
+
+    private void remember(String key, String requestHash, StoredResponse response, LocalDateTime expiresAt) {
+        Entry entry = new Entry(requestHash, null);
+        entry.expiresAt = System.currentTimeMillis()
+                + Duration.between(LocalDateTime.now(), expiresAt).toMillis();
+        entry.result.complete(response);
+        entries.putIfAbsent(key, entry);
+        trimMemory();
+    }
+
+    /**
+     * Las respuestas también están en la BD: si la memoria se llena se
+     * descartan las ya completadas
+     */
+    private void trimMemory() {
+        if (entries.size() > memoryMaxEntries) {
+            entries.entrySet().removeIf(e -> e.getValue().result.isDone());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String encodeHeaders(Map<String, List<String>> headers) {
+        StringBuilder encoded = new StringBuilder();
+        headers.forEach((name, values) -> values.forEach(value ->
+                encoded.append(name).append(": ").append(value).append('\n')));
+        return encoded.toString();
+    }
+
+    static Map<String, List<String>> decodeHeaders(String encoded) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        if (encoded == null) {
+            return headers;
+        }
+        for (String line : encoded.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) {
+                headers.computeIfAbsent(line.substring(0, colon), name -> new ArrayList<>())
+                        .add(line.substring(colon + 2));
+            }
+        }
+        return headers;
+    }
+
+    static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Clave reclamada en esta instancia
+     */
+    public static final class Entry {
+        private final String requestHash;
+        private final String keyHash;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        private volatile Long recordId;
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(String requestHash, String keyHash) {
+            this.requestHash = requestHash;
+            this.keyHash = keyHash;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
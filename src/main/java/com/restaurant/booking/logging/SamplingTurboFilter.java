@@ -0,0 +1,91 @@
+package com.restaurant.booking.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Muestreo de logs frecuentes: de los loggers indicados (o sus hijos) solo pasan
+ * los primeros maxPerSecond eventos de cada segundo; el resto se descarta antes
+ * de formatear el mensaje. ERROR pasa siempre. Con el primer evento de un
+ * segundo nuevo se avisa de cuántos se descartaron en el anterior.
+ *
+ * Se configura en logback-spring.xml:
+ * <pre>
+ * &lt;turboFilter class="com.restaurant.booking.logging.SamplingTurboFilter"&gt;
+ *     &lt;logger&gt;com.restaurant.booking.security.JwtRequestFilter&lt;/logger&gt;
+ *     &lt;maxPerSecond&gt;20&lt;/maxPerSecond&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final org.slf4j.Logger SAMPLING_LOG = LoggerFactory.getLogger(SamplingTurboFilter.class);
+
+    private final List<String> loggers = new ArrayList<>();
+    private int maxPerSecond = 20;
+
+    // Logger muestreado → ventana del segundo actual
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public void addLogger(String name) {
+        loggers.add(name.trim());
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.ERROR) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            // ERROR no se muestrea, y lo que no se iba a escribir tampoco cuenta
+            return FilterReply.NEUTRAL;
+        }
+        String sampled = sampledLogger(logger.getName());
+        if (sampled == null) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Window window = windows.computeIfAbsent(sampled, name -> new Window());
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.second.get();
+        if (second != current && window.second.compareAndSet(current, second)) {
+            int dropped = window.dropped.getAndSet(0);
+            window.count.set(0);
+            if (dropped > 0) {
+                SAMPLING_LOG.warn("Muestreo de logs: {} eventos de {} descartados", dropped, sampled);
+            }
+        }
+        if (window.count.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        window.dropped.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    private String sampledLogger(String name) {
+        for (String prefix : loggers) {
+            if (name.equals(prefix) || (name.startsWith(prefix) && name.charAt(prefix.length()) == '.')) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    private static final class Window {
+        final AtomicLong second = new AtomicLong();
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger dropped = new AtomicInteger();
+    }
+}
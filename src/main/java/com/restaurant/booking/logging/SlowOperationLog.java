@@ -0,0 +1,39 @@
+package com.restaurant.booking.logging;
+
+import com.restaurant.booking.tenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log de operaciones lentas (logger "slow-operations"): peticiones HTTP y
+ * llamadas a repositorios que superan su umbral. Las rápidas no escriben nada.
+ */
+public final class SlowOperationLog {
+
+    public static final String LOGGER_NAME = "slow-operations";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private SlowOperationLog() {
+    }
+
+    public static void request(String method, String uri, int status, long elapsedMs, long thresholdMs) {
+        log.atWarn()
+                .addKeyValue("operation", "request")
+                .addKeyValue("method", method)
+                .addKeyValue("uri", uri)
+                .addKeyValue("status", status)
+                .addKeyValue("elapsedMs", elapsedMs)
+                .log("Petición lenta: {} {} ({} ms, umbral {} ms)", method, uri, elapsedMs, thresholdMs);
+    }
+
+    public static void repositoryCall(String repository, String method, long elapsedMs, long thresholdMs) {
+        log.atWarn()
+                .addKeyValue("operation", "repository")
+                .addKeyValue("repository", repository)
+                .addKeyValue("method", method)
+                .addKeyValue("elapsedMs", elapsedMs)
+                .addKeyValue("restaurantId", TenantContext.peek())
+                .log("Consulta lenta: {}.{} ({} ms, umbral {} ms)", repository, method, elapsedMs, thresholdMs);
+    }
+}
@@ -0,0 +1,32 @@
+package com.restaurant.booking.logging;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Mide cada llamada a un repositorio de Spring Data y la anota en el log de
+ * operaciones lentas si supera el umbral (se añade al proxy del repositorio)
+ */
+public class SlowRepositoryCallInterceptor implements MethodInterceptor {
+
+    private final String repository;
+    private final long thresholdMs;
+
+    public SlowRepositoryCallInterceptor(String repository, long thresholdMs) {
+        this.repository = repository;
+        this.thresholdMs = thresholdMs;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs >= thresholdMs) {
+                SlowOperationLog.repositoryCall(repository, invocation.getMethod().getName(), elapsedMs, thresholdMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.restaurant.booking.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Mide cada petición HTTP completa (seguridad incluida) y la anota en el log de
+ * operaciones lentas si supera el umbral. Las peticiones asíncronas (SSE) no se
+ * miden: siguen abiertas mientras el cliente escucha.
+ */
+public class SlowRequestFilter extends OncePerRequestFilter {
+
+    private final long thresholdMs;
+
+    public SlowRequestFilter(long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs >= thresholdMs && !request.isAsyncStarted()) {
+                SlowOperationLog.request(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        elapsedMs, thresholdMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.restaurant.booking.mail;
+
+import com.restaurant.booking.model.EmailDeadLetter;
+import com.restaurant.booking.repository.EmailDeadLetterRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Cola de salida de emails.
+ *
+ * Los emails se encolan y unos pocos hilos (uno por conexión del pool SMTP)
+ * los envían por lotes: cada lote va por una sola sesión SMTP. Un hilo espera
+ * hasta lingerMs a que se junten más mensajes antes de enviar un lote
+ * incompleto.
+ *
+ * Un error temporal (conexión, timeout, respuesta 4xx) se reintenta con
+ * espera exponencial con jitter; uno permanente (respuesta 5xx) o agotar los
+ * reintentos guarda el email como fallido (EmailDeadLetter), igual que
+ * si la cola está llena o la aplicación se para con emails pendientes. Con el
+ * SmtpCircuitBreaker abierto los hilos esperan y los emails se quedan en la cola.
+ */
+@Slf4j
+@Component
+public class MailDispatcher {
+
+    private static final long RETRY_TICK_MS = 100;
+    private static final int RETRY_WHEEL_SIZE = 1024;
+
+    private final JavaMailSender mailSender;
+    private final EmailDeadLetterRepository deadLetterRepository;
+    private final SmtpCircuitBreaker circuitBreaker;
+    private final BlockingQueue<OutgoingEmail> queue;
+    private final int workers;
+    private final int batchSize;
+    private final long lingerMs;
+
+    @Value("${app.mail.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.mail.retry.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${app.mail.retry.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    // Emails esperando su reintento (para guardarlos si se para la aplicación)
+    private final Set<OutgoingEmail> scheduledRetries = ConcurrentHashMap.newKeySet();
+
+    private volatile ExecutorService executor;
+    private volatile TimerWheel retryWheel;
+
+    /**
+     * El mail sender y los hilos se crean con el primer email, fuera del arranque
+     */
+    public MailDispatcher(@Lazy JavaMailSender mailSender,
+                          EmailDeadLetterRepository deadLetterRepository,
+                          SmtpCircuitBreaker circuitBreaker,
+                          @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+                          @Value("${app.mail.pool.max-connections:2}") int workers,
+                          @Value("${app.mail.batch-size:20}") int batchSize,
+                          @Value("${app.mail.batch-linger-ms:100}") long lingerMs) {
+        this.mailSender = mailSender;
+        this.deadLetterRepository = deadLetterRepository;
+        this.circuitBreaker = circuitBreaker;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = lingerMs;
+    }
+
+    /**
+     * Encola un email del restaurante actual
+     */
+    public void submit(MimeMessage message) {
+        start();
+        enqueue(new OutgoingEmail(message, TenantContext.getRestaurantId()));
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    public MimeMessage createMimeMessage(InputStream contentStream) {
+        return mailSender.createMimeMessage(contentStream);
+    }
+
+    private void enqueue(OutgoingEmail email) {
+        if (!queue.offer(email)) {
+            email.recordFailure("Cola de emails llena (" + queue.size() + " pendientes)");
+            park(email);
+        }
+    }
+
+    private void start() {
+        if (executor != null) {
+            return;
+        }
+        synchronized (this) {
+            if (executor == null) {
+                retryWheel = new TimerWheel("mail-retry", RETRY_TICK_MS, RETRY_WHEEL_SIZE);
+                AtomicInteger counter = new AtomicInteger();
+                ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+                    Thread thread = new Thread(runnable, "mail-sender-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                for (int i = 0; i < workers; i++) {
+                    pool.execute(this::run);
+                }
+                executor = pool;
+            }
+        }
+    }
+
+    private void run() {
+        List<OutgoingEmail> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    OutgoingEmail next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                long waitMs;
+                while ((waitMs = circuitBreaker.waitBeforeSendMs()) > 0) {
+                    Thread.sleep(waitMs);
+                }
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(this::park);
+        }
+    }
+
+    private void send(List<OutgoingEmail> batch) {
+        Map<MimeMessage, OutgoingEmail> emails = new IdentityHashMap<>();
+        batch.forEach(email -> emails.put(email.getMessage(), email));
+        try {
+            mailSender.send(emails.keySet().toArray(new MimeMessage[0]));
+            circuitBreaker.onSuccess();
+            log.debug("Lote de {} emails enviado", batch.size());
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            boolean serverDown = failed.size() == batch.size()
+                    && failed.values().stream().noneMatch(MailDispatcher::isPermanent);
+            if (serverDown) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            failed.forEach((message, error) -> {
+                OutgoingEmail email = emails.get(message);
+                if (email != null) {
+                    handleFailure(email, error);
+                }
+            });
+        } catch (Exception e) {
+            // Autenticación u otro error del lote entero
+            circuitBreaker.onFailure();
+            batch.forEach(email -> handleFailure(email, e));
+        }
+    }
+
+    private void handleFailure(OutgoingEmail email, Exception error) {
+        email.recordFailure(error.getMessage());
+        if (isPermanent(error) || email.getAttempts() >= maxAttempts) {
+            park(email);
+            return;
+        }
+        long delayMs = backoffMs(email.getAttempts());
+        log.warn("Error temporal al enviar email (intento {} de {}), se reintenta en {} ms: {}",
+                email.getAttempts(), maxAttempts, delayMs, error.getMessage());
+        scheduledRetries.add(email);
+        retryWheel.schedule(() -> {
+            if (scheduledRetries.remove(email)) {
+                enqueue(email);
+            }
+        }, delayMs);
+    }
+
+    /**
+     * Espera exponencial (initialBackoffMs, x2 en cada intento, hasta
+     * maxBackoffMs) con jitter entre la mitad y el total, para que los emails
+     * de una caída no se reintenten todos a la vez
+     */
+    private long backoffMs(int attempts) {
+        long exponential = initialBackoffMs << Math.min(attempts - 1, 20);
+        long capped = Math.min(maxBackoffMs, exponential);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * Respuesta 5xx del servidor (destinatario o mensaje rechazados): reintentar
+     * no sirve de nada
+     */
+    private static boolean isPermanent(Throwable error) {
+        for (Throwable t = error; t != null; t = next(t)) {
+            if (t instanceof SMTPAddressFailedException failed) {
+                return failed.getReturnCode() >= 500;
+            }
+            if (t instanceof SMTPSendFailedException failed) {
+                return failed.getReturnCode() >= 500;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable next(Throwable t) {
+        if (t instanceof MessagingException messaging && messaging.getNextException() != null) {
+            return messaging.getNextException();
+        }
+        return t.getCause() != t ? t.getCause() : null;
+    }
+
+    /**
+     * Guarda el email completo como fallido, en el restaurante que lo envió
+     */
+    private void park(OutgoingEmail email) {
+        MimeMessage message = email.getMessage();
+        String recipients = "?";
+        try {
+            recipients = recipients(message);
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            message.writeTo(raw);
+            EmailDeadLetter deadLetter = new EmailDeadLetter();
+            deadLetter.setRecipients(truncate(recipients, 1000));
+            deadLetter.setSubject(truncate(message.getSubject(), 500));
+            deadLetter.setRawMessage(raw.toByteArray());
+            deadLetter.setAttempts(email.getAttempts());
+            deadLetter.setLastError(truncate(email.getLastError(), 1000));
+            deadLetter.setFailedAt(LocalDateTime.now());
+            TenantContext.runAs(email.getRestaurantId(), () -> deadLetterRepository.save(deadLetter));
+            log.error("Email a {} guardado como fallido tras {} intentos: {}",
+                    recipients, email.getAttempts(), email.getLastError());
+        } catch (Exception e) {
+            log.error("Email a {} perdido: no se pudo guardar como fallido: {}", recipients, e.getMessage());
+        }
+    }
+
+    private static String recipients(MimeMessage message) throws MessagingException {
+        Address[] recipients = message.getAllRecipients();
+        return recipients == null ? "" : Arrays.stream(recipients)
+                .map(Address::toString)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String truncate(String value, int max) {
+        return value == null || value.length() <= max ? value : value.substring(0, max);
+    }
+
+    /**
+     * Lo que queda en la cola o esperando reintento se guarda como fallido
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        retryWheel.stop();
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        List<OutgoingEmail> pending = new ArrayList<>(scheduledRetries);
+        queue.drainTo(pending);
+        scheduledRetries.clear();
+        if (!pending.isEmpty()) {
+            log.warn("Se guardan como fallidos {} emails pendientes al parar", pending.size());
+            pending.forEach(this::park);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.restaurant.booking.mail;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ventana de agrupación de notificaciones.
+ *
+ * La primera notificación de una clave (por ejemplo, una reserva) espera
+ * windowMs antes de enviarse; si durante la ventana llega otra de la misma
+ * clave, sustituye a la pendiente y solo sale la última (reserva creada y
+ * confirmada al momento: solo el email de confirmada). El plazo no se alarga
+ * con cada notificación, así que una clave nunca espera más de windowMs.
+ * Los plazos los lleva una TimerWheel con un solo hilo, que solo saca la
+ * notificación vencida: el envío (preparar el email, encolarlo o guardarlo
+ * como fallido) se hace en el ejecutor de @Async.
+ */
+@Slf4j
+@Component
+// El dispatcher se para después: lo pendiente se envía al cerrar
+@DependsOn("mailDispatcher")
+public class NotificationCoalescer {
+
+    private final Executor executor;
+    private final long windowMs;
+    private final long tickMs;
+    private final ConcurrentMap<Object, Pending> pending = new ConcurrentHashMap<>();
+
+    private volatile TimerWheel wheel;
+
+    public NotificationCoalescer(@Qualifier("applicationTaskExecutor") Executor executor,
+                                 @Value("${app.notifications.coalesce-window-ms:15000}") long windowMs,
+                                 @Value("${app.notifications.tick-ms:100}") long tickMs) {
+        this.executor = executor;
+        this.windowMs = windowMs;
+        this.tickMs = Math.max(1, tickMs);
+    }
+
+    /**
+     * Programa el envío para la clave, sustituyendo al pendiente si lo hay
+     * (key null o ventana 0: se envía ya)
+     */
+    public void submit(Object key, Runnable send) {
+        if (key == null || windowMs <= 0) {
+            send.run();
+            return;
+        }
+        pending.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.send = send;
+                log.debug("Notificación pendiente de {} sustituida", k);
+                return existing;
+            }
+            wheel().schedule(() -> handOff(k), windowMs);
+            return new Pending(send);
+        });
+    }
+
+    /**
+     * Vencimiento en el hilo de la rueda: el envío pasa al ejecutor para no
+     * retrasar al resto de plazos
+     */
+    private void handOff(Object key) {
+        Pending fired = pending.remove(key);
+        if (fired == null) {
+            return;
+        }
+        try {
+            executor.execute(fired.send);
+        } catch (RejectedExecutionException e) {
+            // Ejecutor ya parado (cierre de la aplicación): se envía aquí
+            fired.send.run();
+        }
+    }
+
+    private void fire(Object key) {
+        Pending fired = pending.remove(key);
+        if (fired != null) {
+            fired.send.run();
+        }
+    }
+
+    private TimerWheel wheel() {
+        if (wheel == null) {
+            synchronized (this) {
+                if (wheel == null) {
+                    // Una vuelta cubre la ventana: ninguna tarea espera más de una vuelta
+                    int size = (int) Math.min(4096, windowMs / tickMs + 1);
+                    wheel = new TimerWheel("notification-wheel", tickMs, size);
+                }
+            }
+        }
+        return wheel;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+        // Al parar no se espera a la ventana
+        for (Object key : pending.keySet()) {
+            fire(key);
+        }
+    }
+
+    private static final class Pending {
+        private volatile Runnable send;
+
+        private Pending(Runnable send) {
+            this.send = send;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.restaurant.booking.mail;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Email en la cola de salida, con el restaurante que lo envió y los intentos hechos
+ */
+public class OutgoingEmail {
+
+    private final MimeMessage message;
+    private final Long restaurantId;
+    private int attempts;
+    private String lastError;
+
+    public OutgoingEmail(MimeMessage message, Long restaurantId) {
+        this.message = message;
+        this.restaurantId = restaurantId;
+    }
+
+    public MimeMessage getMessage() {
+        return message;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    void recordFailure(String error) {
+        attempts++;
+        lastError = error;
+    }
+}
@@ -0,0 +1,187 @@
+package com.restaurant.booking.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * JavaMailSenderImpl con las conexiones SMTP reutilizables.
+ *
+ * JavaMailSenderImpl conecta (TCP, STARTTLS y AUTH) y desconecta en cada
+ * send(). Aquí las conexiones ya autenticadas vuelven a un pool y el siguiente
+ * envío solo hace el intercambio MAIL/RCPT/DATA. Como mucho hay maxConnections
+ * abiertas a la vez; una conexión se cierra si falla un envío, si lleva más de
+ * idleTimeoutMs parada o tras maxMessagesPerConnection mensajes (los servidores
+ * limitan los mensajes por sesión).
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    // Tras este tiempo parada se comprueba con un NOOP antes de reutilizarla
+    private static final long VALIDATE_AFTER_IDLE_MS = 1_000;
+
+    private final long idleTimeoutMs;
+    private final int maxMessagesPerConnection;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+
+    public PooledJavaMailSender(int maxConnections, long idleTimeoutMs, int maxMessagesPerConnection) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.permits = new Semaphore(Math.max(1, maxConnections));
+    }
+
+    /**
+     * Envía los mensajes por una sola conexión del pool. Mismo contrato que
+     * JavaMailSenderImpl: MailSendException con los mensajes que fallaron.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        permits.acquireUninterruptibly();
+        PooledConnection connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+                if (connection == null) {
+                    try {
+                        connection = borrow();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (Exception ex) {
+                        // Sin conexión no se intenta el resto: fallan todos los pendientes
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        break;
+                    }
+                }
+                try {
+                    send(connection, mimeMessage);
+                } catch (Exception ex) {
+                    failedMessages.put(original, ex);
+                    // La sesión puede haber quedado a medias: el resto va por una conexión nueva
+                    close(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            release(connection);
+            permits.release();
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Cierra las conexiones que llevan más de idleTimeoutMs sin usarse, antes de
+     * que lo haga el servidor
+     */
+    @Scheduled(fixedDelayString = "${app.mail.pool.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection connection : idle) {
+            if (now - connection.lastUsed > idleTimeoutMs && idle.remove(connection)) {
+                close(connection);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private void send(PooledConnection connection, MimeMessage mimeMessage) throws MessagingException {
+        // Lo mismo que hace JavaMailSenderImpl antes de enviar
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        connection.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+        connection.sent++;
+    }
+
+    /**
+     * La última conexión devuelta (LIFO: las demás se quedan paradas y caducan)
+     */
+    private PooledConnection borrow() throws MessagingException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isReusable(connection)) {
+                return connection;
+            }
+            close(connection);
+        }
+        return new PooledConnection(connectTransport());
+    }
+
+    private boolean isReusable(PooledConnection connection) {
+        long idleMs = System.currentTimeMillis() - connection.lastUsed;
+        if (idleMs > idleTimeoutMs) {
+            return false;
+        }
+        // isConnected() manda un NOOP: solo si ha estado parada un rato
+        return idleMs < VALIDATE_AFTER_IDLE_MS || connection.transport.isConnected();
+    }
+
+    private void release(@Nullable PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        if (connection.sent >= maxMessagesPerConnection) {
+            close(connection);
+            return;
+        }
+        connection.lastUsed = System.currentTimeMillis();
+        idle.offerFirst(connection);
+    }
+
+    private static void close(@Nullable PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error al cerrar la conexión SMTP: {}", e.getMessage());
+        }
+    }
+
+    private static final class PooledConnection {
+        private final Transport transport;
+        private long lastUsed = System.currentTimeMillis();
+        private int sent;
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.restaurant.booking.mail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cortacircuitos del servidor SMTP.
+ *
+ * Tras failureThreshold lotes seguidos sin poder hablar con el servidor se
+ * abre durante openMs: los hilos de envío esperan en vez de acumular
+ * timeouts, y los emails se quedan en la cola. Pasado ese tiempo un solo lote
+ * de prueba (semiabierto) decide si se cierra o se vuelve a abrir.
+ */
+@Slf4j
+@Component
+public class SmtpCircuitBreaker {
+
+    // Lo que esperan los demás hilos mientras hay un lote de prueba en curso
+    private static final long HALF_OPEN_WAIT_MS = 500;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openUntil;
+
+    public SmtpCircuitBreaker(@Value("${app.mail.circuit.failure-threshold:5}") int failureThreshold,
+                              @Value("${app.mail.circuit.open-ms:30000}") long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+    }
+
+    /**
+     * 0 si se puede enviar ya; si no, cuánto esperar antes de volver a preguntar
+     */
+    public synchronized long waitBeforeSendMs() {
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+                long remaining = openUntil - System.currentTimeMillis();
+                if (remaining > 0) {
+                    return remaining;
+                }
+                state = State.HALF_OPEN;
+                log.info("Circuito SMTP semiabierto: se prueba un lote");
+                return 0;
+            default:
+                return HALF_OPEN_WAIT_MS;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuito SMTP cerrado: el servidor vuelve a responder");
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuito SMTP abierto durante {} ms tras {} fallos seguidos", openMs, failures);
+            }
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openMs;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
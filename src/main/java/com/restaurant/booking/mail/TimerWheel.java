@@ -0,0 +1,118 @@
+package com.restaurant.booking.mail;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporizador de rueda (hashed timing wheel): muchas tareas programadas con
+ * un solo hilo y sin un objeto del planificador por tarea.
+ *
+ * La rueda tiene wheelSize casillas de tickMs cada una; una tarea cae en la
+ * casilla de su vencimiento y, si está a más de una vuelta, espera las vueltas
+ * que falten. Programar es O(1) (una cola sin bloqueos que el hilo de la rueda
+ * reparte en cada tick) y la precisión es de un tick.
+ */
+@Slf4j
+public class TimerWheel {
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService ticker;
+
+    // Solo lo toca el hilo de la rueda
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tickMs, int wheelSize) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMs));
+        this.buckets = new Queue[Math.max(1, wheelSize)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ejecuta la tarea en el hilo de la rueda pasado el retraso (tiene que ser
+     * corta: retrasa al resto)
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs));
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    private void advance() {
+        long now = (System.nanoTime() - startNanos) / tickNanos;
+        // Si el hilo se ha retrasado se recuperan todos los ticks pendientes
+        while (tick <= now) {
+            distributeIncoming();
+            expire(buckets[(int) (tick % buckets.length)]);
+            tick++;
+        }
+    }
+
+    private void distributeIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long dueTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+            timeout.rounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick % buckets.length)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                it.remove();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    log.error("Error en una tarea del temporizador", e);
+                }
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile boolean cancelled;
+        private long rounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
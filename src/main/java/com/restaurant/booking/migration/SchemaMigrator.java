@@ -0,0 +1,56 @@
+package com.restaurant.booking.migration;
+
+import com.restaurant.booking.tenant.TenancyProperties;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Migraciones de esquema versionadas (Flyway) de cada base de datos.
+ *
+ * Las tablas las crea y amplía Hibernate (ddl-auto=update); las migraciones
+ * hacen lo que él no hace (quitar índices, particionar) y por eso se aplican
+ * después de que arranque el EntityManagerFactory. Cada una se aplica una
+ * sola vez por base de datos (flyway_schema_history) y Flyway las serializa
+ * con un bloqueo en la base de datos, así que varias instancias pueden
+ * arrancar a la vez. Una base de datos sin historial se toma como versión 0.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigrator {
+
+    static final String LOCATION = "classpath:com/restaurant/booking/migration";
+
+    private final DataSource dataSource;
+    private final TenancyProperties tenancyProperties;
+
+    public SchemaMigrator(DataSource dataSource, TenancyProperties tenancyProperties) {
+        this.dataSource = dataSource;
+        this.tenancyProperties = tenancyProperties;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        // El DataSource enruta por restaurante: uno de cada base de datos
+        tenancyProperties.restaurantPerDatabase().forEach((database, restaurantId) -> TenantContext.runAs(restaurantId, () -> {
+            MigrateResult result = Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(LOCATION)
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+            if (result.migrationsExecuted > 0) {
+                log.info("Base de datos {}: {} migraciones aplicadas (versión {})",
+                        database, result.migrationsExecuted, result.targetSchemaVersion);
+            }
+        }));
+    }
+}
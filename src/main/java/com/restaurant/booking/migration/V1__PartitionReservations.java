@@ -0,0 +1,75 @@
+package com.restaurant.booking.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particiona la tabla reservations por mes de reservation_date: quita sus
+ * claves foráneas (MySQL no las admite en tablas particionadas), cambia la PK
+ * a (id, reservation_date) y crea una partición para todo lo anterior al mes
+ * actual, una por mes hasta MONTHS_AHEAD y p_future. Reescribe la tabla
+ * bloqueándola, una sola vez; después ReservationPartitionManager solo
+ * añade y elimina particiones mensuales. Sin las claves foráneas, los
+ * borrados de mesas y usuarios comprueban ellos mismos que no tengan reservas.
+ */
+@Slf4j
+public class V1__PartitionReservations extends BaseJavaMigration {
+
+    private static final String TABLE = "reservations";
+    private static final int MONTHS_AHEAD = 3;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        Integer tables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Integer.class, TABLE);
+        if (tables == null || tables == 0) {
+            // Si se diera por aplicada, la tabla no se particionaría nunca
+            throw new IllegalStateException("No existe la tabla " + TABLE + ": falta crear el esquema");
+        }
+        Integer partitions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                Integer.class, TABLE);
+        if (partitions != null && partitions > 0) {
+            return;
+        }
+
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+                String.class, TABLE);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY " + foreignKey);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, reservation_date)");
+
+        LocalDate firstMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate lastMonth = firstMonth.plusMonths(MONTHS_AHEAD);
+        List<String> definitions = new ArrayList<>();
+        definitions.add("PARTITION p_history VALUES LESS THAN ('" + firstMonth + "')");
+        for (LocalDate month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            definitions.add("PARTITION " + month.format(PARTITION_NAME)
+                    + " VALUES LESS THAN ('" + month.plusMonths(1) + "')");
+        }
+        definitions.add("PARTITION p_future VALUES LESS THAN (MAXVALUE)");
+
+        long started = System.currentTimeMillis();
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(reservation_date) ("
+                + String.join(", ", definitions) + ")");
+        log.info("Tabla {} particionada por mes hasta {} ({} ms)",
+                TABLE, lastMonth, System.currentTimeMillis() - started);
+    }
+}
@@ -0,0 +1,45 @@
+package com.restaurant.booking.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+
+/**
+ * Quita los índices únicos globales de users.username, users.email y
+ * restaurant_tables.table_number que dejó el esquema anterior a los
+ * restaurantes (unique=true en la columna). ddl-auto=update crea los nuevos
+ * por restaurante pero nunca borra los viejos, y con ellos dos restaurantes
+ * no podrían repetir usuario, email ni número de mesa.
+ *
+ * Hibernate les puso un nombre generado, así que se buscan por columna: un
+ * índice único de una sola columna. Si no existen (base de datos nueva) no
+ * hace nada.
+ */
+@Slf4j
+public class V2__DropGlobalUniqueIndexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        dropSingleColumnUniqueIndexes(jdbcTemplate, "users", "username");
+        dropSingleColumnUniqueIndexes(jdbcTemplate, "users", "email");
+        dropSingleColumnUniqueIndexes(jdbcTemplate, "restaurant_tables", "table_number");
+    }
+
+    private static void dropSingleColumnUniqueIndexes(JdbcTemplate jdbcTemplate, String table, String column) {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND NON_UNIQUE = 0 " +
+                        "AND INDEX_NAME <> 'PRIMARY' " +
+                        "GROUP BY INDEX_NAME HAVING COUNT(*) = 1 AND MAX(COLUMN_NAME) = ?",
+                String.class, table, column);
+        for (String index : indexes) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX `" + index + "`");
+            log.info("Eliminado el índice único global {} de {}.{}", index, table, column);
+        }
+    }
+}
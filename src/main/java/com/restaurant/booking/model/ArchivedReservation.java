@@ -0,0 +1,83 @@
+package com.restaurant.booking.model;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reserva cerrada (COMPLETED, CANCELLED o NO_SHOW) movida fuera de la tabla
+ * caliente por ReservationArchiver. Conserva el id original, el número de
+ * mesa (por si la mesa se elimina después) y las mesas juntadas.
+ */
+@Entity
+@Table(name = "reservations_archive", indexes = {
+        @Index(name = "idx_reservations_archive_restaurant_user", columnList = "restaurant_id, user_id, reservation_date"),
+        @Index(name = "idx_reservations_archive_restaurant_date", columnList = "restaurant_id, reservation_date, status, guests")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedReservation {
+
+    @Id
+    private Long id;
+
+    @TenantId
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    @Column(name = "table_id", nullable = false)
+    private Long tableId;
+
+    @Column(name = "table_number")
+    private Integer tableNumber;
+
+    // Mesas juntadas con la principal, copiadas de reservation_tables al archivar
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "reservations_archive_tables",
+            joinColumns = @JoinColumn(name = "reservation_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT),
+            indexes = @Index(name = "idx_reservations_archive_tables_table", columnList = "table_id"))
+    @Column(name = "table_id", nullable = false)
+    private Set<Long> joinedTableIds = new HashSet<>();
+
+    @Column(name = "reservation_date", nullable = false)
+    private LocalDate reservationDate;
+
+    @Column(name = "reservation_time", nullable = false)
+    private LocalTime reservationTime;
+
+    @Column(nullable = false)
+    private Integer guests;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "special_requests", length = 1000)
+    private String specialRequests;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,69 @@
+package com.restaurant.booking.model;
+
+import com.restaurant.booking.enums.TableLocation;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Contadores diarios por ubicación: reservas por estado y comensales.
+ *
+ * Se mantienen con deltas (INSERT ... ON DUPLICATE KEY UPDATE) desde
+ * ReservationService, así el panel lee un año entero con un único rango
+ * sobre la clave única (restaurant_id, stats_date, location).
+ */
+@Entity
+@Table(name = "daily_occupancy_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stats_restaurant_date_location",
+                columnNames = {"restaurant_id", "stats_date", "location"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyOccupancyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    @Column(name = "stats_date", nullable = false)
+    private LocalDate statsDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TableLocation location;
+
+    @Column(name = "pending_count", nullable = false)
+    private int pending;
+
+    @Column(name = "confirmed_count", nullable = false)
+    private int confirmed;
+
+    @Column(name = "seated_count", nullable = false)
+    private int seated;
+
+    @Column(name = "completed_count", nullable = false)
+    private int completed;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private int cancelled;
+
+    @Column(name = "no_show_count", nullable = false)
+    private int noShow;
+
+    // Comensales de las reservas que no se cancelaron ni fueron no-show
+    @Column(name = "booked_covers", nullable = false)
+    private int bookedCovers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,54 @@
+package com.restaurant.booking.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email que no se pudo enviar (error permanente o reintentos agotados),
+ * guardado completo para poder reenviarlo
+ */
+@Entity
+@Table(name = "email_dead_letters", indexes = {
+        @Index(name = "idx_email_dead_letters_pending", columnList = "restaurant_id, replayed_at, failed_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false, length = 1000)
+    private String recipients;
+
+    @Column(length = 500)
+    private String subject;
+
+    // El mensaje MIME tal cual (cabeceras y cuerpo)
+    @Lob
+    @Column(name = "raw_message", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] rawMessage;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+}
@@ -0,0 +1,65 @@
+package com.restaurant.booking.model;
+
+import com.restaurant.booking.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada para un Idempotency-Key (copia duradera de la caché en memoria)
+ */
+@Entity
+@Table(name = "idempotency_records", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_restaurant_key", columnNames = {"restaurant_id", "key_hash"})
+}, indexes = {
+        @Index(name = "idx_idempotency_expires", columnList = "restaurant_id, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    // SHA-256 de usuario + clave enviada por el cliente
+    @Column(name = "key_hash", nullable = false, length = 64)
+    private String keyHash;
+
+    // SHA-256 de método, ruta y cuerpo: la misma clave con otra petición es un error
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatus status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    // Cabeceras de la respuesta (ETag, Location...), una "Nombre: valor" por línea
+    @Column(name = "response_headers", columnDefinition = "TEXT")
+    private String responseHeaders;
+
+    @Lob
+    @Column(name = "response_body", columnDefinition = "LONGBLOB")
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
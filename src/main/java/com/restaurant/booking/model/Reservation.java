@@ -8,13 +8,30 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "reservations")
+// Tabla particionada por rango de reservation_date (ver ReservationPartitionManager):
+// MySQL no admite claves foráneas en tablas particionadas y la PK incluye reservation_date
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_restaurant_table_date", columnList = "restaurant_id, table_id, reservation_date, reservation_time"),
+        // Incluye guests para que el resumen del calendario (GROUP BY día y estado) salga solo del índice
+        @Index(name = "idx_reservations_restaurant_date_status_guests", columnList = "restaurant_id, reservation_date, status, guests"),
+        @Index(name = "idx_reservations_restaurant_user", columnList = "restaurant_id, user_id"),
+        // Caducidad de PENDING y marcado de NO_SHOW
+        @Index(name = "idx_reservations_restaurant_status_created", columnList = "restaurant_id, status, created_at"),
+        @Index(name = "idx_reservations_restaurant_status_slot", columnList = "restaurant_id, status, reservation_date, reservation_time"),
+        // Sincronización incremental (cambios desde un cursor)
+        @Index(name = "idx_reservations_restaurant_updated", columnList = "restaurant_id, updated_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,16 +41,38 @@ public class Reservation {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Restaurante al que pertenece: Hibernate lo rellena y filtra con el tenant de la sesión
+    @TenantId
+    @ColumnDefault("1")
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    // Bloqueo optimista: cada UPDATE comprueba y sube la versión (ETag / If-Match)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @NotNull(message = "El usuario es obligatorio")
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
     @NotNull(message = "La mesa es obligatoria")
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "table_id", nullable = false)
+    @JoinColumn(name = "table_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private RestaurantTable table;
 
+    // Mesas juntadas con la principal para un grupo grande (sin clave foránea, como el resto)
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "reservation_tables",
+            joinColumns = @JoinColumn(name = "reservation_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT),
+            indexes = @Index(name = "idx_reservation_tables_table", columnList = "table_id"))
+    @Column(name = "table_id", nullable = false)
+    private Set<Long> joinedTableIds = new HashSet<>();
+
     @NotNull(message = "La fecha de reserva es obligatoria")
     @Column(name = "reservation_date", nullable = false)
     private LocalDate reservationDate;
@@ -0,0 +1,46 @@
+package com.restaurant.booking.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Restaurante (tenant). Mesas, reservas, usuarios y lista de espera
+ * pertenecen siempre a un restaurante.
+ */
+@Entity
+@Table(name = "restaurants")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Restaurant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "El nombre es obligatorio")
+    @Column(nullable = false)
+    private String name;
+
+    @NotBlank(message = "El código es obligatorio")
+    @Pattern(regexp = "^[a-z0-9-]{2,40}$", message = "El código solo admite minúsculas, números y guiones")
+    @Column(unique = true, nullable = false, length = 40)
+    private String code;
+
+    @Column(nullable = false)
+    private Boolean active = true;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
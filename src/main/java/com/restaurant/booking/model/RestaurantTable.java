@@ -8,11 +8,24 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "restaurant_tables")
+@Table(name = "restaurant_tables", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tables_restaurant_number", columnNames = {"restaurant_id", "table_number"})
+}, indexes = {
+        @Index(name = "idx_tables_restaurant_status", columnList = "restaurant_id, status"),
+        @Index(name = "idx_tables_restaurant_updated", columnList = "restaurant_id, updated_at, id")
+})
+// Caché de segundo nivel: se lee en cada reserva y cambia pocas veces por noche
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurant-tables")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,8 +35,20 @@ public class RestaurantTable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Restaurante al que pertenece: Hibernate lo rellena y filtra con el tenant de la sesión
+    @TenantId
+    @ColumnDefault("1")
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    // Bloqueo optimista: cada UPDATE comprueba y sube la versión (ETag / If-Match)
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @NotNull(message = "El número de mesa es obligatorio")
-    @Column(name = "table_number", unique = true, nullable = false)
+    @Column(name = "table_number", nullable = false)
     private Integer tableNumber;
 
     @NotNull(message = "La capacidad es obligatoria")
@@ -42,6 +67,14 @@ public class RestaurantTable {
     @Column(length = 500)
     private String description;
 
+    // Mesas vecinas con las que se puede juntar para un grupo grande
+    // (la relación es simétrica: basta con que una de las dos lo indique)
+    @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "restaurant-table-joins")
+    @CollectionTable(name = "restaurant_table_joins", joinColumns = @JoinColumn(name = "table_id"))
+    @Column(name = "joinable_table_id", nullable = false)
+    private Set<Long> joinableWith = new HashSet<>();
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
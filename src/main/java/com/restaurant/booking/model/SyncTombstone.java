@@ -0,0 +1,50 @@
+package com.restaurant.booking.model;
+
+import com.restaurant.booking.enums.SyncEntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de borrado para la sincronización incremental: la fila ya no existe,
+ * pero los clientes que la tenían deben enterarse de que tienen que quitarla
+ */
+@Entity
+@Table(name = "sync_tombstones", indexes = {
+        @Index(name = "idx_tombstones_restaurant_deleted", columnList = "restaurant_id, deleted_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private SyncEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public static SyncTombstone of(SyncEntityType entityType, Long entityId) {
+        SyncTombstone tombstone = new SyncTombstone();
+        tombstone.setEntityType(entityType);
+        tombstone.setEntityId(entityId);
+        tombstone.setDeletedAt(LocalDateTime.now());
+        return tombstone;
+    }
+}
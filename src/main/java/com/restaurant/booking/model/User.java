@@ -1,5 +1,6 @@
 package com.restaurant.booking.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -7,11 +8,20 @@ import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_users_restaurant_username", columnNames = {"restaurant_id", "username"}),
+        @UniqueConstraint(name = "uk_users_restaurant_email", columnNames = {"restaurant_id", "email"})
+})
+// Caché de segundo nivel: se carga en cada petición autenticada (CustomUserDetailsService)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,13 +31,26 @@ public class User {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Restaurante al que pertenece: Hibernate lo rellena y filtra con el tenant de la sesión
+    @TenantId
+    @ColumnDefault("1")
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    // Bloqueo optimista: cada UPDATE comprueba y sube la versión (ETag / If-Match)
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @NotBlank(message = "El username es obligatorio")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
     @NotBlank(message = "El email es obligatorio")
     @Email(message = "El email debe ser válido")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @NotBlank(message = "El nombre completo es obligatorio")
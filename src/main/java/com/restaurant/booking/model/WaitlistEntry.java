@@ -0,0 +1,77 @@
+package com.restaurant.booking.model;
+
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.enums.WaitlistStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+        @Index(name = "idx_waitlist_restaurant_status_date", columnList = "restaurant_id, status, desired_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Restaurante al que pertenece: Hibernate lo rellena y filtra con el tenant de la sesión
+    @TenantId
+    @ColumnDefault("1")
+    @Column(name = "restaurant_id", nullable = false, updatable = false)
+    private Long restaurantId;
+
+    @NotNull(message = "El usuario es obligatorio")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @NotNull(message = "La fecha deseada es obligatoria")
+    @Column(name = "desired_date", nullable = false)
+    private LocalDate desiredDate;
+
+    @NotNull(message = "El inicio de la franja es obligatorio")
+    @Column(name = "window_start", nullable = false)
+    private LocalTime windowStart;
+
+    @NotNull(message = "El fin de la franja es obligatorio")
+    @Column(name = "window_end", nullable = false)
+    private LocalTime windowEnd;
+
+    @NotNull(message = "El número de comensales es obligatorio")
+    @Min(value = 1, message = "Debe haber al menos 1 comensal")
+    @Column(nullable = false)
+    private Integer guests;
+
+    // null = cualquier ubicación
+    @Enumerated(EnumType.STRING)
+    private TableLocation location;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
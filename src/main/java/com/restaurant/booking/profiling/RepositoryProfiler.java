@@ -0,0 +1,123 @@
+package com.restaurant.booking.profiling;
+
+import com.restaurant.booking.dto.RepositoryMethodStatsDTO;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latencia y filas devueltas de cada método de repositorio, en histogramas
+ * HdrHistogram.
+ *
+ * Las llamadas escriben en un Recorder por método (sin bloqueos, se puede dejar
+ * siempre activo). Cada app.profiling.repositories.interval-ms se recoge el
+ * intervalo de cada Recorder y se suma al acumulado desde el arranque; las
+ * consultas leen esas copias, así que van con hasta un intervalo de retraso.
+ */
+@Component
+public class RepositoryProfiler {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final ConcurrentMap<Method, MethodProfile> profiles = new ConcurrentHashMap<>();
+
+    MethodProfile profileFor(String repository, Method method) {
+        MethodProfile profile = profiles.get(method);
+        return profile != null ? profile : profiles.computeIfAbsent(method, m -> new MethodProfile(repository, m));
+    }
+
+    /**
+     * Cierra el intervalo actual de todos los métodos
+     */
+    @Scheduled(fixedDelayString = "${app.profiling.repositories.interval-ms:60000}",
+            initialDelayString = "${app.profiling.repositories.interval-ms:60000}")
+    public synchronized void snapshot() {
+        for (MethodProfile profile : profiles.values()) {
+            profile.snapshot();
+        }
+    }
+
+    /**
+     * Los métodos que más tiempo de base de datos han consumido desde el arranque
+     */
+    public synchronized List<RepositoryMethodStatsDTO> getTopByTotalTime(int limit) {
+        List<RepositoryMethodStatsDTO> result = new ArrayList<>();
+        for (MethodProfile profile : profiles.values()) {
+            if (profile.latencyTotal.getTotalCount() > 0) {
+                result.add(profile.toDTO());
+            }
+        }
+        result.sort(Comparator.comparing(RepositoryMethodStatsDTO::getTotalMs).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    static final class MethodProfile {
+        private final String repository;
+        private final String method;
+        // En los @Modifying el número entero que devuelven son filas afectadas
+        final boolean modifying;
+
+        // Escritura concurrente desde las llamadas (microsegundos y filas)
+        private final Recorder latency = new Recorder(SIGNIFICANT_DIGITS);
+        private final Recorder rows = new Recorder(SIGNIFICANT_DIGITS);
+
+        // Solo se tocan con el monitor del profiler
+        private final Histogram latencyTotal = new Histogram(SIGNIFICANT_DIGITS);
+        private final Histogram rowsTotal = new Histogram(SIGNIFICANT_DIGITS);
+        private Histogram latencyInterval;
+        private Histogram rowsInterval;
+
+        MethodProfile(String repository, Method method) {
+            this.repository = repository;
+            this.method = method.getName();
+            this.modifying = method.isAnnotationPresent(Modifying.class);
+        }
+
+        void record(long elapsedNanos, long rowCount) {
+            latency.recordValue(Math.max(1, elapsedNanos / 1_000));
+            if (rowCount >= 0) {
+                rows.recordValue(rowCount);
+            }
+        }
+
+        private void snapshot() {
+            // El intervalo anterior se recicla para no crear histogramas en cada vuelta
+            latencyInterval = latency.getIntervalHistogram(latencyInterval);
+            rowsInterval = rows.getIntervalHistogram(rowsInterval);
+            latencyTotal.add(latencyInterval);
+            rowsTotal.add(rowsInterval);
+        }
+
+        private RepositoryMethodStatsDTO toDTO() {
+            long calls = latencyTotal.getTotalCount();
+            boolean hasInterval = latencyInterval != null && latencyInterval.getTotalCount() > 0;
+            return new RepositoryMethodStatsDTO(
+                    repository,
+                    method,
+                    calls,
+                    millis(latencyTotal.getMean() * calls),
+                    millis(latencyTotal.getMean()),
+                    millis(latencyTotal.getValueAtPercentile(50)),
+                    millis(latencyTotal.getValueAtPercentile(99)),
+                    millis(latencyTotal.getMaxValue()),
+                    Math.round(rowsTotal.getMean() * rowsTotal.getTotalCount()),
+                    rowsTotal.getValueAtPercentile(99),
+                    hasInterval ? latencyInterval.getTotalCount() : 0L,
+                    hasInterval ? millis(latencyInterval.getValueAtPercentile(99)) : null
+            );
+        }
+
+        private static double millis(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.restaurant.booking.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Anota la latencia y las filas de cada llamada a un repositorio en el
+ * RepositoryProfiler (se añade al proxy del repositorio)
+ */
+public class RepositoryProfilingInterceptor implements MethodInterceptor {
+
+    private final RepositoryProfiler profiler;
+    private final String repository;
+
+    public RepositoryProfilingInterceptor(RepositoryProfiler profiler, String repository) {
+        this.profiler = profiler;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryProfiler.MethodProfile profile = profiler.profileFor(repository, invocation.getMethod());
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            profile.record(System.nanoTime() - start, rows(result, profile.modifying));
+        }
+    }
+
+    /**
+     * Filas devueltas (o afectadas, en los @Modifying); -1 si no se saben sin
+     * consumir el resultado, como en los Stream
+     */
+    private static long rows(Object result, boolean modifying) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number number && modifying) {
+            return Math.max(0, number.longValue());
+        }
+        if (result instanceof Iterable<?> || result instanceof AutoCloseable) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.ArchivedReservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedReservationRepository extends JpaRepository<ArchivedReservation, Long> {
+
+    @Query("SELECT a FROM ArchivedReservation a JOIN FETCH a.user " +
+            "WHERE a.user.id = :userId ORDER BY a.reservationDate DESC, a.reservationTime DESC")
+    List<ArchivedReservation> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * Resumen del calendario de las reservas archivadas (mismo formato que en ReservationRepository)
+     */
+    @Query("SELECT a.reservationDate, a.status, COUNT(a), SUM(a.guests) FROM ArchivedReservation a " +
+            "WHERE a.reservationDate BETWEEN :from AND :to " +
+            "GROUP BY a.reservationDate, a.status")
+    List<Object[]> summarizeByDateAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Copia las reservas indicadas desde la tabla caliente (nativa: INSERT ... SELECT sin pasar por memoria)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reservations_archive"))
+    @Query(value = "INSERT INTO reservations_archive (id, restaurant_id, user_id, table_id, table_number, " +
+            "reservation_date, reservation_time, guests, status, special_requests, created_at, updated_at, archived_at) " +
+            "SELECT r.id, r.restaurant_id, r.user_id, r.table_id, t.table_number, " +
+            "r.reservation_date, r.reservation_time, r.guests, r.status, r.special_requests, r.created_at, r.updated_at, :now " +
+            "FROM reservations r LEFT JOIN restaurant_tables t ON t.id = r.table_id " +
+            "WHERE r.restaurant_id = :restaurantId AND r.id IN (:ids)",
+            nativeQuery = true)
+    int copyFromReservations(@Param("restaurantId") Long restaurantId,
+                             @Param("ids") Collection<Long> ids,
+                             @Param("now") LocalDateTime now);
+
+    /**
+     * Copia las mesas juntadas de las reservas indicadas (antes de borrarlas de reservation_tables)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reservations_archive_tables"))
+    @Query(value = "INSERT INTO reservations_archive_tables (reservation_id, table_id) " +
+            "SELECT reservation_id, table_id FROM reservation_tables WHERE reservation_id IN (:ids)",
+            nativeQuery = true)
+    int copyJoinedTablesFromReservations(@Param("ids") Collection<Long> ids);
+
+    boolean existsByTableId(Long tableId);
+
+    @Query("SELECT COUNT(a) > 0 FROM ArchivedReservation a JOIN a.joinedTableIds j WHERE j = :tableId")
+    boolean existsByJoinedTableId(@Param("tableId") Long tableId);
+
+    boolean existsByUserId(Long userId);
+}
@@ -0,0 +1,85 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.DailyOccupancyStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyOccupancyStatsRepository extends JpaRepository<DailyOccupancyStats, Long> {
+
+    @Query("SELECT s FROM DailyOccupancyStats s WHERE s.statsDate BETWEEN :from AND :to " +
+            "ORDER BY s.statsDate, s.location")
+    List<DailyOccupancyStats> findBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Suma un delta a los contadores del día (crea la fila si no existe)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_occupancy_stats"))
+    @Query(value = "INSERT INTO daily_occupancy_stats (restaurant_id, stats_date, location, pending_count, " +
+            "confirmed_count, seated_count, completed_count, cancelled_count, no_show_count, booked_covers, updated_at) " +
+            "VALUES (:restaurantId, :date, :location, :pending, :confirmed, :seated, :completed, :cancelled, " +
+            ":noShow, :covers, NOW()) AS d " +
+            "ON DUPLICATE KEY UPDATE " +
+            "pending_count = daily_occupancy_stats.pending_count + d.pending_count, " +
+            "confirmed_count = daily_occupancy_stats.confirmed_count + d.confirmed_count, " +
+            "seated_count = daily_occupancy_stats.seated_count + d.seated_count, " +
+            "completed_count = daily_occupancy_stats.completed_count + d.completed_count, " +
+            "cancelled_count = daily_occupancy_stats.cancelled_count + d.cancelled_count, " +
+            "no_show_count = daily_occupancy_stats.no_show_count + d.no_show_count, " +
+            "booked_covers = daily_occupancy_stats.booked_covers + d.booked_covers, " +
+            "updated_at = d.updated_at",
+            nativeQuery = true)
+    int applyDelta(@Param("restaurantId") Long restaurantId,
+                   @Param("date") LocalDate date,
+                   @Param("location") String location,
+                   @Param("pending") int pending,
+                   @Param("confirmed") int confirmed,
+                   @Param("seated") int seated,
+                   @Param("completed") int completed,
+                   @Param("cancelled") int cancelled,
+                   @Param("noShow") int noShow,
+                   @Param("covers") int covers);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_occupancy_stats"))
+    @Query(value = "DELETE FROM daily_occupancy_stats " +
+            "WHERE restaurant_id = :restaurantId AND stats_date BETWEEN :from AND :to",
+            nativeQuery = true)
+    int deleteBetween(@Param("restaurantId") Long restaurantId,
+                      @Param("from") LocalDate from,
+                      @Param("to") LocalDate to);
+
+    /**
+     * Recalcula los contadores de un rango desde las reservas vivas y archivadas
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_occupancy_stats"))
+    @Query(value = "INSERT INTO daily_occupancy_stats (restaurant_id, stats_date, location, pending_count, " +
+            "confirmed_count, seated_count, completed_count, cancelled_count, no_show_count, booked_covers, updated_at) " +
+            "SELECT :restaurantId, r.reservation_date, t.location, " +
+            "SUM(r.status = 'PENDING'), SUM(r.status = 'CONFIRMED'), SUM(r.status = 'SEATED'), " +
+            "SUM(r.status = 'COMPLETED'), SUM(r.status = 'CANCELLED'), SUM(r.status = 'NO_SHOW'), " +
+            "SUM(CASE WHEN r.status IN ('CANCELLED', 'NO_SHOW') THEN 0 ELSE r.guests END), NOW() " +
+            "FROM (" +
+            "  SELECT reservation_date, table_id, status, guests FROM reservations " +
+            "  WHERE restaurant_id = :restaurantId AND reservation_date BETWEEN :from AND :to " +
+            "  UNION ALL " +
+            "  SELECT reservation_date, table_id, status, guests FROM reservations_archive " +
+            "  WHERE restaurant_id = :restaurantId AND reservation_date BETWEEN :from AND :to" +
+            ") r JOIN restaurant_tables t ON t.id = r.table_id " +
+            "GROUP BY r.reservation_date, t.location",
+            nativeQuery = true)
+    int rebuildBetween(@Param("restaurantId") Long restaurantId,
+                       @Param("from") LocalDate from,
+                       @Param("to") LocalDate to);
+}
@@ -0,0 +1,13 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.EmailDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmailDeadLetterRepository extends JpaRepository<EmailDeadLetter, Long> {
+
+    List<EmailDeadLetter> findByReplayedAtIsNullOrderByFailedAt();
+}
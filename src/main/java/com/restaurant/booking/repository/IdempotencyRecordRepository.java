@@ -0,0 +1,28 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByKeyHash(String keyHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash")
+    int deleteByKeyHash(@Param("keyHash") String keyHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.restaurantId = :restaurantId AND r.expiresAt < :now")
+    int deleteExpired(@Param("restaurantId") Long restaurantId, @Param("now") LocalDateTime now);
+}
@@ -1,14 +1,24 @@
 package com.restaurant.booking.repository;
 
+import com.restaurant.booking.dto.ChangeRef;
 import com.restaurant.booking.enums.ReservationStatus;
 import com.restaurant.booking.model.Reservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,20 +30,169 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
     List<Reservation> findByReservationDateAndStatus(LocalDate date, ReservationStatus status);
 
-    @Query("SELECT r FROM Reservation r WHERE r.table.id = :tableId " +
-            "AND r.reservationDate = :date " +
+    /**
+     * Reservas activas que ocupan alguna de las mesas en ese horario, como mesa
+     * principal o juntada
+     */
+    @Query("SELECT DISTINCT r FROM Reservation r LEFT JOIN r.joinedTableIds j " +
+            "WHERE r.reservationDate = :date " +
             "AND r.reservationTime = :time " +
-            "AND r.status IN ('PENDING', 'CONFIRMED', 'SEATED')")
-    List<Reservation> findConflictingReservations(
-            @Param("tableId") Long tableId,
+            "AND r.status IN ('PENDING', 'CONFIRMED', 'SEATED') " +
+            "AND (r.table.id IN :tableIds OR j IN :tableIds)")
+    List<Reservation> findConflicting(
+            @Param("tableIds") Collection<Long> tableIds,
             @Param("date") LocalDate date,
             @Param("time") LocalTime time
     );
 
+    default List<Reservation> findConflictingReservations(Long tableId, LocalDate date, LocalTime time) {
+        return findConflicting(List.of(tableId), date, time);
+    }
+
+    /**
+     * Mesas ocupadas por reservas activas en ese horario (principales y juntadas)
+     */
+    @Query(value = "SELECT r.table_id FROM reservations r " +
+            "WHERE r.restaurant_id = :restaurantId AND r.reservation_date = :date " +
+            "AND r.reservation_time = :time AND r.status IN ('PENDING', 'CONFIRMED', 'SEATED') " +
+            "UNION " +
+            "SELECT rt.table_id FROM reservations r JOIN reservation_tables rt ON rt.reservation_id = r.id " +
+            "WHERE r.restaurant_id = :restaurantId AND r.reservation_date = :date " +
+            "AND r.reservation_time = :time AND r.status IN ('PENDING', 'CONFIRMED', 'SEATED')",
+            nativeQuery = true)
+    List<Long> findBusyTableIds(
+            @Param("restaurantId") Long restaurantId,
+            @Param("date") LocalDate date,
+            @Param("time") LocalTime time
+    );
+
+    /**
+     * Comensales que cuentan para la cocina en un día, por hora de reserva
+     */
+    @Query("SELECT r.reservationTime, SUM(r.guests) FROM Reservation r " +
+            "WHERE r.reservationDate = :date " +
+            "AND r.status NOT IN ('CANCELLED', 'NO_SHOW') " +
+            "GROUP BY r.reservationTime")
+    List<Object[]> sumCoversByTime(@Param("date") LocalDate date);
+
+    /**
+     * Resumen del calendario: número de reservas y comensales por día y estado
+     */
+    @Query("SELECT r.reservationDate, r.status, COUNT(r), SUM(r.guests) FROM Reservation r " +
+            "WHERE r.reservationDate BETWEEN :from AND :to " +
+            "GROUP BY r.reservationDate, r.status")
+    List<Object[]> summarizeByDateAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
     @Query("SELECT r FROM Reservation r WHERE r.reservationDate >= :startDate " +
             "AND r.reservationDate <= :endDate ORDER BY r.reservationDate, r.reservationTime")
     List<Reservation> findReservationsBetweenDates(
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
+
+    @Query("SELECT r.id FROM Reservation r WHERE r.status IN :statuses " +
+            "AND r.reservationDate < :before ORDER BY r.reservationDate, r.id")
+    List<Long> findArchivableIds(
+            @Param("statuses") Collection<ReservationStatus> statuses,
+            @Param("before") LocalDate before,
+            Pageable pageable
+    );
+
+    /**
+     * Reservas de un día en un estado, bloqueadas hasta el fin de la transacción
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user WHERE r.reservationDate = :date AND r.status = :status")
+    List<Reservation> findForBulkUpdate(
+            @Param("date") LocalDate date,
+            @Param("status") ReservationStatus status
+    );
+
+    /**
+     * Reservas de un día en un estado que ocupan alguna de las mesas (como mesa
+     * principal o juntada), bloqueadas hasta el fin de la transacción
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user WHERE r.reservationDate = :date " +
+            "AND r.status = :status AND (r.table.id IN :tableIds " +
+            "OR r.id IN (SELECT jr.id FROM Reservation jr JOIN jr.joinedTableIds j WHERE j IN :tableIds))")
+    List<Reservation> findForBulkUpdateOnTables(
+            @Param("date") LocalDate date,
+            @Param("status") ReservationStatus status,
+            @Param("tableIds") Collection<Long> tableIds
+    );
+
+    // Sincronización incremental: keyset sobre (updated_at, id)
+    @Query("SELECT new com.restaurant.booking.dto.ChangeRef(r.id, r.updatedAt) FROM Reservation r " +
+            "WHERE (r.updatedAt > :after OR (r.updatedAt = :after AND r.id > :afterId)) " +
+            "AND r.updatedAt <= :upTo ORDER BY r.updatedAt, r.id")
+    List<ChangeRef> findChangesAfter(
+            @Param("after") LocalDateTime after,
+            @Param("afterId") Long afterId,
+            @Param("upTo") LocalDateTime upTo,
+            Pageable pageable
+    );
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user WHERE r.user.id IN :userIds " +
+            "AND r.reservationDate >= :from AND r.status IN :statuses " +
+            "ORDER BY r.reservationDate, r.reservationTime")
+    List<Reservation> findUpcomingByUserIds(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("from") LocalDate from,
+            @Param("statuses") Collection<ReservationStatus> statuses
+    );
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user WHERE r.id IN :ids")
+    List<Reservation> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Caducidad automática. SQL nativo por el SKIP LOCKED: varias instancias se
+    // reparten las filas sin esperarse; el restaurante va explícito porque el
+    // filtro de tenant de Hibernate no se aplica a consultas nativas.
+    @Query(value = "SELECT id FROM reservations WHERE restaurant_id = :restaurantId " +
+            "AND status = 'PENDING' AND created_at < :createdBefore " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockStalePending(
+            @Param("restaurantId") Long restaurantId,
+            @Param("createdBefore") LocalDateTime createdBefore,
+            @Param("limit") int limit
+    );
+
+    @Query(value = "SELECT id FROM reservations WHERE restaurant_id = :restaurantId " +
+            "AND status = 'CONFIRMED' AND (reservation_date < :date " +
+            "OR (reservation_date = :date AND reservation_time < :time)) " +
+            "ORDER BY reservation_date, reservation_time LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockMissedConfirmed(
+            @Param("restaurantId") Long restaurantId,
+            @Param("date") LocalDate date,
+            @Param("time") LocalTime time,
+            @Param("limit") int limit
+    );
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Reservation r SET r.status = :status, r.updatedAt = :now, r.version = r.version + 1 " +
+            "WHERE r.id IN :ids")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") ReservationStatus status,
+            @Param("now") LocalDateTime now
+    );
+
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // El DELETE masivo no pasa por las colecciones: las mesas juntadas se borran antes
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reservation_tables"))
+    @Query(value = "DELETE FROM reservation_tables WHERE reservation_id IN (:ids)", nativeQuery = true)
+    int deleteJoinedTablesByReservationIdIn(@Param("ids") Collection<Long> ids);
+
+    // La tabla particionada no tiene claves foráneas: antes de borrar una mesa o
+    // un usuario se comprueba aquí que nada los referencia
+    boolean existsByTableId(Long tableId);
+
+    boolean existsByUserId(Long userId);
+
+    @Query("SELECT COUNT(r) > 0 FROM Reservation r JOIN r.joinedTableIds j WHERE j = :tableId")
+    boolean existsByJoinedTableId(@Param("tableId") Long tableId);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.Restaurant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
+
+    boolean existsByCode(String code);
+
+    List<Restaurant> findByActiveTrueOrderByNameAsc();
+
+    @Query("SELECT r.id FROM Restaurant r WHERE r.active = true")
+    List<Long> findActiveIds();
+}
@@ -1,11 +1,17 @@
 package com.restaurant.booking.repository;
 
+import com.restaurant.booking.dto.ChangeRef;
 import com.restaurant.booking.enums.TableStatus;
 import com.restaurant.booking.model.RestaurantTable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +25,45 @@ public interface RestaurantTableRepository extends JpaRepository<RestaurantTable
 
     @Query("SELECT t FROM RestaurantTable t WHERE t.status = 'AVAILABLE' ORDER BY t.capacity ASC")
     List<RestaurantTable> findAvailableTables();
+
+    // Carga de la sala: mesas con sus vecinas juntables en una sola consulta
+    @Query("SELECT DISTINCT t FROM RestaurantTable t LEFT JOIN FETCH t.joinableWith")
+    List<RestaurantTable> findAllWithJoins();
+
+    // Mesas que se pueden juntar con la indicada
+    @Query("SELECT t FROM RestaurantTable t JOIN t.joinableWith j WHERE j = :tableId")
+    List<RestaurantTable> findJoinableWith(@Param("tableId") Long tableId);
+
+    // Sincronización incremental: keyset sobre (updated_at, id)
+    @Query("SELECT new com.restaurant.booking.dto.ChangeRef(t.id, t.updatedAt) FROM RestaurantTable t " +
+            "WHERE (t.updatedAt > :after OR (t.updatedAt = :after AND t.id > :afterId)) " +
+            "AND t.updatedAt <= :upTo ORDER BY t.updatedAt, t.id")
+    List<ChangeRef> findChangesAfter(
+            @Param("after") LocalDateTime after,
+            @Param("afterId") Long afterId,
+            @Param("upTo") LocalDateTime upTo,
+            Pageable pageable
+    );
+
+    // Sube la versión: un save() de la mesa leída antes del cambio falla por bloqueo
+    // optimista en vez de pisar el estado
+    @Modifying
+    @Query("UPDATE RestaurantTable t SET t.status = :status, t.version = t.version + 1, t.updatedAt = :now " +
+            "WHERE t.id IN :ids")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") TableStatus status,
+            @Param("now") LocalDateTime now
+    );
+
+    // If-Match del estado: solo cambia si la mesa sigue en el estado esperado
+    @Modifying
+    @Query("UPDATE RestaurantTable t SET t.status = :status, t.version = t.version + 1, t.updatedAt = :now " +
+            "WHERE t.id = :id AND t.status = :expected")
+    int compareAndSetStatus(
+            @Param("id") Long id,
+            @Param("expected") TableStatus expected,
+            @Param("status") TableStatus status,
+            @Param("now") LocalDateTime now
+    );
 }
\ No newline at end of file
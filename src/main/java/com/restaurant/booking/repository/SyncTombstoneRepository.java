@@ -0,0 +1,48 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.model.SyncTombstone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+
+    @Query("SELECT t FROM SyncTombstone t WHERE (t.deletedAt > :after OR (t.deletedAt = :after AND t.id > :afterId)) " +
+            "AND t.deletedAt <= :upTo ORDER BY t.deletedAt, t.id")
+    List<SyncTombstone> findAfter(
+            @Param("after") LocalDateTime after,
+            @Param("afterId") Long afterId,
+            @Param("upTo") LocalDateTime upTo,
+            Pageable pageable
+    );
+
+    /**
+     * Marca como borradas las reservas indicadas (nativa, antes de archivarlas)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sync_tombstones"))
+    @Query(value = "INSERT INTO sync_tombstones (restaurant_id, entity_type, entity_id, deleted_at) " +
+            "SELECT r.restaurant_id, 'RESERVATION', r.id, :now FROM reservations r " +
+            "WHERE r.restaurant_id = :restaurantId AND r.id IN (:ids)",
+            nativeQuery = true)
+    int recordReservations(@Param("restaurantId") Long restaurantId,
+                           @Param("ids") Collection<Long> ids,
+                           @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.restaurantId = :restaurantId AND t.deletedAt < :before")
+    int deleteBefore(@Param("restaurantId") Long restaurantId, @Param("before") LocalDateTime before);
+}
@@ -1,14 +1,23 @@
 package com.restaurant.booking.repository;
 
 import com.restaurant.booking.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Caché de consultas: cada petición autenticada busca su usuario por username. La
+    // entrada guarda solo el id (la entidad sale de la caché de User) y Hibernate la
+    // invalida en cuanto se escribe en la tabla users
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
@@ -16,4 +25,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllEmails();
+
+    // Carga del índice de búsqueda: id, username, fullName, email, phone (sin entidades)
+    @Query("SELECT u.id, u.username, u.fullName, u.email, u.phone FROM User u")
+    List<Object[]> findAllForSearch();
 }
\ No newline at end of file
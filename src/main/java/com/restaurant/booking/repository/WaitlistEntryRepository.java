@@ -0,0 +1,29 @@
+package com.restaurant.booking.repository;
+
+import com.restaurant.booking.enums.WaitlistStatus;
+import com.restaurant.booking.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    List<WaitlistEntry> findByUserIdOrderByDesiredDateAsc(Long userId);
+
+    List<WaitlistEntry> findByDesiredDateOrderByCreatedAtAsc(LocalDate date);
+
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.user " +
+            "WHERE w.status = 'WAITING' AND w.desiredDate >= :fromDate")
+    List<WaitlistEntry> findWaitingFrom(@Param("fromDate") LocalDate fromDate);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED' " +
+            "WHERE w.restaurantId = :restaurantId AND w.status = 'WAITING' AND w.desiredDate < :date")
+    int expireBefore(@Param("restaurantId") Long restaurantId, @Param("date") LocalDate date);
+}
@@ -1,10 +1,14 @@
 package com.restaurant.booking.security;
 
+import com.restaurant.booking.service.RestaurantService;
+import com.restaurant.booking.tenant.TenancyProperties;
+import com.restaurant.booking.tenant.TenantContext;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,15 +19,30 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    // Restaurante de la petición original, para sus dispatch asíncronos
+    private static final String TENANT_ATTRIBUTE = JwtRequestFilter.class.getName() + ".TENANT";
+
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final RestaurantService restaurantService;
+    private final TenancyProperties tenancyProperties;
 
     /**
-     * Intercepta cada petición HTTP y valida el token JWT
+     * También en los dispatch asíncronos (SSE, respuestas diferidas): si no, se
+     * ejecutarían con el restaurante por defecto
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    /**
+     * Intercepta cada petición HTTP, fija el restaurante (tenant) y valida el token JWT
      */
     @Override
     protected void doFilterInternal(
@@ -32,11 +51,23 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
 
+        // 0. Dispatch asíncrono: el restaurante que se resolvió en la petición original
+        if (isAsyncDispatch(request)) {
+            TenantContext.setRestaurantId((Long) request.getAttribute(TENANT_ATTRIBUTE));
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                TenantContext.clear();
+            }
+            return;
+        }
+
         // 1. Extraer el header "Authorization"
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
         String jwt = null;
+        Long restaurantId = null;
 
         // 2. Verificar que el header existe y empieza con "Bearer "
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
@@ -44,42 +75,69 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             jwt = authorizationHeader.substring(7);
 
             try {
-                // Extraer el username del token
+                // Extraer el username y el restaurante del token
                 username = jwtUtil.extractUsername(jwt);
+                restaurantId = jwtUtil.extractRestaurantId(jwt);
             } catch (Exception e) {
-                // Token inválido o expirado
-                logger.error("Error al extraer username del token: " + e.getMessage());
+                // Token inválido o expirado (muestreado en logback-spring.xml: puede llegar en ráfagas)
+                log.warn("Error al extraer username del token: {}", e.getMessage());
             }
         }
 
-        // 3. Si hay username y no hay autenticación previa
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            // Cargar el usuario desde la base de datos
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            // Validar el token
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-
-                // Crear objeto de autenticación
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+        // 3. Sin token, y solo en los endpoints públicos, el cliente elige restaurante
+        // con el header X-Restaurant-Id (un token no válido no cae al header)
+        if (authorizationHeader == null && SecurityConfig.PUBLIC_ENDPOINTS.matches(request)) {
+            String restaurantHeader = request.getHeader(tenancyProperties.getHeader());
+            if (restaurantHeader != null && !restaurantHeader.isBlank()) {
+                try {
+                    restaurantId = Long.valueOf(restaurantHeader.trim());
+                } catch (NumberFormatException e) {
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Restaurante no válido");
+                    return;
+                }
+            }
+        }
 
-                // Agregar detalles de la petición
-                authenticationToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
+        if (restaurantId != null && !restaurantService.isActive(restaurantId)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Restaurante no encontrado o inactivo");
+            return;
+        }
 
-                // Establecer la autenticación en el contexto de seguridad
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        // 4. El tenant queda fijado durante toda la petición (consultas, cachés, eventos)
+        TenantContext.setRestaurantId(restaurantId);
+        request.setAttribute(TENANT_ATTRIBUTE, restaurantId);
+        try {
+            // 5. Si hay username y no hay autenticación previa
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+
+                // Cargar el usuario desde la base de datos (solo busca en su restaurante)
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+
+                // Validar el token
+                if (jwtUtil.validateToken(jwt, userDetails)) {
+
+                    // Crear objeto de autenticación
+                    UsernamePasswordAuthenticationToken authenticationToken =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities()
+                            );
+
+                    // Agregar detalles de la petición
+                    authenticationToken.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
+
+                    // Establecer la autenticación en el contexto de seguridad
+                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                }
             }
-        }
 
-        // 4. Continuar con la cadena de filtros
-        filterChain.doFilter(request, response);
+            // 6. Continuar con la cadena de filtros
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
     }
-}
\ No newline at end of file
+}
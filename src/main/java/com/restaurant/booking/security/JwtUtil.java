@@ -17,6 +17,9 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    // Claim con el restaurante (tenant) al que pertenece el usuario
+    public static final String RESTAURANT_CLAIM = "rid";
+
     // Clave secreta para firmar los tokens
     @Value("${jwt.secret}")
     private String secret;
@@ -40,6 +43,13 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * Extrae el restaurante del token (null en tokens emitidos antes del multi-restaurante)
+     */
+    public Long extractRestaurantId(String token) {
+        return extractClaim(token, claims -> claims.get(RESTAURANT_CLAIM, Long.class));
+    }
+
     /**
      * Extrae la fecha de expiración del token
      */
@@ -76,8 +86,9 @@ public class JwtUtil {
     /**
      * Genera un token para un usuario
      */
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserDetails userDetails, Long restaurantId) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(RESTAURANT_CLAIM, restaurantId);
         return createToken(claims, userDetails.getUsername());
     }
 
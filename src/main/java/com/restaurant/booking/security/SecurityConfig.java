@@ -1,8 +1,12 @@
 package com.restaurant.booking.security;
 
+import com.restaurant.booking.idempotency.IdempotencyFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -14,7 +18,11 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,8 +36,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    /**
+     * Endpoints públicos de un restaurante: los únicos en los que JwtRequestFilter
+     * acepta el header X-Restaurant-Id (el resto toman el restaurante del token)
+     */
+    static final RequestMatcher PUBLIC_ENDPOINTS = new OrRequestMatcher(
+            PathPatternRequestMatcher.withDefaults().matcher("/api/auth/**"),                       // Login, registro
+            PathPatternRequestMatcher.withDefaults().matcher("/api/reservations/check-availability") // Verificar disponibilidad
+    );
+
     private final CustomUserDetailsService userDetailsService;
     private final JwtRequestFilter jwtRequestFilter;
+    private final IdempotencyFilter idempotencyFilter;
 
     /**
      * Configuración principal de seguridad
@@ -45,11 +63,14 @@ public class SecurityConfig {
 
                 // Configurar autorización de peticiones
                 .authorizeHttpRequests(auth -> auth
+                        // Los dispatch asíncronos (SSE) y de error ya fueron autorizados en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         // Endpoints públicos (no requieren autenticación)
-                        .requestMatchers(
-                                "/api/auth/**",           // Login, registro
-                                "/api/reservations/check-availability" // Verificar disponibilidad
-                        ).permitAll()
+                        .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+
+                        // Listado público de restaurantes (para elegir local antes de entrar)
+                        .requestMatchers(HttpMethod.GET, "/api/restaurants").permitAll()
 
                         // Todos los demás endpoints requieren autenticación
                         .anyRequest().authenticated()
@@ -64,7 +85,10 @@ public class SecurityConfig {
                 .authenticationProvider(authenticationProvider())
 
                 // Agregar el filtro JWT antes del filtro de autenticación
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+
+                // Idempotency-Key: tras la autorización, con el usuario ya identificado
+                .addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
         return http.build();
     }
@@ -85,6 +109,9 @@ public class SecurityConfig {
         // Headers permitidos
         configuration.setAllowedHeaders(Arrays.asList("*"));
 
+        // Headers de respuesta visibles para el frontend
+        configuration.setExposedHeaders(List.of(IdempotencyFilter.REPLAYED_HEADER, HttpHeaders.ETAG));
+
         // Permitir credenciales (cookies, headers de autorización)
         configuration.setAllowCredentials(true);
 
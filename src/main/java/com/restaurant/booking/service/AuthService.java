@@ -6,7 +6,9 @@ import com.restaurant.booking.dto.auth.RegisterRequest;
 import com.restaurant.booking.model.User;
 import com.restaurant.booking.repository.UserRepository;
 import com.restaurant.booking.security.JwtUtil;
+import com.restaurant.booking.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,6 +18,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -27,18 +30,20 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final UserDetailsService userDetailsService;
     private final EmailService emailService;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final GuestSearchIndex guestIndex;
 
     /**
      * Registra un nuevo usuario en el sistema
      */
     public User register(RegisterRequest request) {
         // 1. Validar que el username no exista
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (!isUsernameAvailable(request.getUsername())) {
             throw new RuntimeException("El username ya está en uso: " + request.getUsername());
         }
 
         // 2. Validar que el email no exista
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (!isEmailAvailable(request.getEmail())) {
             throw new RuntimeException("El email ya está registrado: " + request.getEmail());
         }
 
@@ -53,14 +58,18 @@ public class AuthService {
         user.setEnabled(true);
         user.setAccountNonLocked(true);
 
+        // Se marca en el filtro tras el commit
+        availabilityIndex.addUser(user.getUsername(), user.getEmail());
+
         // Guardar en la base de datos
         User savedUser =  userRepository.save(user);
+        guestIndex.upsert(savedUser);
 
         //NUEVO: Enviar email de bienvenida
         try {
             emailService.sendWelcomeEmail(savedUser);
         } catch (Exception e) {
-            System.err.println("Error al enviar email de bienvenida: " + e.getMessage());
+            log.warn("Error al enviar email de bienvenida: {}", e.getMessage());
             // No lanzamos error, solo registramos en log
             // El registro fue exitoso aunque falle el email
         }
@@ -88,7 +97,7 @@ public class AuthService {
         final UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
 
         // 3. Generar el token JWT
-        final String jwt = jwtUtil.generateToken(userDetails);
+        final String jwt = jwtUtil.generateToken(userDetails, TenantContext.getRestaurantId());
 
         // 4. Obtener información completa del usuario
         User user = userRepository.findByUsername(request.getUsername())
@@ -102,21 +111,32 @@ public class AuthService {
                 user.getUsername(),
                 user.getEmail(),
                 user.getFullName(),
-                user.getRole()
+                user.getRole(),
+                user.getRestaurantId()
         );
     }
 
     /**
      * Valida si un username está disponible
+     * Si el filtro en memoria lo descarta, no se consulta la base de datos
      */
+    @Transactional(readOnly = true)
     public boolean isUsernameAvailable(String username) {
+        if (!availabilityIndex.mightContainUsername(username)) {
+            return true;
+        }
         return !userRepository.existsByUsername(username);
     }
 
     /**
      * Valída si un email está disponible
+     * Si el filtro en memoria lo descarta, no se consulta la base de datos
      */
+    @Transactional(readOnly = true)
     public boolean isEmailAvailable(String email) {
+        if (!availabilityIndex.mightContainEmail(email)) {
+            return true;
+        }
         return !userRepository.existsByEmail(email);
     }
 }
\ No newline at end of file
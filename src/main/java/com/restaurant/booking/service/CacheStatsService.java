@@ -0,0 +1,52 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.CacheRegionStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estadísticas de la caché de segundo nivel de Hibernate (entidades, colecciones
+ * y consultas), por región
+ */
+@Service
+public class CacheStatsService {
+
+    private final Statistics statistics;
+
+    public CacheStatsService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<CacheRegionStatsDTO> getRegionStats() {
+        List<CacheRegionStatsDTO> regions = new ArrayList<>();
+        String[] names = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(names);
+        for (String name : names) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+            if (region == null) {
+                // Región de consultas: no tiene estadísticas de entidades
+                region = statistics.getQueryRegionStatistics(name);
+            }
+            if (region != null) {
+                regions.add(toDTO(name, region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        }
+        regions.add(toDTO("total", statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount() + statistics.getQueryCacheMissCount(),
+                statistics.getSecondLevelCachePutCount() + statistics.getQueryCachePutCount()));
+        return regions;
+    }
+
+    private static CacheRegionStatsDTO toDTO(String region, long hits, long misses, long puts) {
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0.0 : Math.round(hits * 1000.0 / lookups) / 1000.0;
+        return new CacheRegionStatsDTO(region, hits, misses, puts, hitRate);
+    }
+}
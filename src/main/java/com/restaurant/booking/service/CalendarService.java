@@ -0,0 +1,166 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.CalendarDayDTO;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.event.FloorEvent;
+import com.restaurant.booking.repository.ArchivedReservationRepository;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumen mensual del calendario: reservas, comensales y reparto por estado
+ * de cada día.
+ *
+ * Se calcula con una consulta agregada (GROUP BY día y estado) que sale del
+ * índice (restaurant_id, reservation_date, status, guests), más la misma sobre
+ * el archivo para los días antiguos. Los días pasados apenas cambian, así que
+ * se guardan en memoria y solo se recalculan hoy y los días futuros; cualquier
+ * reserva que cambie en un día pasado lo invalida tras el commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarService {
+
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
+
+    // Restaurante → días pasados ya calculados
+    private final Map<Long, PastDays> pastDays = new ConcurrentHashMap<>();
+
+    /**
+     * Resumen de cada día del mes (también los días sin reservas)
+     */
+    @Transactional(readOnly = true)
+    public List<CalendarDayDTO> getMonth(YearMonth month) {
+        LocalDate today = LocalDate.now();
+        PastDays cache = pastDays.computeIfAbsent(TenantContext.getRestaurantId(), id -> new PastDays());
+        long generation = cache.generation.get();
+
+        Map<LocalDate, CalendarDayDTO> days = new LinkedHashMap<>();
+        LocalDate from = null;
+        LocalDate to = null;
+        for (LocalDate date = month.atDay(1); !date.isAfter(month.atEndOfMonth()); date = date.plusDays(1)) {
+            CalendarDayDTO cached = date.isBefore(today) ? cache.days.get(date) : null;
+            days.put(date, cached);
+            if (cached == null) {
+                from = from == null ? date : from;
+                to = date;
+            }
+        }
+
+        // Una sola consulta por tabla para el tramo de días que faltan
+        if (from != null) {
+            Map<LocalDate, CalendarDayDTO> computed = new LinkedHashMap<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (days.get(date) == null) {
+                    computed.put(date, new CalendarDayDTO(date, 0, 0, new EnumMap<>(ReservationStatus.class)));
+                }
+            }
+            addRows(computed, reservationRepository.summarizeByDateAndStatus(from, to));
+            if (from.isBefore(today)) {
+                addRows(computed, archivedReservationRepository.summarizeByDateAndStatus(from, to));
+            }
+            computed.forEach((date, day) -> {
+                day.setByStatus(Collections.unmodifiableMap(day.getByStatus()));
+                days.put(date, day);
+                if (date.isBefore(today)) {
+                    cache.days.put(date, day);
+                }
+            });
+            // Si se invalidó algo mientras se calculaba, lo guardado puede ser anterior al cambio
+            if (cache.generation.get() != generation) {
+                computed.keySet().forEach(cache.days::remove);
+            }
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    /**
+     * Invalida un día tras el commit (para cambios que no publican evento de sala)
+     */
+    public void evictAfterCommit(LocalDate date) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        afterCommit(() -> evict(restaurantId, date));
+    }
+
+    /**
+     * Altas, cambios de estado y cancelaciones de reservas (tras el commit)
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFloorEvent(FloorEvent event) {
+        if (event.getPayload() instanceof ReservationDTO reservation) {
+            evict(event.getRestaurantId(), reservation.getReservationDate());
+        } else if (event.getPayload() instanceof List<?> payload) {
+            for (Object item : payload) {
+                if (item instanceof ReservationDTO reservation) {
+                    evict(event.getRestaurantId(), reservation.getReservationDate());
+                }
+            }
+        }
+    }
+
+    private void evict(Long restaurantId, LocalDate date) {
+        PastDays cache = pastDays.get(restaurantId);
+        if (cache != null) {
+            cache.generation.incrementAndGet();
+            cache.days.remove(date);
+        }
+    }
+
+    private static void addRows(Map<LocalDate, CalendarDayDTO> days, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            CalendarDayDTO day = days.get((LocalDate) row[0]);
+            if (day == null) {
+                continue;
+            }
+            ReservationStatus status = (ReservationStatus) row[1];
+            long count = ((Number) row[2]).longValue();
+            day.setReservations(day.getReservations() + count);
+            day.getByStatus().merge(status, count, Long::sum);
+            if (status != ReservationStatus.CANCELLED && status != ReservationStatus.NO_SHOW) {
+                day.setCovers(day.getCovers() + ((Number) row[3]).longValue());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Días pasados de un restaurante. La generación sube con cada invalidación,
+     * para no dejar guardado un cálculo que empezó antes de un cambio.
+     */
+    private static final class PastDays {
+        final Map<LocalDate, CalendarDayDTO> days = new ConcurrentHashMap<>();
+        final AtomicLong generation = new AtomicLong();
+    }
+}
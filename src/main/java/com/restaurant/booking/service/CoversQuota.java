@@ -0,0 +1,305 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.exception.SlotQuotaExceededException;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Capacidad de cocina: cuántos comensales pueden empezar en cada tramo
+ * (por defecto de 15 minutos), aunque queden mesas libres.
+ *
+ * Cada (restaurante, día) tiene un contador atómico por tramo. Una reserva
+ * nueva suma sus comensales con compare-and-set y, si se pasa del límite, se
+ * rechaza sin consultar la base de datos; si su transacción se deshace, los
+ * devuelve. Las cancelaciones y los no-shows restan tras el commit.
+ *
+ * El día se carga de la base de datos (una consulta agregada) la primera vez
+ * que se usa, y cada app.covers-quota.reconcile-interval-ms se vuelve a
+ * cuadrar con los totales guardados más lo que aún está en curso, para que
+ * cualquier desvío (otra instancia, cambios directos en la BD) no se acumule.
+ * El cuadre no usa bloqueos: si el día cambió mientras se leían los totales,
+ * se deja para la siguiente vuelta.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(CoversQuotaProperties.class)
+public class CoversQuota {
+
+    private final CoversQuotaProperties properties;
+    private final ReservationRepository reservationRepository;
+    private final RestaurantService restaurantService;
+
+    private final int slotsPerDay;
+    // Límite de cada tramo (0: sin límite)
+    private final int[] limits;
+
+    private final Map<DayKey, DayCovers> days = new ConcurrentHashMap<>();
+
+    public CoversQuota(CoversQuotaProperties properties,
+                       ReservationRepository reservationRepository,
+                       RestaurantService restaurantService) {
+        this.properties = properties;
+        this.reservationRepository = reservationRepository;
+        this.restaurantService = restaurantService;
+
+        int slotMinutes = Math.max(1, properties.getSlotMinutes());
+        this.slotsPerDay = (24 * 60 + slotMinutes - 1) / slotMinutes;
+        this.limits = new int[slotsPerDay];
+        Arrays.fill(limits, Math.max(0, properties.getMaxCovers()));
+        properties.getSlots().forEach((start, max) -> limits[slotOf(LocalTime.parse(start))] = Math.max(0, max));
+    }
+
+    private record DayKey(Long restaurantId, LocalDate date) {
+    }
+
+    // ==================== RESERVAS ====================
+
+    /**
+     * Reserva plazas de cocina para una reserva nueva; si la transacción se
+     * deshace se devuelven
+     * @throws SlotQuotaExceededException si el tramo no tiene sitio (con el tramo
+     *         más cercano que sí lo tiene, si lo hay)
+     */
+    public void acquire(LocalDate date, LocalTime time, int guests) {
+        int slot = slotOf(time);
+        int limit = limits[slot];
+        if (limit <= 0) {
+            return;
+        }
+        DayCovers day = loadedDay(TenantContext.getRestaurantId(), date);
+        if (!day.tryAdd(slot, guests, limit)) {
+            LocalTime suggested = suggest(day, date, slot, guests);
+            throw new SlotQuotaExceededException("La cocina no admite más comensales a las " + time
+                    + (suggested != null ? ". Hora disponible más cercana: " + suggested : ""), suggested);
+        }
+
+        afterCompletion(committed -> {
+            if (!committed) {
+                day.counts.addAndGet(slot, -guests);
+            }
+            day.inFlight.addAndGet(slot, -guests);
+            day.changes.incrementAndGet();
+        });
+    }
+
+    /**
+     * Cambio de estado: una reserva que se cancela o no se presenta libera sus
+     * plazas, y una que vuelve de esos estados las ocupa de nuevo (sin límite:
+     * es una decisión del personal). Se aplica tras el commit.
+     */
+    public void recordStatusChange(LocalDate date, LocalTime time, int guests,
+                                   ReservationStatus from, ReservationStatus to) {
+        boolean before = counts(from);
+        boolean after = counts(to);
+        if (before != after) {
+            adjustAfterCommit(date, time, after ? guests : -guests);
+        }
+    }
+
+    /**
+     * Reserva eliminada
+     */
+    public void recordDeleted(LocalDate date, LocalTime time, int guests, ReservationStatus status) {
+        if (counts(status)) {
+            adjustAfterCommit(date, time, -guests);
+        }
+    }
+
+    // ==================== CUADRE ====================
+
+    /**
+     * Descarta los días pasados y vuelve a cuadrar los que hay en memoria con
+     * la base de datos
+     */
+    @Scheduled(fixedDelayString = "${app.covers-quota.reconcile-interval-ms:600000}",
+            initialDelayString = "${app.covers-quota.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+        if (days.isEmpty()) {
+            return;
+        }
+        restaurantService.forEachRestaurant(restaurantId -> days.forEach((key, day) -> {
+            if (key.restaurantId().equals(restaurantId) && day.loaded && !day.reload(key.date(), false)) {
+                log.debug("Capacidad de cocina del {}: el día cambió durante el cuadre, queda para la siguiente vuelta",
+                        key.date());
+            }
+        }));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void adjustAfterCommit(LocalDate date, LocalTime time, int delta) {
+        int slot = slotOf(time);
+        if (limits[slot] <= 0) {
+            return;
+        }
+        // Si el día aún no está cargado, la carga esperará a que esto termine
+        DayCovers day = day(TenantContext.getRestaurantId(), date);
+        day.pendingAdjustments.incrementAndGet();
+        afterCompletion(committed -> {
+            if (committed) {
+                day.counts.addAndGet(slot, delta);
+            }
+            day.changes.incrementAndGet();
+            day.pendingAdjustments.decrementAndGet();
+        });
+    }
+
+    private DayCovers day(Long restaurantId, LocalDate date) {
+        return days.computeIfAbsent(new DayKey(restaurantId, date), k -> new DayCovers());
+    }
+
+    private DayCovers loadedDay(Long restaurantId, LocalDate date) {
+        DayCovers day = day(restaurantId, date);
+        if (!day.loaded) {
+            day.loadLock.lock();
+            try {
+                if (!day.loaded) {
+                    // Si algo cambia durante la carga se repite; a la tercera se acepta
+                    // (un cambio de estado en curso podría restarse dos veces hasta el siguiente cuadre)
+                    for (int attempt = 1; !day.reload(date, attempt == 3); attempt++) {
+                        log.debug("Capacidad de cocina del {}: el día cambió durante la carga, se repite", date);
+                    }
+                    day.loaded = true;
+                }
+            } finally {
+                day.loadLock.unlock();
+            }
+        }
+        return day;
+    }
+
+    /**
+     * Tramo más cercano (antes o después) con sitio para el grupo; hoy no se
+     * sugieren tramos ya pasados
+     */
+    private LocalTime suggest(DayCovers day, LocalDate date, int slot, int guests) {
+        int firstAllowed = date.equals(LocalDate.now()) ? slotOf(LocalTime.now()) + 1 : 0;
+        for (int distance = 1; distance <= properties.getSuggestionRange(); distance++) {
+            for (int candidate : new int[]{slot - distance, slot + distance}) {
+                if (candidate < firstAllowed || candidate >= slotsPerDay) {
+                    continue;
+                }
+                int limit = limits[candidate];
+                if (limit <= 0 || day.counts.get(candidate) + guests <= limit) {
+                    return LocalTime.MIDNIGHT.plusMinutes((long) candidate * properties.getSlotMinutes());
+                }
+            }
+        }
+        return null;
+    }
+
+    private int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / Math.max(1, properties.getSlotMinutes());
+    }
+
+    private static boolean counts(ReservationStatus status) {
+        return status != ReservationStatus.CANCELLED && status != ReservationStatus.NO_SHOW;
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    /**
+     * Comensales de un día por tramo: los ya guardados más los de reservas en
+     * curso (inFlight), que aún no se ven en la base de datos
+     */
+    private final class DayCovers {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(slotsPerDay);
+        final AtomicIntegerArray inFlight = new AtomicIntegerArray(slotsPerDay);
+        // Sube con cada reserva, commit o rollback: el cuadre sabe si algo pasó mientras leía
+        final AtomicLong changes = new AtomicLong();
+        // Cambios de estado con commit pendiente (aún no aplicados al contador)
+        final AtomicInteger pendingAdjustments = new AtomicInteger();
+        // ReentrantLock y no synchronized: la carga hace JDBC y no debe fijar hilos virtuales a su portador
+        final ReentrantLock loadLock = new ReentrantLock();
+        volatile boolean loaded = false;
+
+        /**
+         * Suma los comensales si caben. Se anuncian en inFlight y changes antes
+         * de tocar el contador, para que un cuadre concurrente los vea o se aparte.
+         */
+        boolean tryAdd(int slot, int guests, int limit) {
+            inFlight.addAndGet(slot, guests);
+            changes.incrementAndGet();
+            while (true) {
+                int current = counts.get(slot);
+                if (current + guests > limit) {
+                    inFlight.addAndGet(slot, -guests);
+                    changes.incrementAndGet();
+                    return false;
+                }
+                if (counts.compareAndSet(slot, current, current + guests)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Pone cada tramo a totales guardados + en curso.
+         * @param force aplicar aunque el día cambie mientras se lee
+         * @return false si el día cambió mientras se leía (no se toca nada)
+         */
+        boolean reload(LocalDate date, boolean force) {
+            long stamp = changes.get();
+            if (!force && pendingAdjustments.get() > 0) {
+                return false;
+            }
+            int[] expected = new int[slotsPerDay];
+            for (Object[] row : reservationRepository.sumCoversByTime(date)) {
+                expected[slotOf((LocalTime) row[0])] += ((Number) row[1]).intValue();
+            }
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                expected[slot] += inFlight.get(slot);
+            }
+
+            int drift = 0;
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                if (force) {
+                    drift += Math.abs(counts.getAndSet(slot, expected[slot]) - expected[slot]);
+                    continue;
+                }
+                int current = counts.get(slot);
+                if (changes.get() != stamp || pendingAdjustments.get() > 0
+                        || !counts.compareAndSet(slot, current, expected[slot])) {
+                    return false;
+                }
+                drift += Math.abs(current - expected[slot]);
+            }
+            if (loaded && drift > 0) {
+                log.debug("Capacidad de cocina del {} cuadrada con la base de datos ({} comensales de desvío)",
+                        date, drift);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.restaurant.booking.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Capacidad de cocina: comensales que pueden empezar en cada tramo (app.covers-quota.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "app.covers-quota")
+public class CoversQuotaProperties {
+
+    // Duración de cada tramo
+    private int slotMinutes = 15;
+
+    // Comensales por tramo para los tramos sin límite propio (0: sin límite)
+    private int maxCovers = 0;
+
+    // Límite propio por hora de inicio del tramo (app.covers-quota.slots[21:00]=30)
+    private Map<String, Integer> slots = new HashMap<>();
+
+    // Tramos a cada lado que se miran para sugerir otra hora
+    private int suggestionRange = 8;
+
+    // Cada cuánto se cuadran los contadores con los totales de la base de datos
+    private long reconcileIntervalMs = 600000;
+}
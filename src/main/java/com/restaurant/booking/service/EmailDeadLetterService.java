@@ -0,0 +1,99 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.EmailDeadLetterDTO;
+import com.restaurant.booking.mail.MailDispatcher;
+import com.restaurant.booking.model.EmailDeadLetter;
+import com.restaurant.booking.repository.EmailDeadLetterRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Emails que no se pudieron enviar (los guarda el MailDispatcher): un ADMIN
+ * puede reenviarlos cuando el problema esté resuelto
+ */
+@Service
+@Transactional
+public class EmailDeadLetterService {
+
+    private final EmailDeadLetterRepository deadLetterRepository;
+    private final MailDispatcher mailDispatcher;
+
+    public EmailDeadLetterService(EmailDeadLetterRepository deadLetterRepository, MailDispatcher mailDispatcher) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.mailDispatcher = mailDispatcher;
+    }
+
+    @Transactional(readOnly = true)
+    public List<EmailDeadLetterDTO> getPending() {
+        return deadLetterRepository.findByReplayedAtIsNullOrderByFailedAt().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Vuelve a encolar un email fallido (con los intentos a cero)
+     */
+    public EmailDeadLetterDTO replay(Long id) {
+        EmailDeadLetter deadLetter = deadLetterRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Email fallido no encontrado con ID: " + id));
+        if (deadLetter.getReplayedAt() != null) {
+            throw new RuntimeException("Este email ya se ha reenviado");
+        }
+        resubmit(deadLetter);
+        return convertToDTO(deadLetter);
+    }
+
+    /**
+     * Vuelve a encolar todos los emails fallidos pendientes del restaurante
+     */
+    public int replayAll() {
+        List<EmailDeadLetter> pending = deadLetterRepository.findByReplayedAtIsNullOrderByFailedAt();
+        pending.forEach(this::resubmit);
+        return pending.size();
+    }
+
+    private void resubmit(EmailDeadLetter deadLetter) {
+        MimeMessage message;
+        try {
+            message = mailDispatcher.createMimeMessage(new ByteArrayInputStream(deadLetter.getRawMessage()));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("No se pudo leer el email fallido con ID: " + deadLetter.getId());
+        }
+        deadLetter.setReplayedAt(LocalDateTime.now());
+        // Si vuelve a fallar se guarda como un fallido nuevo
+        afterCommit(() -> mailDispatcher.submit(message));
+    }
+
+    private EmailDeadLetterDTO convertToDTO(EmailDeadLetter deadLetter) {
+        return new EmailDeadLetterDTO(
+                deadLetter.getId(),
+                deadLetter.getRecipients(),
+                deadLetter.getSubject(),
+                deadLetter.getAttempts(),
+                deadLetter.getLastError(),
+                deadLetter.getFailedAt(),
+                deadLetter.getReplayedAt()
+        );
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
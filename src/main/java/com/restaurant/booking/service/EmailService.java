@@ -1,13 +1,14 @@
 package com.restaurant.booking.service;
 
+import com.restaurant.booking.mail.MailDispatcher;
+import com.restaurant.booking.mail.NotificationCoalescer;
 import com.restaurant.booking.model.Reservation;
 import com.restaurant.booking.model.User;
+import com.restaurant.booking.tenant.TenantContext;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -16,11 +17,22 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final MailDispatcher mailDispatcher;
+    private final NotificationCoalescer coalescer;
+
+    /**
+     * Los emails se encolan en el MailDispatcher, que los envía por lotes con
+     * conexiones SMTP reutilizadas. Los de una misma reserva pasan antes por la
+     * ventana del NotificationCoalescer: solo sale el del último estado.
+     */
+    public EmailService(MailDispatcher mailDispatcher, NotificationCoalescer coalescer) {
+        this.mailDispatcher = mailDispatcher;
+        this.coalescer = coalescer;
+    }
 
     @Value("${app.mail.from}")
     private String fromEmail;
@@ -34,16 +46,18 @@ public class EmailService {
     @Async
     public void sendSimpleEmail(String to, String subject, String text) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-
-            mailSender.send(message);
-            System.out.println("Email enviado a: " + to);
+            MimeMessage message = mailDispatcher.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+
+            helper.setFrom(fromEmail);
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(text);
+
+            mailDispatcher.submit(message);
+            log.debug("Email encolado para: {}", to);
         } catch (Exception e) {
-            System.err.println("Error al enviar email: " + e.getMessage());
+            log.error("Error al preparar email a {}: {}", to, e.getMessage());
         }
     }
 
@@ -53,7 +67,7 @@ public class EmailService {
     @Async
     public void sendHtmlEmail(String to, String subject, String htmlContent) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessage message = mailDispatcher.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
             helper.setFrom(fromEmail, fromName);
@@ -61,12 +75,12 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            System.out.println("Email HTML enviado a: " + to);
+            mailDispatcher.submit(message);
+            log.debug("Email HTML encolado para: {}", to);
         } catch (MessagingException e) {
-            System.err.println("Error al enviar email HTML: " + e.getMessage());
+            log.error("Error al preparar email HTML a {}: {}", to, e.getMessage());
         } catch (Exception e) {
-            System.err.println("Error inesperado al enviar email: " + e.getMessage());
+            log.error("Error inesperado al preparar email a {}", to, e);
         }
     }
 
@@ -91,7 +105,7 @@ public class EmailService {
 
         String htmlContent = buildReservationCreatedEmailHtml(user, reservation, tableNumber);
 
-        sendHtmlEmail(user.getEmail(), subject, htmlContent);
+        sendReservationEmail(reservation, user.getEmail(), subject, htmlContent);
     }
 
     /**
@@ -103,7 +117,7 @@ public class EmailService {
 
         String htmlContent = buildReservationConfirmedEmailHtml(user, reservation, tableNumber);
 
-        sendHtmlEmail(user.getEmail(), subject, htmlContent);
+        sendReservationEmail(reservation, user.getEmail(), subject, htmlContent);
     }
 
     /**
@@ -115,7 +129,7 @@ public class EmailService {
 
         String htmlContent = buildReservationCancelledEmailHtml(user, reservation, tableNumber);
 
-        sendHtmlEmail(user.getEmail(), subject, htmlContent);
+        sendReservationEmail(reservation, user.getEmail(), subject, htmlContent);
     }
 
     /**
@@ -130,6 +144,22 @@ public class EmailService {
         sendHtmlEmail(user.getEmail(), subject, htmlContent);
     }
 
+    /**
+     * Email del estado de una reserva: si en la ventana llega otro de la misma
+     * reserva, solo se envía el último. Se llama en un hilo @Async, ya sin la
+     * transacción: ReservationService lo pide tras el commit para que una
+     * reserva deshecha no entre en la ventana.
+     */
+    private void sendReservationEmail(Reservation reservation, String to, String subject, String htmlContent) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        ReservationKey key = reservation.getId() != null ? new ReservationKey(restaurantId, reservation.getId()) : null;
+        // Sale desde el ejecutor, fuera de esta tarea: el restaurante va explícito (para los fallidos)
+        coalescer.submit(key, () -> TenantContext.runAs(restaurantId, () -> sendHtmlEmail(to, subject, htmlContent)));
+    }
+
+    private record ReservationKey(Long restaurantId, Long reservationId) {
+    }
+
     // ========== MÉTODOS PRIVADOS PARA CONSTRUIR HTML ==========
 
     private String buildWelcomeEmailHtml(User user) {
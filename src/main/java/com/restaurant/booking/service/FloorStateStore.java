@@ -0,0 +1,429 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.FloorEventType;
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.enums.TableStatus;
+import com.restaurant.booking.event.FloorEvent;
+import com.restaurant.booking.model.RestaurantTable;
+import com.restaurant.booking.repository.RestaurantTableRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Estado de sala en memoria: id de mesa → estado, capacidad y ubicación.
+ *
+ * Es una copia del estado guardado en la BD, que es la que manda. Las
+ * transiciones se aplican con compare-and-set sobre referencias inmutables
+ * (sin locks) y se persisten en segundo plano: la cola de escritura guarda solo
+ * el último estado de cada mesa, de modo que varias transiciones seguidas
+ * cuestan un único UPDATE. Los cambios condicionales (If-Match) los comprueba
+ * la BD con un UPDATE condicional.
+ *
+ * Cada UPDATE de estado sube la versión de la mesa. La versión en memoria ya
+ * cuenta la escritura pendiente, así que es la que tendrá la BD tras el flush
+ * y vale para el If-Match aunque el cambio aún no se haya escrito.
+ *
+ * Cada app.floor.reload-interval-ms la sala se vuelve a leer de la BD para
+ * recoger lo que cambiaron otras instancias o se cambió directamente en la BD.
+ * Cada restaurante tiene su propia sala, cargada la primera vez que se usa.
+ */
+@Slf4j
+@Component
+public class FloorStateStore {
+
+    private final RestaurantTableRepository tableRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Restaurante → sala (los ids de mesa solo son únicos dentro de su base de datos)
+    private final Map<Long, Floor> floors = new ConcurrentHashMap<>();
+
+    public FloorStateStore(RestaurantTableRepository tableRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.tableRepository = tableRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Todas las mesas, ordenadas por id
+     */
+    public List<TableDTO> findAll() {
+        return query(state -> true, Comparator.comparing(TableState::id));
+    }
+
+    /**
+     * Mesas disponibles ordenadas por capacidad (mismo orden que findAvailableTables)
+     */
+    public List<TableDTO> findAvailable() {
+        return query(state -> state.status() == TableStatus.AVAILABLE,
+                Comparator.comparing(TableState::capacity));
+    }
+
+    /**
+     * Mesas disponibles con capacidad suficiente
+     */
+    public List<TableDTO> findAvailable(int minCapacity) {
+        return query(state -> state.status() == TableStatus.AVAILABLE && state.capacity() >= minCapacity,
+                Comparator.comparing(TableState::capacity));
+    }
+
+    public Optional<TableDTO> find(Long id) {
+        AtomicReference<TableState> ref = floor().tables.get(id);
+        return ref == null ? Optional.empty() : Optional.of(ref.get().toDTO());
+    }
+
+    public TableDTO get(Long id) {
+        return find(id).orElseThrow(() -> new RuntimeException("Mesa no encontrada con ID: " + id));
+    }
+
+    // ==================== TRANSICIONES ====================
+
+    /**
+     * Cambia el estado de una mesa. Si hay una transacción en curso, el cambio
+     * se aplica en memoria al hacer commit (un rollback no deja rastro).
+     * @return la mesa con el nuevo estado
+     */
+    public TableDTO transition(Long id, TableStatus status) {
+        Floor floor = floor();
+        AtomicReference<TableState> ref = floor.tables.get(id);
+        if (ref == null) {
+            throw new RuntimeException("Mesa no encontrada con ID: " + id);
+        }
+        TableState current = ref.get();
+        if (current.status() == status) {
+            return current.toDTO();
+        }
+        TableDTO changed = next(floor, current, status).toDTO();
+        eventPublisher.publishEvent(FloorEvent.of(FloorEventType.TABLE_STATUS_CHANGED, changed));
+        afterCommit(() -> apply(floor, id, status));
+        return changed;
+    }
+
+    /**
+     * Cambia el estado de varias mesas con un único evento de sala. La
+     * persistencia va por la cola de escritura, que agrupa todas las mesas
+     * en un UPDATE por estado.
+     * @param expected si no es null, solo cambian las mesas que están en ese estado
+     * @return las mesas que cambiaron, ya con el nuevo estado
+     */
+    public List<TableDTO> transitionAll(Collection<Long> ids, TableStatus expected, TableStatus status) {
+        Floor floor = floor();
+        List<TableDTO> changed = new ArrayList<>();
+        for (Long id : ids) {
+            AtomicReference<TableState> ref = floor.tables.get(id);
+            if (ref != null && ref.get().status() != status
+                    && (expected == null || ref.get().status() == expected)) {
+                changed.add(next(floor, ref.get(), status).toDTO());
+            }
+        }
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(FloorEvent.of(FloorEventType.TABLES_STATUS_CHANGED, changed));
+            afterCommit(() -> changed.forEach(table -> apply(floor, table.getId(), status)));
+        }
+        return changed;
+    }
+
+    /**
+     * Cambia el estado solo si sigue siendo el esperado. Lo comprueba la BD con
+     * un UPDATE condicional (vale aunque el cambio lo hiciera otra instancia);
+     * la sala en memoria se actualiza tras el commit. Si la mesa tiene una
+     * escritura pendiente, el último cambio es de esta instancia y aún no está
+     * en la BD: entonces se compara con la memoria y se escribe sin condición.
+     * @return la mesa con el nuevo estado y versión, vacío si ya no estaba en el estado esperado
+     */
+    public Optional<TableDTO> compareAndSet(Long id, TableStatus expected, TableStatus status) {
+        Floor floor = floor();
+        AtomicReference<TableState> ref = floor.tables.get(id);
+        if (ref == null) {
+            return Optional.empty();
+        }
+        boolean pending = floor.pendingWrites.containsKey(id);
+        if (pending && ref.get().status() != expected) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(tx -> pending
+                ? tableRepository.updateStatus(List.of(id), status, now)
+                : tableRepository.compareAndSetStatus(id, expected, status, now));
+        if (updated == null || updated == 0) {
+            return Optional.empty();
+        }
+        // Este UPDATE sube la versión una vez; si había escritura pendiente, la memoria ya la contaba
+        TableDTO changed = (pending ? ref.get().withStatus(status) : ref.get().bumped(status)).toDTO();
+        if (expected != status) {
+            eventPublisher.publishEvent(FloorEvent.of(FloorEventType.TABLE_STATUS_CHANGED, changed));
+        }
+        afterCommit(() -> {
+            ref.updateAndGet(current -> pending ? current.withStatus(status) : current.bumped(status));
+            floor.pendingWrites.remove(id);
+        });
+        return Optional.of(changed);
+    }
+
+    /**
+     * Refleja una mesa creada o editada a través de la entidad (tras el commit).
+     * La entidad ya llevó su estado a la BD, así que se descarta la escritura pendiente.
+     */
+    public void upsert(RestaurantTable table) {
+        Floor floor = floor();
+        TableState state = TableState.from(table);
+        afterCommit(() -> {
+            floor.tables.computeIfAbsent(state.id(), id -> new AtomicReference<>(state)).set(state);
+            floor.pendingWrites.remove(state.id());
+        });
+    }
+
+    /**
+     * Quita una mesa eliminada (tras el commit)
+     */
+    public void remove(Long id) {
+        Floor floor = floor();
+        afterCommit(() -> {
+            floor.tables.remove(id);
+            floor.pendingWrites.remove(id);
+        });
+    }
+
+    private void apply(Floor floor, Long id, TableStatus status) {
+        AtomicReference<TableState> ref = floor.tables.get(id);
+        if (ref == null) {
+            return;
+        }
+        TableState current;
+        do {
+            current = ref.get();
+            if (current.status() == status) {
+                return;
+            }
+        } while (!ref.compareAndSet(current, next(floor, current, status)));
+        floor.pendingWrites.put(id, status);
+    }
+
+    /**
+     * Estado tras una transición: la primera con escritura pendiente sube la
+     * versión; las siguientes van en el mismo UPDATE y no la vuelven a subir
+     */
+    private static TableState next(Floor floor, TableState current, TableStatus status) {
+        return floor.pendingWrites.containsKey(current.id()) ? current.withStatus(status) : current.bumped(status);
+    }
+
+    // ==================== ESCRITURA DIFERIDA ====================
+
+    /**
+     * Persiste los cambios pendientes con un UPDATE por restaurante y estado destino
+     */
+    @Scheduled(fixedDelayString = "${app.floor.flush-interval-ms:500}")
+    public void flush() {
+        floors.forEach((restaurantId, floor) -> {
+            if (!floor.pendingWrites.isEmpty()) {
+                TenantContext.runAs(restaurantId, () -> flush(restaurantId, floor));
+            }
+        });
+    }
+
+    private void flush(Long restaurantId, Floor floor) {
+        Map<TableStatus, List<Long>> byStatus = new EnumMap<>(TableStatus.class);
+        floor.pendingWrites.forEach((id, status) -> byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                LocalDateTime now = LocalDateTime.now();
+                byStatus.forEach((status, ids) -> tableRepository.updateStatus(ids, status, now));
+            });
+            // Solo se quitan las que no cambiaron otra vez mientras se escribía. Esas
+            // tendrán otro UPDATE, que sube otra vez la versión: la memoria lo cuenta ya
+            byStatus.forEach((status, ids) -> ids.forEach(id -> {
+                AtomicReference<TableState> ref = floor.tables.get(id);
+                if (!floor.pendingWrites.remove(id, status) && ref != null) {
+                    ref.updateAndGet(current -> current.bumped(current.status()));
+                }
+            }));
+        } catch (Exception e) {
+            log.error("Error al persistir el estado de las mesas del restaurante {}, se reintentará: {}",
+                    restaurantId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // ==================== RECARGA DESDE LA BD ====================
+
+    /**
+     * Vuelve a leer de la BD las salas cargadas. No toca las mesas con una
+     * escritura pendiente ni las que cambian en memoria mientras se lee (quedan
+     * para la siguiente vuelta); los cambios de estado que trae se publican
+     * como evento de sala.
+     */
+    @Scheduled(fixedDelayString = "${app.floor.reload-interval-ms:5000}",
+            initialDelayString = "${app.floor.reload-interval-ms:5000}")
+    public void reload() {
+        floors.forEach((restaurantId, floor) -> {
+            if (floor.loaded) {
+                TenantContext.runAs(restaurantId, () -> reload(restaurantId, floor));
+            }
+        });
+    }
+
+    private void reload(Long restaurantId, Floor floor) {
+        Map<Long, TableState> before = new HashMap<>();
+        floor.tables.forEach((id, ref) -> before.put(id, ref.get()));
+        Set<Long> pendingBefore = Set.copyOf(floor.pendingWrites.keySet());
+
+        List<TableState> stored;
+        try {
+            stored = transactionTemplate.execute(tx -> tableRepository.findAllWithJoins().stream()
+                    .map(TableState::from)
+                    .toList());
+        } catch (Exception e) {
+            log.error("Error al recargar el estado de las mesas del restaurante {}: {}", restaurantId, e.getMessage());
+            return;
+        }
+
+        List<TableDTO> changed = new ArrayList<>();
+        Set<Long> storedIds = new HashSet<>();
+        for (TableState state : stored) {
+            storedIds.add(state.id());
+            if (pendingBefore.contains(state.id()) || floor.pendingWrites.containsKey(state.id())) {
+                continue;
+            }
+            TableState local = before.get(state.id());
+            if (local == null) {
+                floor.tables.putIfAbsent(state.id(), new AtomicReference<>(state));
+                continue;
+            }
+            AtomicReference<TableState> ref = floor.tables.get(state.id());
+            if (ref != null && !local.equals(state) && ref.compareAndSet(local, state)
+                    && local.status() != state.status()) {
+                changed.add(state.toDTO());
+            }
+        }
+        // Mesas borradas en la BD (solo si no cambiaron en memoria mientras tanto)
+        before.forEach((id, local) -> {
+            if (!storedIds.contains(id) && !floor.pendingWrites.containsKey(id)) {
+                floor.tables.computeIfPresent(id, (key, ref) -> ref.get() == local ? null : ref);
+            }
+        });
+
+        if (!changed.isEmpty()) {
+            log.debug("Sala del restaurante {}: {} mesas cambiadas fuera de esta instancia", restaurantId, changed.size());
+            eventPublisher.publishEvent(FloorEvent.of(FloorEventType.TABLES_STATUS_CHANGED, changed));
+        }
+    }
+
+
+    // ==================== AUXILIARES ====================
+
+    private List<TableDTO> query(Predicate<TableState> filter, Comparator<TableState> order) {
+        return floor().tables.values().stream()
+                .map(AtomicReference::get)
+                .filter(filter)
+                .sorted(order)
+                .map(TableState::toDTO)
+                .toList();
+    }
+
+    /**
+     * Sala del restaurante actual, cargándola la primera vez
+     */
+    private Floor floor() {
+        Long restaurantId = TenantContext.getRestaurantId();
+        Floor floor = floors.computeIfAbsent(restaurantId, id -> new Floor());
+        if (floor.loaded) {
+            return floor;
+        }
+        floor.loadLock.lock();
+        try {
+            if (!floor.loaded) {
+                transactionTemplate.executeWithoutResult(tx -> tableRepository.findAllWithJoins()
+                        .forEach(t -> floor.tables.put(t.getId(), new AtomicReference<>(TableState.from(t)))));
+                floor.loaded = true;
+                log.info("Estado de sala del restaurante {} cargado: {} mesas", restaurantId, floor.tables.size());
+            }
+        } finally {
+            floor.loadLock.unlock();
+        }
+        return floor;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Estado de sala de un restaurante
+     */
+    private static final class Floor {
+        final Map<Long, AtomicReference<TableState>> tables = new ConcurrentHashMap<>();
+        final Map<Long, TableStatus> pendingWrites = new ConcurrentHashMap<>();
+        // ReentrantLock y no synchronized: la carga hace JDBC y no debe fijar hilos virtuales a su portador
+        final ReentrantLock loadLock = new ReentrantLock();
+        volatile boolean loaded = false;
+    }
+
+    /**
+     * Instantánea inmutable de una mesa
+     */
+    private record TableState(Long id, Integer tableNumber, Integer capacity,
+                              TableLocation location, TableStatus status, String description,
+                              Long version, Set<Long> joinableWith) {
+
+        static TableState from(RestaurantTable table) {
+            return new TableState(table.getId(), table.getTableNumber(), table.getCapacity(),
+                    table.getLocation(), table.getStatus(), table.getDescription(), table.getVersion(),
+                    Set.copyOf(table.getJoinableWith()));
+        }
+
+        TableState withStatus(TableStatus newStatus) {
+            return new TableState(id, tableNumber, capacity, location, newStatus, description, version, joinableWith);
+        }
+
+        TableState bumped(TableStatus newStatus) {
+            return new TableState(id, tableNumber, capacity, location, newStatus, description, version + 1, joinableWith);
+        }
+
+        TableDTO toDTO() {
+            return new TableDTO(id, tableNumber, capacity, location, status, description, version, joinableWith);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.model.User;
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice en memoria para buscar clientes mientras se teclea: por el principio
+ * de cualquier palabra del nombre, del username o del email, y por el principio
+ * o el final del teléfono.
+ *
+ * Cada término se guarda como "término\0idUsuario" en un skip list ordenado, así
+ * que una búsqueda por prefijo es un recorrido de rango sin bloqueos. El final
+ * del teléfono se busca como prefijo del número invertido. Se mantiene al día
+ * con las escrituras de usuarios (tras el commit) y cada restaurante tiene su índice.
+ */
+@Slf4j
+@Component
+public class GuestSearchIndex {
+
+    private static final char SEPARATOR = '\0';
+    // Candidatos que se examinan como máximo por búsqueda (prefijos muy cortos)
+    private static final int MAX_CANDIDATES = 5_000;
+
+    private final UserRepository userRepository;
+    private final RestaurantService restaurantService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, TenantGuests> indexes = new ConcurrentHashMap<>();
+
+    public GuestSearchIndex(UserRepository userRepository,
+                            RestaurantService restaurantService,
+                            PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.restaurantService = restaurantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Carga los índices de todos los restaurantes al arrancar la aplicación
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        restaurantService.forEachRestaurant(restaurantId -> tenant());
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * Ids de los clientes del restaurante actual que encajan con todas las
+     * palabras de la consulta. Se recorre el índice en orden y se para al
+     * llegar al límite, así que el coste no depende del número de clientes;
+     * el resultado se devuelve ordenado por nombre.
+     */
+    public List<Long> search(String query, int limit) {
+        TenantGuests index = tenant();
+        String digits = query == null ? "" : query.replaceAll("[\\s+\\-().]", "");
+
+        List<Guest> matches = new ArrayList<>();
+        if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit)) {
+            // Teléfono: empieza o termina por esos dígitos
+            Set<Long> ids = scan(index.phones, digits, limit);
+            ids.addAll(scan(index.phones, reverse(digits), limit - ids.size()));
+            ids.stream().map(index.guests::get).filter(g -> g != null).forEach(matches::add);
+        } else {
+            String[] tokens = tokenize(query);
+            if (tokens.length == 0) {
+                return List.of();
+            }
+            // La palabra más larga suele ser la más selectiva: marca los candidatos
+            Arrays.sort(tokens, Comparator.comparingInt(String::length).reversed());
+            Set<Long> seen = new HashSet<>();
+            for (String key : range(index.terms, tokens[0])) {
+                Long id = idOf(key);
+                if (!seen.add(id)) {
+                    continue;
+                }
+                Guest guest = index.guests.get(id);
+                if (guest != null && guest.matchesAll(tokens)) {
+                    matches.add(guest);
+                }
+                if (matches.size() >= limit || seen.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparing(Guest::fullName).thenComparing(Guest::id))
+                .map(Guest::id)
+                .toList();
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Añade o actualiza un usuario (tras el commit si hay transacción)
+     */
+    public void upsert(User user) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        Guest guest = Guest.of(user.getId(), user.getUsername(), user.getFullName(), user.getEmail(), user.getPhone());
+        afterCommit(() -> index(restaurantId).put(guest));
+    }
+
+    /**
+     * Quita un usuario eliminado (tras el commit si hay transacción)
+     */
+    public void remove(Long userId) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        afterCommit(() -> index(restaurantId).remove(userId));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private TenantGuests index(Long restaurantId) {
+        return indexes.computeIfAbsent(restaurantId, id -> new TenantGuests());
+    }
+
+    /**
+     * Índice del restaurante actual, cargándolo la primera vez
+     */
+    private TenantGuests tenant() {
+        Long restaurantId = TenantContext.getRestaurantId();
+        TenantGuests index = index(restaurantId);
+        if (index.loaded) {
+            return index;
+        }
+        index.writeLock.lock();
+        try {
+            if (!index.loaded) {
+                long started = System.currentTimeMillis();
+                transactionTemplate.executeWithoutResult(tx -> userRepository.findAllForSearch()
+                        .forEach(row -> index.putLocked(Guest.of((Long) row[0], (String) row[1],
+                                (String) row[2], (String) row[3], (String) row[4]))));
+                index.loaded = true;
+                log.info("Índice de búsqueda de clientes del restaurante {} cargado: {} usuarios ({} ms)",
+                        restaurantId, index.guests.size(), System.currentTimeMillis() - started);
+            }
+        } finally {
+            index.writeLock.unlock();
+        }
+        return index;
+    }
+
+    /**
+     * Ids de los términos que empiezan por el prefijo, sin repetir y hasta el máximo
+     */
+    private static Set<Long> scan(NavigableSet<String> terms, String prefix, int max) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (max <= 0) {
+            return ids;
+        }
+        for (String key : range(terms, prefix)) {
+            ids.add(idOf(key));
+            if (ids.size() >= max) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private static NavigableSet<String> range(NavigableSet<String> terms, String prefix) {
+        return terms.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static Long idOf(String key) {
+        return Long.valueOf(key.substring(key.lastIndexOf(SEPARATOR) + 1));
+    }
+
+    private static String[] tokenize(String text) {
+        String normalized = UserAvailabilityIndex.normalize(text);
+        return normalized.isEmpty() ? new String[0] : normalized.split("[\\s@._\\-]+");
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Índice de un restaurante. Las lecturas no bloquean; las escrituras (raras)
+     * se serializan para que quitar y poner los términos de un usuario sea atómico.
+     */
+    private static final class TenantGuests {
+        final Map<Long, Guest> guests = new ConcurrentHashMap<>();
+        // "término\0id": palabras del nombre, username, email y partes del email
+        final NavigableSet<String> terms = new ConcurrentSkipListSet<>();
+        // "dígitos\0id" y "dígitos invertidos\0id"
+        final NavigableSet<String> phones = new ConcurrentSkipListSet<>();
+        final ReentrantLock writeLock = new ReentrantLock();
+        volatile boolean loaded = false;
+
+        void put(Guest guest) {
+            writeLock.lock();
+            try {
+                putLocked(guest);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void remove(Long id) {
+            writeLock.lock();
+            try {
+                Guest old = guests.remove(id);
+                if (old != null) {
+                    unindex(old);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void putLocked(Guest guest) {
+            Guest old = guests.put(guest.id(), guest);
+            if (old != null) {
+                unindex(old);
+            }
+            guest.terms().forEach(term -> terms.add(term + SEPARATOR + guest.id()));
+            if (!guest.phone().isEmpty()) {
+                phones.add(guest.phone() + SEPARATOR + guest.id());
+                phones.add(reverse(guest.phone()) + SEPARATOR + guest.id());
+            }
+        }
+
+        private void unindex(Guest guest) {
+            guest.terms().forEach(term -> terms.remove(term + SEPARATOR + guest.id()));
+            if (!guest.phone().isEmpty()) {
+                phones.remove(guest.phone() + SEPARATOR + guest.id());
+                phones.remove(reverse(guest.phone()) + SEPARATOR + guest.id());
+            }
+        }
+    }
+
+    /**
+     * Campos buscables de un usuario, ya normalizados
+     */
+    private record Guest(Long id, String fullName, String phone, List<String> terms) {
+
+        static Guest of(Long id, String username, String fullName, String email, String phone) {
+            Set<String> terms = new LinkedHashSet<>();
+            terms.addAll(Arrays.asList(tokenize(fullName)));
+            terms.add(UserAvailabilityIndex.normalize(username));
+            terms.add(UserAvailabilityIndex.normalize(email));
+            terms.addAll(Arrays.asList(tokenize(email)));
+            terms.remove("");
+            String digits = phone == null ? "" : phone.replaceAll("\\D", "");
+            return new Guest(id, fullName == null ? "" : fullName, digits, new ArrayList<>(terms));
+        }
+
+        /**
+         * Cada palabra de la consulta es el principio de algún término del usuario
+         */
+        boolean matchesAll(String[] tokens) {
+            for (String token : tokens) {
+                if (!matches(token)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matches(String token) {
+            for (String term : terms) {
+                if (term.startsWith(token)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
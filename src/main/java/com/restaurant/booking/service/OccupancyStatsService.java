@@ -0,0 +1,234 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.DailyStatsDTO;
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.model.DailyOccupancyStats;
+import com.restaurant.booking.model.Reservation;
+import com.restaurant.booking.repository.DailyOccupancyStatsRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estadísticas diarias de ocupación, cancelaciones y no-shows.
+ *
+ * Cada alta o cambio de estado de una reserva suma un delta a la fila de su
+ * día y ubicación dentro de la misma transacción (nunca se recalcula). El
+ * recálculo completo solo se usa para reparar datos y va por meses en paralelo.
+ */
+@Slf4j
+@Service
+@Transactional
+public class OccupancyStatsService {
+
+    private final DailyOccupancyStatsRepository statsRepository;
+    private final FloorStateStore floorState;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService rebuildExecutor;
+
+    public OccupancyStatsService(DailyOccupancyStatsRepository statsRepository,
+                                 FloorStateStore floorState,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.stats.rebuild-threads:4}") int rebuildThreads) {
+        this.statsRepository = statsRepository;
+        this.floorState = floorState;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger count = new AtomicInteger();
+        this.rebuildExecutor = Executors.newFixedThreadPool(rebuildThreads, r -> {
+            Thread t = new Thread(r, "stats-rebuild-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    // ==================== DELTAS ====================
+
+    /**
+     * Nueva reserva (entra como PENDING)
+     */
+    public void recordCreated(Reservation reservation, TableLocation location) {
+        Map<ReservationStatus, Integer> counts = new EnumMap<>(ReservationStatus.class);
+        counts.put(reservation.getStatus(), 1);
+        apply(reservation.getReservationDate(), location, counts,
+                coversOf(reservation.getStatus(), reservation.getGuests()));
+    }
+
+    /**
+     * Cambio de estado: resta del estado anterior y suma al nuevo
+     */
+    public void recordStatusChange(Reservation reservation, TableLocation location,
+                                   ReservationStatus from, ReservationStatus to) {
+        recordStatusChange(reservation.getReservationDate(), location, from, to, 1, reservation.getGuests());
+    }
+
+    /**
+     * Cambio de estado de varias reservas del mismo día y ubicación (un único delta)
+     */
+    public void recordStatusChange(LocalDate date, TableLocation location, ReservationStatus from,
+                                   ReservationStatus to, int reservations, int guests) {
+        if (from == to || reservations == 0) {
+            return;
+        }
+        Map<ReservationStatus, Integer> counts = new EnumMap<>(ReservationStatus.class);
+        counts.put(from, -reservations);
+        counts.put(to, reservations);
+        apply(date, location, counts, coversOf(to, guests) - coversOf(from, guests));
+    }
+
+    /**
+     * Reserva eliminada: deja de contar
+     */
+    public void recordDeleted(Reservation reservation, TableLocation location) {
+        Map<ReservationStatus, Integer> counts = new EnumMap<>(ReservationStatus.class);
+        counts.put(reservation.getStatus(), -1);
+        apply(reservation.getReservationDate(), location, counts,
+                -coversOf(reservation.getStatus(), reservation.getGuests()));
+    }
+
+    private void apply(LocalDate date, TableLocation location,
+                       Map<ReservationStatus, Integer> counts, int covers) {
+        if (location == null) {
+            return;
+        }
+        statsRepository.applyDelta(
+                TenantContext.getRestaurantId(),
+                date,
+                location.name(),
+                counts.getOrDefault(ReservationStatus.PENDING, 0),
+                counts.getOrDefault(ReservationStatus.CONFIRMED, 0),
+                counts.getOrDefault(ReservationStatus.SEATED, 0),
+                counts.getOrDefault(ReservationStatus.COMPLETED, 0),
+                counts.getOrDefault(ReservationStatus.CANCELLED, 0),
+                counts.getOrDefault(ReservationStatus.NO_SHOW, 0),
+                covers
+        );
+    }
+
+    private static int coversOf(ReservationStatus status, Integer guests) {
+        return status == ReservationStatus.CANCELLED || status == ReservationStatus.NO_SHOW ? 0 : guests;
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Estadísticas por día y ubicación, más el total de cada día (location = null).
+     * Las plazas salen de la configuración actual de mesas.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyStatsDTO> getDailyStats(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("La fecha final debe ser posterior a la inicial");
+        }
+
+        Map<TableLocation, Integer> seatsByLocation = new EnumMap<>(TableLocation.class);
+        for (TableDTO table : floorState.findAll()) {
+            seatsByLocation.merge(table.getLocation(), table.getCapacity(), Integer::sum);
+        }
+        int totalSeats = seatsByLocation.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<LocalDate, List<DailyStatsDTO>> byDay = new LinkedHashMap<>();
+        for (DailyOccupancyStats row : statsRepository.findBetween(from, to)) {
+            byDay.computeIfAbsent(row.getStatsDate(), d -> new ArrayList<>())
+                    .add(toDTO(row, seatsByLocation.getOrDefault(row.getLocation(), 0)));
+        }
+
+        List<DailyStatsDTO> result = new ArrayList<>();
+        byDay.forEach((date, rows) -> {
+            result.addAll(rows);
+            result.add(total(date, rows, totalSeats));
+        });
+        return result;
+    }
+
+    private static DailyStatsDTO toDTO(DailyOccupancyStats row, int seats) {
+        int reservations = row.getPending() + row.getConfirmed() + row.getSeated()
+                + row.getCompleted() + row.getCancelled() + row.getNoShow();
+        return withRates(new DailyStatsDTO(row.getStatsDate(), row.getLocation(), reservations,
+                row.getBookedCovers(), seats, row.getCompleted(), row.getCancelled(), row.getNoShow(),
+                null, null, null));
+    }
+
+    private static DailyStatsDTO total(LocalDate date, List<DailyStatsDTO> rows, int seats) {
+        DailyStatsDTO total = new DailyStatsDTO(date, null, 0, 0, seats, 0, 0, 0, null, null, null);
+        for (DailyStatsDTO row : rows) {
+            total.setReservations(total.getReservations() + row.getReservations());
+            total.setCovers(total.getCovers() + row.getCovers());
+            total.setCompleted(total.getCompleted() + row.getCompleted());
+            total.setCancelled(total.getCancelled() + row.getCancelled());
+            total.setNoShows(total.getNoShows() + row.getNoShows());
+        }
+        return withRates(total);
+    }
+
+    /**
+     * Ocupación = comensales / plazas; cancelaciones sobre el total de reservas;
+     * no-shows sobre las reservas no canceladas
+     */
+    private static DailyStatsDTO withRates(DailyStatsDTO dto) {
+        dto.setOccupancyRate(ratio(dto.getCovers(), dto.getSeats()));
+        dto.setCancellationRate(ratio(dto.getCancelled(), dto.getReservations()));
+        dto.setNoShowRate(ratio(dto.getNoShows(), dto.getReservations() - dto.getCancelled()));
+        return dto;
+    }
+
+    private static double ratio(int part, int whole) {
+        return whole <= 0 ? 0.0 : Math.round(part * 10000.0 / whole) / 10000.0;
+    }
+
+    // ==================== RECÁLCULO ====================
+
+    /**
+     * Recalcula las estadísticas del restaurante actual desde las reservas (vivas
+     * y archivadas), un mes por tarea y varias tareas en paralelo
+     * @return número de filas (día y ubicación) regeneradas
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new RuntimeException("La fecha final debe ser posterior a la inicial");
+        }
+        Long restaurantId = TenantContext.getRestaurantId();
+        long started = System.currentTimeMillis();
+
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        for (LocalDate start = from; !start.isAfter(to); start = start.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate chunkFrom = start;
+            LocalDate monthEnd = start.withDayOfMonth(start.lengthOfMonth());
+            LocalDate chunkTo = monthEnd.isAfter(to) ? to : monthEnd;
+            chunks.add(CompletableFuture.supplyAsync(() -> TenantContext.callAs(restaurantId, () ->
+                    transactionTemplate.execute(tx -> {
+                        statsRepository.deleteBetween(restaurantId, chunkFrom, chunkTo);
+                        return statsRepository.rebuildBetween(restaurantId, chunkFrom, chunkTo);
+                    })), rebuildExecutor));
+        }
+
+        int rows = chunks.stream().mapToInt(CompletableFuture::join).sum();
+        log.info("Estadísticas del restaurante {} recalculadas de {} a {}: {} filas en {} tramos ({} ms)",
+                restaurantId, from, to, rows, chunks.size(), System.currentTimeMillis() - started);
+        return rows;
+    }
+}
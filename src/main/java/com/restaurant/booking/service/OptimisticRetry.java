@@ -0,0 +1,52 @@
+package com.restaurant.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta, un número acotado de veces, una operación que falla por bloqueo
+ * optimista (otra petición cambió la fila entre la lectura y el commit).
+ *
+ * Solo vale para cambios que no dependen de lo que el cliente leyó (sin
+ * If-Match): volver a leer y aplicar da el mismo resultado que si hubieran
+ * llegado en orden. Cada intento tiene que ser una transacción completa, así
+ * que se llama desde fuera de la capa transaccional.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticRetry(@Value("${app.optimistic-retry.max-attempts:3}") int maxAttempts,
+                           @Value("${app.optimistic-retry.backoff-ms:20}") long backoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Conflicto de versión, reintento {}/{}: {}", attempt, maxAttempts - 1, e.getMessage());
+                try {
+                    // Espera creciente con algo de azar para que los competidores no vuelvan a chocar
+                    Thread.sleep(backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.repository.ArchivedReservationRepository;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.repository.SyncTombstoneRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mueve las reservas cerradas y antiguas a reservations_archive.
+ *
+ * Trabaja por lotes pequeños (un INSERT ... SELECT y un DELETE por lote, en
+ * la misma transacción) para no bloquear la tabla caliente ni inflar el
+ * undo log. Así la tabla de reservas y sus índices solo contienen las
+ * semanas activas y caben en el buffer pool.
+ */
+@Slf4j
+@Service
+public class ReservationArchiver {
+
+    private static final Set<ReservationStatus> CLOSED_STATUSES =
+            EnumSet.of(ReservationStatus.COMPLETED, ReservationStatus.CANCELLED, ReservationStatus.NO_SHOW);
+
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archiveRepository;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final RestaurantService restaurantService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservations.archive.horizon-days:90}")
+    private int horizonDays;
+
+    @Value("${app.reservations.archive.batch-size:500}")
+    private int batchSize;
+
+    public ReservationArchiver(ReservationRepository reservationRepository,
+                               ArchivedReservationRepository archiveRepository,
+                               SyncTombstoneRepository tombstoneRepository,
+                               RestaurantService restaurantService,
+                               PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.archiveRepository = archiveRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.restaurantService = restaurantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Fecha a partir de la cual las reservas siguen en la tabla caliente
+     */
+    public LocalDate getHorizon() {
+        return LocalDate.now().minusDays(horizonDays);
+    }
+
+    /**
+     * Cada noche archiva las reservas cerradas anteriores al horizonte
+     */
+    @Scheduled(cron = "${app.reservations.archive.cron:0 0 4 * * *}")
+    public void archiveClosedReservations() {
+        LocalDate before = getHorizon();
+        restaurantService.forEachRestaurant(restaurantId -> {
+            long started = System.currentTimeMillis();
+            int archived = archiveBefore(before);
+            if (archived > 0) {
+                log.info("Restaurante {}: {} reservas archivadas anteriores a {} ({} ms)",
+                        restaurantId, archived, before, System.currentTimeMillis() - started);
+            }
+        });
+    }
+
+    /**
+     * Archiva las reservas cerradas del restaurante actual anteriores a la fecha
+     * @return número de reservas archivadas
+     */
+    public int archiveBefore(LocalDate before) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        int total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(tx -> {
+                List<Long> ids = reservationRepository.findArchivableIds(
+                        CLOSED_STATUSES, before, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                archiveRepository.copyFromReservations(restaurantId, ids, now);
+                archiveRepository.copyJoinedTablesFromReservations(ids);
+                // Para la sincronización incremental, archivar es como borrar
+                tombstoneRepository.recordReservations(restaurantId, ids, now);
+                reservationRepository.deleteJoinedTablesByReservationIdIn(ids);
+                return reservationRepository.deleteByIdIn(ids);
+            });
+            if (moved == null || moved == 0) {
+                return total;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caduca las reservas PENDING que nadie confirma y marca como NO_SHOW las
+ * CONFIRMED cuya hora pasó sin sentar al cliente.
+ *
+ * Cada pasada bloquea un lote con SELECT ... FOR UPDATE SKIP LOCKED sobre los
+ * índices (restaurant_id, status, ...): si no hay nada que caducar, la consulta
+ * vuelve vacía sin tocar filas, y con varias instancias cada una se lleva filas
+ * distintas sin esperar a las demás. El cambio de estado reutiliza el camino en
+ * bloque de ReservationService (mesas, estadísticas, lista de espera, eventos).
+ */
+@Slf4j
+@Service
+public class ReservationExpiryScheduler {
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final RestaurantService restaurantService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservations.expiry.pending-ttl-minutes:120}")
+    private long pendingTtlMinutes;
+
+    @Value("${app.reservations.expiry.no-show-grace-minutes:30}")
+    private long noShowGraceMinutes;
+
+    @Value("${app.reservations.expiry.batch-size:200}")
+    private int batchSize;
+
+    public ReservationExpiryScheduler(ReservationRepository reservationRepository,
+                                      ReservationService reservationService,
+                                      RestaurantService restaurantService,
+                                      PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.restaurantService = restaurantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Cada pocos minutos, restaurante a restaurante
+     */
+    @Scheduled(fixedDelayString = "${app.reservations.expiry.interval-ms:300000}",
+            initialDelayString = "${app.reservations.expiry.initial-delay-ms:60000}")
+    public void expireReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(pendingTtlMinutes);
+        LocalDateTime missedBefore = now.minusMinutes(noShowGraceMinutes);
+
+        restaurantService.forEachRestaurant(restaurantId -> {
+            int expired = drain(() -> reservationRepository.lockStalePending(
+                            restaurantId, createdBefore, batchSize),
+                    ReservationStatus.PENDING, ReservationStatus.CANCELLED);
+            int noShows = drain(() -> reservationRepository.lockMissedConfirmed(
+                            restaurantId, missedBefore.toLocalDate(), missedBefore.toLocalTime(), batchSize),
+                    ReservationStatus.CONFIRMED, ReservationStatus.NO_SHOW);
+            if (expired > 0 || noShows > 0) {
+                log.info("Restaurante {}: {} reservas PENDING caducadas, {} marcadas como NO_SHOW",
+                        restaurantId, expired, noShows);
+            }
+        });
+    }
+
+    /**
+     * Procesa lotes hasta que no quedan filas: cada lote se bloquea, cambia y
+     * confirma en su propia transacción
+     * @return número de reservas cambiadas
+     */
+    private int drain(Supplier<List<Long>> lockBatch, ReservationStatus from, ReservationStatus to) {
+        int total = 0;
+        while (true) {
+            Integer changed = transactionTemplate.execute(tx -> {
+                List<Long> ids = lockBatch.get();
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                return reservationService.transitionLocked(ids, from, to).size();
+            });
+            if (changed == null || changed == 0) {
+                return total;
+            }
+            total += changed;
+            if (changed < batchSize) {
+                return total;
+            }
+        }
+    }
+}
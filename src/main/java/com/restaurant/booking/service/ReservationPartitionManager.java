@@ -0,0 +1,140 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.tenant.TenancyProperties;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particiones mensuales (rango de reservation_date) de la tabla reservations.
+ *
+ * La conversión inicial de la tabla es una migración versionada
+ * (V1__PartitionReservations, la aplica SchemaMigrator); aquí solo queda la
+ * tarea diaria, que crea las particiones de los próximos meses y elimina las
+ * antiguas ya vacías (ReservationArchiver se lleva sus filas). Las consultas
+ * calientes filtran por fecha, así que MySQL solo abre las particiones recientes.
+ */
+@Slf4j
+@Component
+public class ReservationPartitionManager {
+
+    private static final String TABLE = "reservations";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TenancyProperties tenancyProperties;
+    private final ReservationArchiver archiver;
+
+    @Value("${app.reservations.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reservations.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    public ReservationPartitionManager(JdbcTemplate jdbcTemplate,
+                                       TenancyProperties tenancyProperties,
+                                       ReservationArchiver archiver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenancyProperties = tenancyProperties;
+        this.archiver = archiver;
+    }
+
+    /**
+     * Mantiene las particiones de cada base de datos (una vez por esquema)
+     */
+    @Scheduled(cron = "${app.reservations.partitioning.cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        tenancyProperties.restaurantPerDatabase().forEach((database, restaurantId) -> {
+            try {
+                TenantContext.runAs(restaurantId, this::maintainCurrentDatabase);
+            } catch (Exception e) {
+                log.error("Error manteniendo las particiones de reservas en la base de datos {}: {}",
+                        database, e.getMessage());
+            }
+        });
+    }
+
+    private void maintainCurrentDatabase() {
+        if (!isPartitioned()) {
+            log.debug("La tabla {} aún no está particionada: no hay particiones que mantener", TABLE);
+            return;
+        }
+        addMissingPartitions(LocalDate.now().withDayOfMonth(1).plusMonths(monthsAhead));
+        dropEmptyPartitionsBefore(archiver.getHorizon().withDayOfMonth(1));
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Parte p_future para tener siempre creadas las particiones de los próximos meses
+     */
+    private void addMissingPartitions(LocalDate lastMonth) {
+        List<String> existing = partitionNames();
+        List<String> missing = new ArrayList<>();
+        for (LocalDate month = LocalDate.now().withDayOfMonth(1); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            if (!existing.contains(month.format(PARTITION_NAME))) {
+                missing.add(monthPartition(month));
+            }
+        }
+        if (missing.isEmpty() || !existing.contains(FUTURE_PARTITION)) {
+            return;
+        }
+        missing.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO (" + String.join(", ", missing) + ")");
+        log.info("Añadidas {} particiones a {}", missing.size() - 1, TABLE);
+    }
+
+    /**
+     * Elimina las particiones mensuales anteriores al horizonte de archivado que
+     * ya no tienen filas (DROP PARTITION es instantáneo y libera el espacio)
+     */
+    private void dropEmptyPartitionsBefore(LocalDate horizonMonth) {
+        for (String name : partitionNames()) {
+            if (!name.matches("p\\d{6}")) {
+                continue;
+            }
+            LocalDate month = LocalDate.parse(name.substring(1) + "01", DateTimeFormatter.BASIC_ISO_DATE);
+            if (!month.plusMonths(1).isAfter(horizonMonth) && isEmpty(name)) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+                log.info("Eliminada la partición vacía {} de {}", name, TABLE);
+            }
+        }
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE);
+    }
+
+    private boolean isEmpty(String partition) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT 1 FROM " + TABLE + " PARTITION (" + partition + ") LIMIT 1", Integer.class);
+        return rows.isEmpty();
+    }
+
+    private static String monthPartition(LocalDate month) {
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + month.plusMonths(1) + "')";
+    }
+}
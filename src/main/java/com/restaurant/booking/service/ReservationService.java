@@ -1,24 +1,50 @@
 package com.restaurant.booking.service;
 
+import com.restaurant.booking.dto.BulkStatusRequest;
 import com.restaurant.booking.dto.CreateReservationRequest;
 import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.FloorEventType;
 import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.enums.SyncEntityType;
+import com.restaurant.booking.enums.TableLocation;
 import com.restaurant.booking.enums.TableStatus;
+import com.restaurant.booking.event.FloorEvent;
+import com.restaurant.booking.event.SlotFreedEvent;
+import com.restaurant.booking.exception.PreconditionFailedException;
+import com.restaurant.booking.model.ArchivedReservation;
 import com.restaurant.booking.model.Reservation;
-import com.restaurant.booking.model.RestaurantTable;
+import com.restaurant.booking.model.SyncTombstone;
 import com.restaurant.booking.model.User;
+import com.restaurant.booking.repository.ArchivedReservationRepository;
 import com.restaurant.booking.repository.ReservationRepository;
 import com.restaurant.booking.repository.RestaurantTableRepository;
+import com.restaurant.booking.repository.SyncTombstoneRepository;
 import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -28,6 +54,14 @@ public class ReservationService {
     private final UserRepository userRepository;
     private final RestaurantTableRepository tableRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FloorStateStore floorState;
+    private final ArchivedReservationRepository archivedReservationRepository;
+    private final OccupancyStatsService occupancyStats;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final CoversQuota coversQuota;
+    private final TableAllocator tableAllocator;
+    private final CalendarService calendarService;
 
     // ==================== MÉTODOS CRUD ====================
 
@@ -58,23 +92,15 @@ public class ReservationService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + username));
 
-        // Obtener sus reservas
-        List<Reservation> reservations = reservationRepository.findByUserId(user.getId());
-
-        // Convertir a DTO
-        return reservations.stream()
-                .map(this::convertToDTO)
-                .toList();
+        // Obtener sus reservas (incluidas las archivadas)
+        return getUserHistory(user.getId());
     }
 
     /**
      * Obtiene todas las reservas de un usuario específico por ID
      */
     public List<ReservationDTO> getReservationsByUserId(Long userId) {
-        List<Reservation> reservations = reservationRepository.findByUserId(userId);
-        return reservations.stream()
-                .map(this::convertToDTO)
-                .toList();
+        return getUserHistory(userId);
     }
 
     /**
@@ -85,36 +111,58 @@ public class ReservationService {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + request.getUserId()));
 
-        // 2. Validar que la mesa existe
-        RestaurantTable table = tableRepository.findById(request.getTableId())
-                .orElseThrow(() -> new RuntimeException("Mesa no encontrada con ID: " + request.getTableId()));
-
-        // 3. Validar que la fecha no sea en el pasado
+        // 2. Validar que la fecha no sea en el pasado
         if (request.getReservationDate().isBefore(LocalDate.now())) {
             throw new RuntimeException("No se puede reservar para una fecha pasada");
         }
 
-        // 4. Validar que la mesa tenga capacidad suficiente
-        if (table.getCapacity() < request.getGuests()) {
-            throw new RuntimeException("La mesa no tiene capacidad suficiente. Capacidad: "
-                    + table.getCapacity() + ", Solicitado: " + request.getGuests());
+        // 3. Mesas: la pedida (estado de sala en memoria, sin consultar la BD) o, sin
+        // mesa o si no basta para el grupo, la combinación mínima de mesas juntables libres
+        List<TableDTO> tables;
+        if (request.getTableId() == null) {
+            tables = tableAllocator.allocate(request.getReservationDate(), request.getReservationTime(),
+                    request.getGuests(), null, null);
+            if (tables.isEmpty()) {
+                throw new RuntimeException("No hay mesas libres para " + request.getGuests()
+                        + " comensales en este horario");
+            }
+        } else {
+            TableDTO requested = floorState.get(request.getTableId());
+            tables = requested.getCapacity() >= request.getGuests()
+                    ? List.of(requested)
+                    : tableAllocator.allocate(request.getReservationDate(), request.getReservationTime(),
+                            request.getGuests(), requested.getId(), null);
+
+            // 4. Validar que la mesa (o las mesas juntas) tenga capacidad suficiente
+            if (tables.isEmpty()) {
+                throw new RuntimeException("La mesa no tiene capacidad suficiente. Capacidad: "
+                        + requested.getCapacity() + ", Solicitado: " + request.getGuests()
+                        + " (y no hay mesas vecinas libres con las que juntarla)");
+            }
         }
+        TableDTO table = tables.get(0);
+        List<Long> tableIds = tables.stream().map(TableDTO::getId).toList();
 
-        // 5. Validar que no haya conflictos de reserva
-        List<Reservation> conflicts = reservationRepository.findConflictingReservations(
-                request.getTableId(),
+        // 5. Validar que no haya conflictos de reserva en ninguna de las mesas
+        List<Reservation> conflicts = reservationRepository.findConflicting(
+                tableIds,
                 request.getReservationDate(),
                 request.getReservationTime()
         );
 
         if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Ya existe una reserva para esta mesa en este horario");
+            throw new RuntimeException(tables.size() == 1
+                    ? "Ya existe una reserva para esta mesa en este horario"
+                    : "Ya existe una reserva para alguna de las mesas en este horario");
         }
+        // 6. Validar la capacidad de cocina del tramo (contador en memoria; se devuelve si hay rollback)
+        coversQuota.acquire(request.getReservationDate(), request.getReservationTime(), request.getGuests());
 
-        // 6. Crear la reserva
+        // 7. Crear la reserva
         Reservation reservation = new Reservation();
         reservation.setUser(user);
-        reservation.setTable(table);
+        reservation.setTable(tableRepository.getReferenceById(table.getId()));
+        reservation.getJoinedTableIds().addAll(tableIds.subList(1, tableIds.size()));
         reservation.setReservationDate(request.getReservationDate());
         reservation.setReservationTime(request.getReservationTime());
         reservation.setGuests(request.getGuests());
@@ -122,29 +170,43 @@ public class ReservationService {
         reservation.setStatus(ReservationStatus.PENDING);
 
         Reservation savedReservation = reservationRepository.save(reservation);
-        // NUEVO: Enviar email de confirmación de reserva creada
-        try {
-            emailService.sendReservationCreatedEmail(
-                    user,
-                    savedReservation,
-                    table.getTableNumber().toString()
-            );
-        } catch (Exception e) {
-            System.err.println("Error al enviar email de reserva creada: " + e.getMessage());
-        }
-        return convertToDTO(savedReservation);
+        occupancyStats.recordCreated(savedReservation, table.getLocation());
+        // NUEVO: Enviar email de confirmación de reserva creada (solo si la transacción se confirma)
+        String createdTableNumber = table.getTableNumber().toString();
+        afterCommit(() -> {
+            try {
+                emailService.sendReservationCreatedEmail(user, savedReservation, createdTableNumber);
+            } catch (Exception e) {
+                log.warn("Error al enviar email de reserva creada: {}", e.getMessage());
+            }
+        });
+
+        ReservationDTO dto = convertToDTO(savedReservation);
+        eventPublisher.publishEvent(FloorEvent.of(FloorEventType.RESERVATION_CREATED, dto));
+        return dto;
     }
 
     /**
      * Actualiza el estado de una reserva
      */
     public ReservationDTO updateReservationStatus(Long id, ReservationStatus status) {
+        return updateReservationStatus(id, status, null);
+    }
+
+    /**
+     * Actualiza el estado de una reserva si sigue en la versión que leyó el cliente
+     * @param expectedVersion versión del If-Match (null: sin comprobación)
+     * @throws PreconditionFailedException si la reserva ya cambió
+     */
+    public ReservationDTO updateReservationStatus(Long id, ReservationStatus status, Long expectedVersion) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada con ID: " + id));
+        checkVersion(reservation, expectedVersion);
 
         ReservationStatus oldStatus = reservation.getStatus();
         reservation.setStatus(status);
-        RestaurantTable table = reservation.getTable();
+        Long tableId = reservation.getTable().getId();
+        TableDTO table = floorState.get(tableId);
 
 
         // Si se cancela o completa, liberar la mesa
@@ -152,49 +214,192 @@ public class ReservationService {
                 status == ReservationStatus.COMPLETED ||
                 status == ReservationStatus.NO_SHOW) {
 
-            table = reservation.getTable();
-            table.setStatus(TableStatus.AVAILABLE);
-            tableRepository.save(table);
+            table = floorState.transition(tableId, TableStatus.AVAILABLE);
         }
 
         // Si se confirma o se sienta, marcar mesa como ocupada/reservada
         if (status == ReservationStatus.CONFIRMED) {
-            table = reservation.getTable();
-            table.setStatus(TableStatus.RESERVED);
-            tableRepository.save(table);
+            table = floorState.transition(tableId, TableStatus.RESERVED);
         }
 
         if (status == ReservationStatus.SEATED) {
-            table = reservation.getTable();
-            table.setStatus(TableStatus.OCCUPIED);
-            tableRepository.save(table);
+            table = floorState.transition(tableId, TableStatus.OCCUPIED);
+        }
+
+        // Las mesas juntadas siguen a la principal
+        TableStatus tableStatus = tableStatusFor(status);
+        if (tableStatus != null && !reservation.getJoinedTableIds().isEmpty()) {
+            floorState.transitionAll(reservation.getJoinedTableIds(), null, tableStatus);
         }
 
-        Reservation updatedReservation = reservationRepository.save(reservation);
+        // Flush inmediato: un conflicto de versión salta antes de enviar emails, y el DTO lleva la nueva versión
+        Reservation updatedReservation = reservationRepository.saveAndFlush(reservation);
+        occupancyStats.recordStatusChange(updatedReservation, table.getLocation(), oldStatus, status);
+        coversQuota.recordStatusChange(updatedReservation.getReservationDate(), updatedReservation.getReservationTime(),
+                updatedReservation.getGuests(), oldStatus, status);
 
-        // NUEVO: Enviar email según el cambio de estado
-        try {
+        // NUEVO: Enviar email según el cambio de estado (solo si la transacción se confirma)
+        // Si cambió de PENDING a CONFIRMED
+        if (oldStatus == ReservationStatus.PENDING && status == ReservationStatus.CONFIRMED) {
             User user = reservation.getUser();
             String tableNumber = table.getTableNumber().toString();
+            afterCommit(() -> {
+                try {
+                    emailService.sendReservationConfirmedEmail(user, updatedReservation, tableNumber);
+                } catch (Exception e) {
+                    log.warn("Error al enviar email de cambio de estado: {}", e.getMessage());
+                }
+            });
+        }
 
-            // Si cambió de PENDING a CONFIRMED
-            if (oldStatus == ReservationStatus.PENDING && status == ReservationStatus.CONFIRMED) {
-                emailService.sendReservationConfirmedEmail(user, updatedReservation, tableNumber);
-            }
+        ReservationDTO dto = convertToDTO(updatedReservation);
+        eventPublisher.publishEvent(FloorEvent.of(FloorEventType.RESERVATION_STATUS_CHANGED, dto));
+
+        // Si la reserva ocupaba el hueco y ya no, se ofrece a la lista de espera
+        if ((status == ReservationStatus.CANCELLED || status == ReservationStatus.NO_SHOW)
+                && isActive(oldStatus)) {
+            publishSlotFreed(updatedReservation, table);
+        }
+        return dto;
+    }
+
+    /**
+     * Cambia de estado todas las reservas de un día que coinciden con el filtro
+     * (cierre de servicio: SEATED → COMPLETED, CONFIRMED → NO_SHOW).
+     * Cuesta lo mismo con diez filas que con cientos: una consulta con bloqueo,
+     * un UPDATE de reservas, una relectura, un delta de estadísticas por ubicación y un evento
+     * de sala por tipo. Las mesas se persisten en un UPDATE por estado desde
+     * la cola de escritura del estado de sala.
+     */
+    public List<ReservationDTO> bulkUpdateStatus(BulkStatusRequest request) {
+        ReservationStatus from = request.getFromStatus();
+        ReservationStatus to = request.getToStatus();
+        if (from == to) {
+            throw new RuntimeException("El nuevo estado debe ser distinto del actual");
+        }
 
-        } catch (Exception e) {
-            System.err.println("Error al enviar email de cambio de estado: " + e.getMessage());
+        // 1. Mesas que entran en el filtro (estado de sala en memoria)
+        boolean allTables = request.getTableId() == null && request.getLocation() == null;
+        List<Long> tableIds = floorState.findAll().stream()
+                .filter(t -> request.getTableId() == null || t.getId().equals(request.getTableId()))
+                .filter(t -> request.getLocation() == null || t.getLocation() == request.getLocation())
+                .map(TableDTO::getId)
+                .toList();
+        if (!allTables && tableIds.isEmpty()) {
+            return List.of();
+        }
+
+        // 2. Reservas afectadas, bloqueadas hasta el commit
+        List<Reservation> reservations = allTables
+                ? reservationRepository.findForBulkUpdate(request.getDate(), from)
+                : reservationRepository.findForBulkUpdateOnTables(request.getDate(), from, tableIds);
+        if (reservations.isEmpty()) {
+            return List.of();
         }
 
-        return convertToDTO(updatedReservation);
+        return applyBulkStatus(reservations, from, to);
+    }
+
+    /**
+     * Cambia de estado reservas que el llamador ya tiene bloqueadas
+     * (caducidad automática de PENDING y marcado de NO_SHOW)
+     */
+    public List<ReservationDTO> transitionLocked(Collection<Long> ids, ReservationStatus from, ReservationStatus to) {
+        List<Reservation> reservations = reservationRepository.findWithUserByIdIn(ids);
+        if (reservations.isEmpty()) {
+            return List.of();
+        }
+        return applyBulkStatus(reservations, from, to);
+    }
+
+    private List<ReservationDTO> applyBulkStatus(List<Reservation> locked,
+                                                 ReservationStatus from, ReservationStatus to) {
+        // Un único UPDATE para todas
+        List<Long> ids = locked.stream().map(Reservation::getId).toList();
+        reservationRepository.updateStatus(ids, to, LocalDateTime.now());
+
+        // El UPDATE vació el contexto de persistencia: se releen ya con el estado
+        // y la versión que dejó en la BD (y sus relaciones se pueden cargar)
+        List<Reservation> reservations = reservationRepository.findWithUserByIdIn(ids);
+        List<Long> tableIds = reservations.stream()
+                .flatMap(r -> tableIdsOf(r).stream())
+                .distinct()
+                .toList();
+        List<ReservationDTO> dtos = reservations.stream()
+                .map(this::convertToDTO)
+                .toList();
+
+        // Mesas: mismo criterio que el cambio individual, pero solo se tocan las
+        // que la reserva retenía (una PENDING no retiene mesa: no se libera nada)
+        TableStatus tableStatus = tableStatusFor(to);
+        TableStatus held = tableStatusFor(from);
+        if (tableStatus != null && (held != null || tableStatus != TableStatus.AVAILABLE)) {
+            floorState.transitionAll(tableIds, held, tableStatus);
+        }
+
+        // Estadísticas: un delta por día y ubicación
+        Map<LocalDate, Map<TableLocation, int[]>> totalsByDay = new TreeMap<>();
+        for (Reservation reservation : reservations) {
+            floorState.find(reservation.getTable().getId()).ifPresent(table -> {
+                int[] totals = totalsByDay
+                        .computeIfAbsent(reservation.getReservationDate(), d -> new EnumMap<>(TableLocation.class))
+                        .computeIfAbsent(table.getLocation(), l -> new int[2]);
+                totals[0]++;
+                totals[1] += reservation.getGuests();
+            });
+        }
+        totalsByDay.forEach((date, byLocation) -> byLocation.forEach((location, totals) ->
+                occupancyStats.recordStatusChange(date, location, from, to, totals[0], totals[1])));
+        reservations.forEach(r -> coversQuota.recordStatusChange(
+                r.getReservationDate(), r.getReservationTime(), r.getGuests(), from, to));
+
+        // Un evento de sala con todas las reservas
+        eventPublisher.publishEvent(FloorEvent.of(FloorEventType.RESERVATIONS_STATUS_CHANGED, dtos));
+
+        // Huecos liberados para la lista de espera
+        if ((to == ReservationStatus.CANCELLED || to == ReservationStatus.NO_SHOW) && isActive(from)) {
+            reservations.forEach(r -> floorState.find(r.getTable().getId())
+                    .ifPresent(table -> publishSlotFreed(r, table)));
+        }
+
+        // Emails en bloque, solo si la transacción se confirma
+        boolean confirmed = from == ReservationStatus.PENDING && to == ReservationStatus.CONFIRMED;
+        boolean cancelled = to == ReservationStatus.CANCELLED;
+        if (confirmed || cancelled) {
+            afterCommit(() -> {
+                for (int i = 0; i < reservations.size(); i++) {
+                    Reservation reservation = reservations.get(i);
+                    String tableNumber = String.valueOf(dtos.get(i).getTableNumber());
+                    try {
+                        if (confirmed) {
+                            emailService.sendReservationConfirmedEmail(reservation.getUser(), reservation, tableNumber);
+                        } else {
+                            emailService.sendReservationCancelledEmail(reservation.getUser(), reservation, tableNumber);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Error al enviar email de cambio de estado: {}", e.getMessage());
+                    }
+                }
+            });
+        }
+        return dtos;
     }
 
     /**
      * Cancela una reserva
      */
     public ReservationDTO cancelReservation(Long id) {
+        return cancelReservation(id, null);
+    }
+
+    /**
+     * Cancela una reserva si sigue en la versión que leyó el cliente
+     * @param expectedVersion versión del If-Match (null: sin comprobación)
+     */
+    public ReservationDTO cancelReservation(Long id, Long expectedVersion) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reserva no encontrada con ID: " + id));
+        checkVersion(reservation, expectedVersion);
 
         // Solo se pueden cancelar reservas PENDING o CONFIRMED
         if (reservation.getStatus() != ReservationStatus.PENDING &&
@@ -202,47 +407,109 @@ public class ReservationService {
             throw new RuntimeException("Solo se pueden cancelar reservas pendientes o confirmadas");
         }
 
+        ReservationStatus oldStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.CANCELLED);
 
-        // Liberar la mesa
-        RestaurantTable table = reservation.getTable();
-        table.setStatus(TableStatus.AVAILABLE);
-        tableRepository.save(table);
-
-        Reservation cancelledReservation = reservationRepository.save(reservation);
-
-        // NUEVO: Enviar email de cancelación
-        try {
-            User user = reservation.getUser();
-            String tableNumber = table.getTableNumber().toString();
-            emailService.sendReservationCancelledEmail(user, cancelledReservation, tableNumber);
-        } catch (Exception e) {
-            System.err.println("Error al enviar email de cancelación: " + e.getMessage());
+        // Liberar la mesa (y las juntadas)
+        TableDTO table = floorState.transition(reservation.getTable().getId(), TableStatus.AVAILABLE);
+        if (!reservation.getJoinedTableIds().isEmpty()) {
+            floorState.transitionAll(reservation.getJoinedTableIds(), null, TableStatus.AVAILABLE);
         }
 
-        return convertToDTO(cancelledReservation);
+        Reservation cancelledReservation = reservationRepository.saveAndFlush(reservation);
+        occupancyStats.recordStatusChange(cancelledReservation, table.getLocation(),
+                oldStatus, ReservationStatus.CANCELLED);
+        coversQuota.recordStatusChange(cancelledReservation.getReservationDate(),
+                cancelledReservation.getReservationTime(), cancelledReservation.getGuests(),
+                oldStatus, ReservationStatus.CANCELLED);
+
+        // NUEVO: Enviar email de cancelación (solo si la transacción se confirma)
+        User user = reservation.getUser();
+        String tableNumber = table.getTableNumber().toString();
+        afterCommit(() -> {
+            try {
+                emailService.sendReservationCancelledEmail(user, cancelledReservation, tableNumber);
+            } catch (Exception e) {
+                log.warn("Error al enviar email de cancelación: {}", e.getMessage());
+            }
+        });
+
+        ReservationDTO dto = convertToDTO(cancelledReservation);
+        eventPublisher.publishEvent(FloorEvent.of(FloorEventType.RESERVATION_CANCELLED, dto));
+        publishSlotFreed(cancelledReservation, table);
+        return dto;
     }
 
     /**
      * Elimina una reserva
      */
     public void deleteReservation(Long id) {
-        if (!reservationRepository.existsById(id)) {
-            throw new RuntimeException("Reserva no encontrada con ID: " + id);
-        }
-        reservationRepository.deleteById(id);
+        Reservation reservation = reservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reserva no encontrada con ID: " + id));
+        occupancyStats.recordDeleted(reservation, floorState.find(reservation.getTable().getId())
+                .map(TableDTO::getLocation)
+                .orElse(null));
+        coversQuota.recordDeleted(reservation.getReservationDate(), reservation.getReservationTime(),
+                reservation.getGuests(), reservation.getStatus());
+        reservationRepository.delete(reservation);
+        tombstoneRepository.save(SyncTombstone.of(SyncEntityType.RESERVATION, id));
+        calendarService.evictAfterCommit(reservation.getReservationDate());
     }
 
     // ==================== MÉTODOS DE CONSULTA ====================
 
+    /**
+     * Próximas reservas activas (PENDING, CONFIRMED, SEATED) de varios usuarios, por usuario
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<ReservationDTO>> getUpcomingByUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return reservationRepository.findUpcomingByUserIds(userIds, LocalDate.now(),
+                        EnumSet.of(ReservationStatus.PENDING, ReservationStatus.CONFIRMED, ReservationStatus.SEATED))
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.groupingBy(ReservationDTO::getUserId));
+    }
+
+    /**
+     * Reservas por id, en el mismo orden (para la sincronización incremental)
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationDTO> getReservationsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Reservation> byId = reservationRepository.findWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Reservation::getId, r -> r));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDTO)
+                .toList();
+    }
+
     /**
      * Obtiene reservas por usuario
      */
     public List<ReservationDTO> getReservationsByUser(Long userId) {
-        List<Reservation> reservations = reservationRepository.findByUserId(userId);
-        return reservations.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return getUserHistory(userId);
+    }
+
+    /**
+     * Historial completo de un usuario: reservas vivas y archivadas, más
+     * recientes primero (por fecha y hora de la reserva)
+     */
+    private List<ReservationDTO> getUserHistory(Long userId) {
+        List<ReservationDTO> history = new ArrayList<>();
+        reservationRepository.findByUserId(userId).forEach(r -> history.add(convertToDTO(r)));
+        archivedReservationRepository.findByUserId(userId).forEach(a -> history.add(convertToDTO(a)));
+        history.sort(Comparator.comparing(ReservationDTO::getReservationDate)
+                .thenComparing(ReservationDTO::getReservationTime)
+                .thenComparing(ReservationDTO::getId)
+                .reversed());
+        return history;
     }
 
     /**
@@ -290,6 +557,73 @@ public class ReservationService {
         return conflicts.isEmpty();
     }
 
+    // ==================== EVENTOS ====================
+
+    /**
+     * Estados que ocupan la mesa en su horario (mismos que findConflictingReservations)
+     */
+    private boolean isActive(ReservationStatus status) {
+        return status == ReservationStatus.PENDING ||
+                status == ReservationStatus.CONFIRMED ||
+                status == ReservationStatus.SEATED;
+    }
+
+    /**
+     * Mesa principal seguida de las juntadas
+     */
+    private static List<Long> tableIdsOf(Reservation reservation) {
+        List<Long> ids = new ArrayList<>();
+        ids.add(reservation.getTable().getId());
+        reservation.getJoinedTableIds().stream().sorted().forEach(ids::add);
+        return ids;
+    }
+
+    private static void checkVersion(Reservation reservation, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(reservation.getVersion())) {
+            throw new PreconditionFailedException("La reserva " + reservation.getId()
+                    + " ha cambiado (versión actual " + reservation.getVersion() + ")");
+        }
+    }
+
+    /**
+     * Estado que toma la mesa cuando la reserva pasa a este estado (null: no cambia)
+     */
+    private static TableStatus tableStatusFor(ReservationStatus status) {
+        return switch (status) {
+            case CANCELLED, COMPLETED, NO_SHOW -> TableStatus.AVAILABLE;
+            case CONFIRMED -> TableStatus.RESERVED;
+            case SEATED -> TableStatus.OCCUPIED;
+            case PENDING -> null;
+        };
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Avisa (tras el commit) de que el horario de la mesa ha quedado libre
+     */
+    private void publishSlotFreed(Reservation reservation, TableDTO table) {
+        eventPublisher.publishEvent(new SlotFreedEvent(
+                TenantContext.getRestaurantId(),
+                table.getId(),
+                table.getCapacity(),
+                table.getLocation(),
+                reservation.getReservationDate(),
+                reservation.getReservationTime()
+        ));
+    }
+
     // ==================== CONVERSIÓN ====================
 
     /**
@@ -301,13 +635,39 @@ public class ReservationService {
         dto.setUserId(reservation.getUser().getId());
         dto.setUserName(reservation.getUser().getUsername());
         dto.setUserPhone(reservation.getUser().getPhone());
-        dto.setTableId(reservation.getTable().getId());
-        dto.setTableNumber(reservation.getTable().getTableNumber());
+        // El número de mesa sale del estado de sala: evita cargar la entidad mesa por cada reserva
+        Long tableId = reservation.getTable().getId();
+        dto.setTableId(tableId);
+        dto.setTableNumber(floorState.find(tableId)
+                .map(TableDTO::getTableNumber)
+                .orElseGet(() -> reservation.getTable().getTableNumber()));
+        dto.setReservationDate(reservation.getReservationDate());
+        dto.setReservationTime(reservation.getReservationTime());
+        dto.setGuests(reservation.getGuests());
+        dto.setStatus(reservation.getStatus());
+        dto.setSpecialRequests(reservation.getSpecialRequests());
+        dto.setVersion(reservation.getVersion());
+        dto.setJoinedTableIds(reservation.getJoinedTableIds().stream().sorted().toList());
+        return dto;
+    }
+
+    /**
+     * Convierte una reserva archivada a DTO (el número de mesa se guardó al archivar)
+     */
+    private ReservationDTO convertToDTO(ArchivedReservation reservation) {
+        ReservationDTO dto = new ReservationDTO();
+        dto.setId(reservation.getId());
+        dto.setUserId(reservation.getUser().getId());
+        dto.setUserName(reservation.getUser().getUsername());
+        dto.setUserPhone(reservation.getUser().getPhone());
+        dto.setTableId(reservation.getTableId());
+        dto.setTableNumber(reservation.getTableNumber());
         dto.setReservationDate(reservation.getReservationDate());
         dto.setReservationTime(reservation.getReservationTime());
         dto.setGuests(reservation.getGuests());
         dto.setStatus(reservation.getStatus());
         dto.setSpecialRequests(reservation.getSpecialRequests());
+        dto.setJoinedTableIds(reservation.getJoinedTableIds().stream().sorted().toList());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.model.Restaurant;
+import com.restaurant.booking.repository.RestaurantRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Catálogo de restaurantes (tenants).
+ *
+ * El catálogo vive siempre en la base de datos principal aunque el restaurante
+ * de la petición esté enrutado a otra, por eso cada operación abre su propia
+ * transacción como el restaurante por defecto en lugar de usar @Transactional.
+ */
+@Slf4j
+@Service
+public class RestaurantService {
+
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Ids de restaurantes activos; se consulta en cada petición, así que se cachea
+    private volatile Set<Long> activeIds;
+
+    public RestaurantService(RestaurantRepository restaurantRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.restaurantRepository = restaurantRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Crea el restaurante por defecto si la base de datos aún no tiene ninguno
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureDefaultRestaurant() {
+        Long defaultId = TenantContext.getDefaultRestaurantId();
+        inCatalog(() -> {
+            if (restaurantRepository.existsById(defaultId)) {
+                return null;
+            }
+            if (restaurantRepository.count() == 0) {
+                Restaurant restaurant = new Restaurant();
+                restaurant.setName("Restaurante principal");
+                restaurant.setCode("principal");
+                restaurant.setActive(true);
+                Restaurant saved = restaurantRepository.save(restaurant);
+                log.info("Creado el restaurante por defecto con ID {}", saved.getId());
+            } else {
+                log.warn("El restaurante por defecto {} no existe (app.tenancy.default-restaurant-id)", defaultId);
+            }
+            return null;
+        });
+        activeIds = null;
+    }
+
+    // ==================== MÉTODOS CRUD ====================
+
+    public List<Restaurant> getActiveRestaurants() {
+        return inCatalog(restaurantRepository::findByActiveTrueOrderByNameAsc);
+    }
+
+    public List<Restaurant> getAllRestaurants() {
+        return inCatalog(restaurantRepository::findAll);
+    }
+
+    public Restaurant getRestaurantById(Long id) {
+        return inCatalog(() -> restaurantRepository.findById(id))
+                .orElseThrow(() -> new RuntimeException("Restaurante no encontrado con ID: " + id));
+    }
+
+    public Restaurant createRestaurant(Restaurant restaurant) {
+        Restaurant saved = inCatalog(() -> {
+            if (restaurantRepository.existsByCode(restaurant.getCode())) {
+                throw new RuntimeException("Ya existe un restaurante con el código: " + restaurant.getCode());
+            }
+            restaurant.setActive(true);
+            return restaurantRepository.save(restaurant);
+        });
+        activeIds = null;
+        return saved;
+    }
+
+    public Restaurant setActive(Long id, boolean active) {
+        if (!active && id.equals(TenantContext.getDefaultRestaurantId())) {
+            throw new RuntimeException("No se puede desactivar el restaurante por defecto");
+        }
+        Restaurant saved = inCatalog(() -> {
+            Restaurant restaurant = restaurantRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Restaurante no encontrado con ID: " + id));
+            restaurant.setActive(active);
+            return restaurantRepository.save(restaurant);
+        });
+        activeIds = null;
+        return saved;
+    }
+
+    // ==================== TENANTS ====================
+
+    /**
+     * Indica si el restaurante existe y está activo (sin ir a la BD salvo la primera vez)
+     */
+    public boolean isActive(Long id) {
+        return getActiveRestaurantIds().contains(id);
+    }
+
+    public Set<Long> getActiveRestaurantIds() {
+        Set<Long> ids = activeIds;
+        if (ids == null) {
+            ids = Set.copyOf(inCatalog(restaurantRepository::findActiveIds));
+            activeIds = ids;
+        }
+        return ids;
+    }
+
+    /**
+     * Ejecuta una tarea una vez por restaurante activo, cada una como su tenant.
+     * Un fallo en un restaurante no impide procesar el resto.
+     */
+    public void forEachRestaurant(Consumer<Long> task) {
+        for (Long restaurantId : getActiveRestaurantIds()) {
+            try {
+                TenantContext.runAs(restaurantId, () -> task.accept(restaurantId));
+            } catch (Exception e) {
+                log.error("Error procesando el restaurante {}: {}", restaurantId, e.getMessage());
+            }
+        }
+    }
+
+    private <T> T inCatalog(Supplier<T> action) {
+        return TenantContext.callAs(TenantContext.getDefaultRestaurantId(),
+                () -> transactionTemplate.execute(tx -> action.get()));
+    }
+}
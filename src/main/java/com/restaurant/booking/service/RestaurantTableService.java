@@ -1,15 +1,27 @@
 package com.restaurant.booking.service;
 
 import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.SyncEntityType;
+import com.restaurant.booking.enums.TableLocation;
 import com.restaurant.booking.enums.TableStatus;
+import com.restaurant.booking.exception.PreconditionFailedException;
+import com.restaurant.booking.exception.ResourceInUseException;
 import com.restaurant.booking.model.RestaurantTable;
+import com.restaurant.booking.model.SyncTombstone;
+import com.restaurant.booking.repository.ArchivedReservationRepository;
+import com.restaurant.booking.repository.ReservationRepository;
 import com.restaurant.booking.repository.RestaurantTableRepository;
+import com.restaurant.booking.repository.SyncTombstoneRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -17,30 +29,30 @@ import java.util.stream.Collectors;
 public class RestaurantTableService {
 
     private final RestaurantTableRepository tableRepository;
+    private final FloorStateStore floorState;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final TableAllocator tableAllocator;
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
 
     // ==================== MÉTODOS CRUD ====================
 
     /**
-     * Obtiene todas las mesas
+     * Obtiene todas las mesas (desde el estado de sala en memoria)
      * @return Lista de TableDTO
      */
     public List<TableDTO> getAllTables() {
-        List<RestaurantTable> tables = tableRepository.findAll();
-        return tables.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return floorState.findAll();
     }
 
     /**
-     * Obtiene una mesa por ID
+     * Obtiene una mesa por ID (desde el estado de sala en memoria)
      * @param id ID de la mesa
      * @return TableDTO
      * @throws RuntimeException si no existe
      */
     public TableDTO getTableById(Long id) {
-        RestaurantTable table = tableRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Mesa no encontrada con ID: " + id));
-        return convertToDTO(table);
+        return floorState.get(id);
     }
 
     /**
@@ -55,7 +67,9 @@ public class RestaurantTableService {
         }
 
         RestaurantTable table = convertToEntity(tableDTO);
+        table.setJoinableWith(validJoins(null, tableDTO.getJoinableWith()));
         RestaurantTable savedTable = tableRepository.save(table);
+        floorState.upsert(savedTable);
         return convertToDTO(savedTable);
     }
 
@@ -66,8 +80,27 @@ public class RestaurantTableService {
      * @return TableDTO actualizado
      */
     public TableDTO updateTable(Long id, TableDTO tableDTO) {
+        return updateTable(id, tableDTO, null, null);
+    }
+
+    /**
+     * Actualiza una mesa si sigue como la leyó el cliente (If-Match)
+     * @param expectedVersion versión esperada (null: sin comprobación)
+     * @param expectedStatus estado esperado en la sala (null: sin comprobación)
+     * @throws PreconditionFailedException si la mesa ya cambió
+     */
+    public TableDTO updateTable(Long id, TableDTO tableDTO, Long expectedVersion, TableStatus expectedStatus) {
         RestaurantTable existingTable = tableRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Mesa no encontrada con ID: " + id));
+        // La versión de la sala cuenta los cambios de estado aún sin escribir en la BD
+        TableDTO current = floorState.get(id);
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new PreconditionFailedException("La mesa " + id + " ha cambiado (versión actual "
+                    + current.getVersion() + ")");
+        }
+        if (expectedStatus != null && current.getStatus() != expectedStatus) {
+            throw new PreconditionFailedException("La mesa " + id + " ha cambiado de estado");
+        }
 
         // Validar cambio de número de mesa
         if (!existingTable.getTableNumber().equals(tableDTO.getTableNumber())) {
@@ -82,61 +115,114 @@ public class RestaurantTableService {
         existingTable.setLocation(tableDTO.getLocation());
         existingTable.setStatus(tableDTO.getStatus());
         existingTable.setDescription(tableDTO.getDescription());
+        if (tableDTO.getJoinableWith() != null) {
+            existingTable.getJoinableWith().clear();
+            existingTable.getJoinableWith().addAll(validJoins(id, tableDTO.getJoinableWith()));
+        }
 
-        RestaurantTable updatedTable = tableRepository.save(existingTable);
+        // Flush inmediato: el DTO devuelto lleva la nueva versión
+        RestaurantTable updatedTable = tableRepository.saveAndFlush(existingTable);
+        floorState.upsert(updatedTable);
         return convertToDTO(updatedTable);
     }
 
     /**
      * Elimina una mesa
+     * Las reservas no tienen clave foránea (tabla particionada): no se puede
+     * borrar una mesa con reservas, archivadas o como mesa juntada.
+     * También se quita de las vecinas juntables de las demás mesas.
      * @param id ID de la mesa
      */
     public void deleteTable(Long id) {
         if (!tableRepository.existsById(id)) {
             throw new RuntimeException("Mesa no encontrada con ID: " + id);
         }
+        if (reservationRepository.existsByTableId(id) || reservationRepository.existsByJoinedTableId(id)
+                || archivedReservationRepository.existsByTableId(id)
+                || archivedReservationRepository.existsByJoinedTableId(id)) {
+            throw new ResourceInUseException("No se puede eliminar la mesa " + id + ": tiene reservas");
+        }
+        // Flush inmediato: la sala en memoria recibe las vecinas con su nueva versión
+        List<RestaurantTable> neighbours = tableRepository.findJoinableWith(id);
+        neighbours.forEach(neighbour -> neighbour.getJoinableWith().remove(id));
+        tableRepository.saveAllAndFlush(neighbours).forEach(floorState::upsert);
+
         tableRepository.deleteById(id);
+        tombstoneRepository.save(SyncTombstone.of(SyncEntityType.TABLE, id));
+        floorState.remove(id);
     }
 
     // ==================== MÉTODOS DE NEGOCIO ====================
 
     /**
-     * Obtiene todas las mesas disponibles
+     * Obtiene todas las mesas disponibles (sin acceso a la BD)
      * @return Lista de mesas disponibles
      */
     public List<TableDTO> getAvailableTables() {
-        List<RestaurantTable> tables = tableRepository.findAvailableTables();
-        return tables.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return floorState.findAvailable();
     }
 
     /**
-     * Obtiene mesas disponibles con capacidad suficiente
+     * Obtiene mesas disponibles con capacidad suficiente (sin acceso a la BD)
      * @param guests Número de comensales
      * @return Lista de mesas adecuadas
      */
     public List<TableDTO> getAvailableTablesByCapacity(Integer guests) {
-        List<RestaurantTable> tables = tableRepository
-                .findByCapacityGreaterThanEqualAndStatus(guests, TableStatus.AVAILABLE);
-        return tables.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return floorState.findAvailable(guests);
+    }
+
+    /**
+     * Mesas que se asignarían a un grupo en un horario: una si alguna basta o la
+     * combinación mínima de mesas juntables (vacío si no cabe)
+     */
+    @Transactional(readOnly = true)
+    public List<TableDTO> allocateTables(LocalDate date, LocalTime time, int guests, TableLocation location) {
+        return tableAllocator.allocate(date, time, guests, null, location);
     }
 
     /**
      * Cambia el estado de una mesa
+     * Se aplica en memoria y se persiste en segundo plano
      * @param id ID de la mesa
      * @param status Nuevo estado
      * @return TableDTO actualizado
      */
     public TableDTO updateTableStatus(Long id, TableStatus status) {
-        RestaurantTable table = tableRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Mesa no encontrada con ID: " + id));
+        return floorState.transition(id, status);
+    }
 
-        table.setStatus(status);
-        RestaurantTable updatedTable = tableRepository.save(table);
-        return convertToDTO(updatedTable);
+    /**
+     * Cambia el estado de una mesa solo si sigue como la leyó el cliente (If-Match).
+     * El estado lo comprueba la BD con un UPDATE condicional, sin bloqueos.
+     * @throws PreconditionFailedException si la mesa ya cambió
+     */
+    public TableDTO updateTableStatus(Long id, TableStatus status, Long expectedVersion, TableStatus expectedStatus) {
+        TableDTO current = floorState.get(id);
+        TableStatus expected = expectedStatus != null ? expectedStatus : current.getStatus();
+        if (!Objects.equals(expectedVersion, current.getVersion())) {
+            throw new PreconditionFailedException("La mesa " + id + " ha cambiado desde que se leyó");
+        }
+        // La sala en memoria se actualiza tras el commit
+        return floorState.compareAndSet(id, expected, status)
+                .orElseThrow(() -> new PreconditionFailedException("La mesa " + id + " ha cambiado desde que se leyó"));
+    }
+
+    /**
+     * Mesas vecinas indicadas para juntar: tienen que existir y no ser la propia mesa
+     */
+    private Set<Long> validJoins(Long tableId, Set<Long> joinableWith) {
+        Set<Long> joins = new HashSet<>();
+        if (joinableWith == null) {
+            return joins;
+        }
+        for (Long other : joinableWith) {
+            if (other.equals(tableId)) {
+                throw new RuntimeException("Una mesa no se puede juntar consigo misma");
+            }
+            floorState.get(other);
+            joins.add(other);
+        }
+        return joins;
     }
 
     // ==================== CONVERSIONES ====================
@@ -154,6 +240,8 @@ public class RestaurantTableService {
         dto.setLocation(table.getLocation());
         dto.setStatus(table.getStatus());
         dto.setDescription(table.getDescription());
+        dto.setVersion(table.getVersion());
+        dto.setJoinableWith(Set.copyOf(table.getJoinableWith()));
         return dto;
     }
 
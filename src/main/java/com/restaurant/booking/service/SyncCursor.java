@@ -0,0 +1,56 @@
+package com.restaurant.booking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de un cliente en la sincronización incremental: por cada tipo de
+ * cambio, la última fila entregada (updated_at / deleted_at e id). Viaja al
+ * cliente como texto opaco.
+ */
+record SyncCursor(Position reservations, Position tables, Position tombstones) {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * Cursor de un cliente sin datos: todas las filas desde el principio, y
+     * ningún borrado anterior (no tiene nada que borrar)
+     */
+    static SyncCursor start(LocalDateTime upTo) {
+        return new SyncCursor(new Position(ORIGIN, 0L), new Position(ORIGIN, 0L), Position.after(upTo));
+    }
+
+    String encode() {
+        String raw = String.join("|",
+                reservations.at().toString(), reservations.id().toString(),
+                tables.at().toString(), tables.id().toString(),
+                tombstones.at().toString(), tombstones.id().toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static SyncCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new SyncCursor(
+                    new Position(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1])),
+                    new Position(LocalDateTime.parse(parts[2]), Long.valueOf(parts[3])),
+                    new Position(LocalDateTime.parse(parts[4]), Long.valueOf(parts[5])));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor de sincronización no válido");
+        }
+    }
+
+    /**
+     * Última fila entregada de un tipo (orden: marca de tiempo, id)
+     */
+    record Position(LocalDateTime at, Long id) {
+
+        /**
+         * Todo lo que hay hasta la marca incluida ya se ha entregado
+         */
+        static Position after(LocalDateTime at) {
+            return new Position(at, Long.MAX_VALUE);
+        }
+    }
+}
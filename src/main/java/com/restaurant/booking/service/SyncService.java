@@ -0,0 +1,151 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.ChangeRef;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.dto.SyncChangesDTO;
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.model.SyncTombstone;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.repository.RestaurantTableRepository;
+import com.restaurant.booking.repository.SyncTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Sincronización incremental para las tablets de sala: devuelve solo lo que
+ * cambió desde el cursor del cliente, así que el coste de cada llamada depende
+ * del volumen de cambios y no del tamaño de los datos.
+ *
+ * Cada tipo se pagina por keyset sobre (updated_at, id) con un índice que
+ * empieza por restaurant_id. Solo se leen filas con más de
+ * app.sync.safety-lag-ms de antigüedad: una transacción que fijó su updated_at
+ * y aún no ha hecho commit no puede quedar por detrás de un cursor ya entregado.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class SyncService {
+
+    private static final int MAX_LIMIT = 2000;
+
+    private final ReservationRepository reservationRepository;
+    private final RestaurantTableRepository tableRepository;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final ReservationService reservationService;
+    private final FloorStateStore floorState;
+    private final RestaurantService restaurantService;
+
+    @Value("${app.sync.safety-lag-ms:5000}")
+    private long safetyLagMs;
+
+    @Value("${app.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    public SyncService(ReservationRepository reservationRepository,
+                       RestaurantTableRepository tableRepository,
+                       SyncTombstoneRepository tombstoneRepository,
+                       ReservationService reservationService,
+                       FloorStateStore floorState,
+                       RestaurantService restaurantService) {
+        this.reservationRepository = reservationRepository;
+        this.tableRepository = tableRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.reservationService = reservationService;
+        this.floorState = floorState;
+        this.restaurantService = restaurantService;
+    }
+
+    /**
+     * Cambios posteriores al cursor (sin cursor: todo, como primera carga)
+     * @param since cursor devuelto por la llamada anterior
+     * @param limit máximo de filas por tipo
+     */
+    public SyncChangesDTO getChanges(String since, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime upTo = now.minus(Duration.ofMillis(safetyLagMs));
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Pageable page = PageRequest.of(0, pageSize);
+
+        boolean fullResync = false;
+        SyncCursor cursor;
+        if (since == null || since.isBlank()) {
+            cursor = SyncCursor.start(upTo);
+        } else {
+            cursor = SyncCursor.decode(since);
+            // Los borrados más antiguos ya se purgaron: el cliente no puede saber qué quitar
+            if (cursor.tombstones().at().isBefore(now.minusDays(tombstoneRetentionDays))) {
+                cursor = SyncCursor.start(upTo);
+                fullResync = true;
+            }
+        }
+
+        List<ChangeRef> reservationRefs = reservationRepository.findChangesAfter(
+                cursor.reservations().at(), cursor.reservations().id(), upTo, page);
+        List<ChangeRef> tableRefs = tableRepository.findChangesAfter(
+                cursor.tables().at(), cursor.tables().id(), upTo, page);
+        List<SyncTombstone> tombstones = tombstoneRepository.findAfter(
+                cursor.tombstones().at(), cursor.tombstones().id(), upTo, page);
+
+        List<ReservationDTO> reservations = reservationService.getReservationsByIds(
+                reservationRefs.stream().map(ChangeRef::id).toList());
+        // El estado actual de las mesas está en la sala en memoria
+        List<TableDTO> tables = tableRefs.stream()
+                .map(ref -> floorState.find(ref.id()))
+                .flatMap(Optional::stream)
+                .toList();
+        List<SyncChangesDTO.Deleted> deleted = tombstones.stream()
+                .map(t -> new SyncChangesDTO.Deleted(t.getEntityType(), t.getEntityId()))
+                .toList();
+
+        SyncCursor next = new SyncCursor(
+                advance(reservationRefs, pageSize, upTo, cursor.reservations(), ChangeRef::updatedAt, ChangeRef::id),
+                advance(tableRefs, pageSize, upTo, cursor.tables(), ChangeRef::updatedAt, ChangeRef::id),
+                advance(tombstones, pageSize, upTo, cursor.tombstones(), SyncTombstone::getDeletedAt, SyncTombstone::getId));
+        boolean hasMore = reservationRefs.size() == pageSize
+                || tableRefs.size() == pageSize
+                || tombstones.size() == pageSize;
+
+        return new SyncChangesDTO(reservations, tables, deleted, next.encode(), hasMore, fullResync);
+    }
+
+    /**
+     * Cada noche borra las marcas de borrado que ya no necesita ningún cliente al día
+     */
+    @Scheduled(cron = "${app.sync.tombstone-purge-cron:0 15 4 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void purgeTombstones() {
+        LocalDateTime before = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        restaurantService.forEachRestaurant(restaurantId -> {
+            int purged = tombstoneRepository.deleteBefore(restaurantId, before);
+            if (purged > 0) {
+                log.info("Restaurante {}: {} marcas de borrado purgadas", restaurantId, purged);
+            }
+        });
+    }
+
+    /**
+     * Nueva posición de un tipo: la última fila entregada o, si ya no quedaban
+     * más, el límite superior de esta lectura
+     */
+    private static <T> SyncCursor.Position advance(List<T> rows, int pageSize, LocalDateTime upTo,
+                                                   SyncCursor.Position current,
+                                                   Function<T, LocalDateTime> at, Function<T, Long> id) {
+        if (rows.size() < pageSize) {
+            return current.at().isAfter(upTo) ? current : SyncCursor.Position.after(upTo);
+        }
+        T last = rows.get(rows.size() - 1);
+        return new SyncCursor.Position(at.apply(last), id.apply(last));
+    }
+}
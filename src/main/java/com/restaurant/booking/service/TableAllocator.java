@@ -0,0 +1,229 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.enums.TableStatus;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Asigna mesas a un grupo: una mesa si hay alguna libre que baste y, si no,
+ * la combinación mínima de mesas libres juntables (conectadas en el grafo de
+ * vecinas de la sala) que lo siente.
+ *
+ * "Mínima" es con el menor número de mesas y, a igualdad, la que deja menos
+ * sillas vacías. Se busca por profundidad creciente (1 mesa, 2, 3...), así que
+ * la primera profundidad con solución es la buena. Cada subconjunto conexo se
+ * genera una sola vez (algoritmo ESU: se crece desde la mesa de menor índice y
+ * solo se añaden vecinas exclusivas) y se poda cuando ni llenando los huecos
+ * que quedan con la mesa más grande se llegaría al grupo. Solo hay una
+ * consulta a la base de datos (mesas ocupadas en ese horario); el resto es en
+ * memoria sobre la sala.
+ */
+@Component
+public class TableAllocator {
+
+    private final FloorStateStore floorState;
+    private final ReservationRepository reservationRepository;
+
+    @Value("${app.tables.max-joined:4}")
+    private int maxJoined;
+
+    public TableAllocator(FloorStateStore floorState, ReservationRepository reservationRepository) {
+        this.floorState = floorState;
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Mesas para un grupo en un horario, la principal primero (vacío si no hay
+     * ninguna combinación posible)
+     * @param requiredTableId mesa que tiene que formar parte de la combinación (null: cualquiera)
+     * @param location ubicación de las mesas (null: cualquiera)
+     */
+    public List<TableDTO> allocate(LocalDate date, LocalTime time, int guests,
+                                   Long requiredTableId, TableLocation location) {
+        Set<Long> busy = new HashSet<>(reservationRepository.findBusyTableIds(
+                TenantContext.getRestaurantId(), date, time));
+
+        List<TableDTO> free = floorState.findAll().stream()
+                .filter(t -> t.getStatus() != TableStatus.MAINTENANCE)
+                .filter(t -> !busy.contains(t.getId()))
+                .filter(t -> location == null || t.getLocation() == location)
+                .toList();
+        if (requiredTableId != null && free.stream().noneMatch(t -> t.getId().equals(requiredTableId))) {
+            return List.of();
+        }
+        return new Search(free, guests, requiredTableId).run(Math.max(1, maxJoined));
+    }
+
+    /**
+     * Búsqueda sobre las mesas libres, con índices 0..n-1 en vez de ids
+     */
+    static final class Search {
+        private final List<TableDTO> tables;
+        private final int[] capacity;
+        private final BitSet[] neighbours;
+        private final int guests;
+        private final int required;
+        private final int maxCapacity;
+
+        private int[] best;
+        private int bestWaste;
+        // Subconjuntos recorridos (cada uno una sola vez por profundidad)
+        private int visited;
+
+        Search(List<TableDTO> tables, int guests, Long requiredTableId) {
+            this.tables = tables;
+            this.guests = guests;
+            int n = tables.size();
+            this.capacity = new int[n];
+            this.neighbours = new BitSet[n];
+            Map<Long, Integer> index = new HashMap<>();
+            int max = 0;
+            int req = -1;
+            for (int i = 0; i < n; i++) {
+                TableDTO table = tables.get(i);
+                index.put(table.getId(), i);
+                capacity[i] = table.getCapacity();
+                neighbours[i] = new BitSet(n);
+                max = Math.max(max, capacity[i]);
+                if (table.getId().equals(requiredTableId)) {
+                    req = i;
+                }
+            }
+            this.maxCapacity = max;
+            this.required = req;
+            // Grafo no dirigido: basta con que una de las dos mesas declare a la otra
+            for (int i = 0; i < n; i++) {
+                Set<Long> joins = tables.get(i).getJoinableWith();
+                if (joins == null) {
+                    continue;
+                }
+                for (Long other : joins) {
+                    Integer j = index.get(other);
+                    if (j != null && j != i) {
+                        neighbours[i].set(j);
+                        neighbours[j].set(i);
+                    }
+                }
+            }
+        }
+
+        List<TableDTO> run(int maxTables) {
+            int n = tables.size();
+            for (int k = 1; k <= maxTables; k++) {
+                // Ni con k mesas de la mayor capacidad se llega
+                if ((long) k * maxCapacity < guests) {
+                    continue;
+                }
+                for (int seed = 0; seed < n; seed++) {
+                    BitSet extension = new BitSet(n);
+                    addAbove(extension, neighbours[seed], seed);
+                    BitSet covered = (BitSet) neighbours[seed].clone();
+                    covered.set(seed);
+                    int[] subset = new int[k];
+                    subset[0] = seed;
+                    extend(subset, 1, capacity[seed], extension, covered, seed, k);
+                }
+                if (best != null) {
+                    return toTables(best);
+                }
+            }
+            return List.of();
+        }
+
+        private void extend(int[] subset, int size, int seated, BitSet extension, BitSet covered,
+                            int seed, int k) {
+            visited++;
+            // Ya hay una combinación exacta: nada puede mejorarla
+            if (best != null && bestWaste == 0) {
+                return;
+            }
+            boolean hasRequired = required < 0 || contains(subset, size, required);
+            if (seated >= guests && hasRequired) {
+                consider(subset, size, seated);
+                return;
+            }
+            // Sin la mesa pedida hay que seguir creciendo hasta incluirla
+            if (size == k || seated + (long) (k - size) * maxCapacity < guests) {
+                return;
+            }
+            BitSet remaining = (BitSet) extension.clone();
+            for (int w = remaining.nextSetBit(0); w >= 0; w = remaining.nextSetBit(0)) {
+                remaining.clear(w);
+                // Vecinas exclusivas de w: no están ya en el subconjunto ni junto a él
+                BitSet next = (BitSet) remaining.clone();
+                BitSet exclusive = (BitSet) neighbours[w].clone();
+                exclusive.andNot(covered);
+                addAbove(next, exclusive, seed);
+                BitSet nextCovered = (BitSet) covered.clone();
+                nextCovered.or(neighbours[w]);
+
+                subset[size] = w;
+                extend(subset, size + 1, seated + capacity[w], next, nextCovered, seed, k);
+            }
+        }
+
+        int visited() {
+            return visited;
+        }
+
+        private void consider(int[] subset, int size, int seated) {
+            int waste = seated - guests;
+            if (best == null || waste < bestWaste) {
+                best = Arrays.copyOf(subset, size);
+                bestWaste = waste;
+            }
+        }
+
+        private static void addAbove(BitSet target, BitSet source, int min) {
+            for (int u = source.nextSetBit(min + 1); u >= 0; u = source.nextSetBit(u + 1)) {
+                target.set(u);
+            }
+        }
+
+        private static boolean contains(int[] subset, int size, int value) {
+            for (int i = 0; i < size; i++) {
+                if (subset[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Mesas elegidas: la pedida o, si no, la de más capacidad como principal
+         */
+        private List<TableDTO> toTables(int[] chosen) {
+            List<TableDTO> result = new ArrayList<>();
+            for (int i : chosen) {
+                result.add(tables.get(i));
+            }
+            result.sort((a, b) -> {
+                if (required >= 0) {
+                    boolean aRequired = a == tables.get(required);
+                    boolean bRequired = b == tables.get(required);
+                    if (aRequired != bRequired) {
+                        return aRequired ? -1 : 1;
+                    }
+                }
+                int byCapacity = Integer.compare(b.getCapacity(), a.getCapacity());
+                return byCapacity != 0 ? byCapacity : a.getId().compareTo(b.getId());
+            });
+            return result;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefiltro en memoria (filtros Bloom) para saber si un username o email
+ * podría estar en uso.
+ *
+ * Un "no" del filtro es definitivo y evita la consulta a MySQL; un "sí"
+ * solo significa "probablemente" y se confirma con la base de datos.
+ * Mientras el filtro no está cargado, todas las consultas van a la BD, y
+ * también las de valores que tras normalizar no quedan en ASCII (ahí la
+ * collation de MySQL puede igualar cosas que normalize() no iguala).
+ * Cada restaurante tiene sus propios filtros.
+ *
+ * Las cargas en segundo plano van de una en una por un único hilo; si una
+ * falla, ese restaurante no se vuelve a intentar hasta pasado un tiempo que
+ * se duplica con cada fallo (retry-backoff-ms, hasta max-retry-backoff-ms).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserAvailabilityIndex {
+
+    // Altas que se vuelven a meter en el filtro nuevo al reconstruir: cubre las
+    // que aún no estaban confirmadas en la BD cuando se leyeron todos los usuarios
+    private static final long RECENT_ADDS_MS = 10 * 60 * 1000;
+
+    private final UserRepository userRepository;
+    private final RestaurantService restaurantService;
+
+    @Value("${app.availability.expected-users:100000}")
+    private int expectedUsers;
+
+    @Value("${app.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.availability.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${app.availability.max-retry-backoff-ms:300000}")
+    private long maxRetryBackoffMs;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Un par de filtros por restaurante: usernames y emails solo son únicos dentro de cada uno
+    private final Map<Long, TenantIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Carga los filtros de todos los restaurantes al arrancar la aplicación
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        restaurantService.forEachRestaurant(restaurantId -> index(restaurantId).rebuild());
+    }
+
+    /**
+     * Devuelve false solo si el username seguro que no existe en el restaurante actual
+     */
+    public boolean mightContainUsername(String username) {
+        TenantIndex index = readyIndex();
+        String normalized = normalize(username);
+        return index == null || !isAscii(normalized) || index.usernames.mightContain(normalized);
+    }
+
+    /**
+     * Devuelve false solo si el email seguro que no existe en el restaurante actual
+     */
+    public boolean mightContainEmail(String email) {
+        TenantIndex index = readyIndex();
+        String normalized = normalize(email);
+        return index == null || !isAscii(normalized) || index.emails.mightContain(normalized);
+    }
+
+    /**
+     * Registra un usuario nuevo o los nuevos valores de un usuario editado, tras
+     * el commit (un alta deshecha no deja rastro). Entre el commit y esta llamada
+     * el filtro aún puede dar por libre el valor; si alguien lo intenta usar
+     * entonces, lo rechaza el índice único de la BD.
+     */
+    public void addUser(String username, String email) {
+        Long restaurantId = TenantContext.getRestaurantId();
+        String normalizedUsername = normalize(username);
+        String normalizedEmail = normalize(email);
+        afterCommit(() -> index(restaurantId).add(normalizedUsername, normalizedEmail));
+    }
+
+    /**
+     * Un filtro Bloom no admite borrados: se cuentan los valores obsoletos
+     * (tras el commit) y se reconstruye cuando pasan del 10% de la capacidad.
+     */
+    public void markStale(int count) {
+        if (count > 0) {
+            Long restaurantId = TenantContext.getRestaurantId();
+            afterCommit(() -> index(restaurantId).markStale(count));
+        }
+    }
+
+    /**
+     * Reconstruye los filtros del restaurante actual desde la base de datos
+     */
+    public void rebuild() {
+        index(TenantContext.getRestaurantId()).rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private TenantIndex index(Long restaurantId) {
+        return indexes.computeIfAbsent(restaurantId, TenantIndex::new);
+    }
+
+    /**
+     * Índice del restaurante actual si ya está cargado; si no, encola su carga
+     * (si no hay ya una en curso ni se está esperando tras un fallo) y devuelve
+     * null (mientras tanto se consulta la BD)
+     */
+    private TenantIndex readyIndex() {
+        TenantIndex index = index(TenantContext.getRestaurantId());
+        if (!index.ready) {
+            index.rebuildInBackground();
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Filtros de un restaurante
+     */
+    private final class TenantIndex {
+
+        private final Long restaurantId;
+        private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+        private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+        private volatile BloomFilter usernames;
+        private volatile BloomFilter emails;
+        private volatile boolean ready = false;
+
+        // Altas de los últimos RECENT_ADDS_MS, se repiten sobre cada filtro nuevo
+        private final ConcurrentLinkedDeque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+
+        // Valores que ya no existen pero siguen marcados en el filtro
+        private final AtomicLong staleEntries = new AtomicLong();
+
+        // Tras una carga fallida no se reintenta hasta retryAt
+        private volatile long retryAt = 0;
+        private volatile long currentBackoffMs = 0;
+
+        TenantIndex(Long restaurantId) {
+            this.restaurantId = restaurantId;
+        }
+
+        void add(String normalizedUsername, String normalizedEmail) {
+            long now = System.currentTimeMillis();
+            swapLock.readLock().lock();
+            try {
+                if (usernames != null) {
+                    usernames.put(normalizedUsername);
+                    emails.put(normalizedEmail);
+                }
+                recentAdds.addLast(new RecentAdd(now, normalizedUsername, normalizedEmail));
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            RecentAdd oldest;
+            while ((oldest = recentAdds.peekFirst()) != null && oldest.at() < now - RECENT_ADDS_MS) {
+                recentAdds.remove(oldest);
+            }
+
+            if (ready && usernames.insertions() > usernames.capacity()) {
+                rebuildInBackground();
+            }
+        }
+
+        void markStale(int count) {
+            long stale = staleEntries.addAndGet(count);
+            if (ready && stale > usernames.capacity() / 10) {
+                rebuildInBackground();
+            }
+        }
+
+        /**
+         * Reconstruye los filtros sin bloquear a los lectores (si no hay ya
+         * una reconstrucción en curso)
+         */
+        void rebuild() {
+            if (rebuilding.compareAndSet(false, true)) {
+                runRebuild();
+            }
+        }
+
+        void rebuildInBackground() {
+            if (System.currentTimeMillis() < retryAt || !rebuilding.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                rebuildExecutor.execute(this::runRebuild);
+            } catch (RejectedExecutionException e) {
+                rebuilding.set(false);
+            }
+        }
+
+        private void runRebuild() {
+            try {
+                long started = System.currentTimeMillis();
+                staleEntries.set(0);
+                List<String> allUsernames = TenantContext.callAs(restaurantId, userRepository::findAllUsernames);
+                List<String> allEmails = TenantContext.callAs(restaurantId, userRepository::findAllEmails);
+
+                int capacity = Math.max(expectedUsers, allUsernames.size() * 2);
+                BloomFilter newUsernames = new BloomFilter(capacity, falsePositiveRate);
+                BloomFilter newEmails = new BloomFilter(capacity, falsePositiveRate);
+                allUsernames.forEach(u -> newUsernames.put(normalize(u)));
+                allEmails.forEach(e -> newEmails.put(normalize(e)));
+
+                // Con el cerrojo de escritura no entra ningún alta entre repetir
+                // las recientes y cambiar de filtro
+                swapLock.writeLock().lock();
+                try {
+                    for (RecentAdd recent : recentAdds) {
+                        newUsernames.put(recent.username());
+                        newEmails.put(recent.email());
+                    }
+                    usernames = newUsernames;
+                    emails = newEmails;
+                    ready = true;
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                currentBackoffMs = 0;
+                retryAt = 0;
+
+                log.info("Filtro de disponibilidad del restaurante {} cargado: {} usuarios, capacidad {} ({} ms)",
+                        restaurantId, allUsernames.size(), capacity, System.currentTimeMillis() - started);
+            } catch (Exception e) {
+                currentBackoffMs = currentBackoffMs == 0
+                        ? retryBackoffMs
+                        : Math.min(maxRetryBackoffMs, currentBackoffMs * 2);
+                retryAt = System.currentTimeMillis() + currentBackoffMs;
+                log.error("Error al cargar el filtro de disponibilidad del restaurante {} (se reintenta en {} ms): {}",
+                        restaurantId, currentBackoffMs, e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private record RecentAdd(long at, String username, String email) {
+    }
+
+    /**
+     * Normaliza para que dos valores que la collation de MySQL
+     * (utf8mb4_unicode_ci) considera iguales colisionen en el filtro: NFKD
+     * (ligaduras y formas de ancho completo), plegado de mayúsculas completo
+     * (ß → ss), sin tildes, sin caracteres de formato y sin espacios en los
+     * extremos. Para lo que no quede en ASCII no se garantiza: ver isAscii.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFKD);
+        // toUpperCase aplica las expansiones (ß → SS) que toLowerCase no hace
+        String folded = decomposed.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        return Normalizer.normalize(folded, Normalizer.Form.NFKD).replaceAll("[\\p{M}\\p{Cf}]", "");
+    }
+
+    private static boolean isAscii(String value) {
+        return value.chars().allMatch(c -> c < 0x80);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Filtro Bloom concurrente sobre un array de longs atómico
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final int capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (m + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) m / capacity * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((bits.get(word) & mask) == 0) {
+                    bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long insertions() {
+            return insertions.get();
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        /**
+         * FNV-1a de 64 bits seguido del mezclador final de MurmurHash3
+         */
+        private static long hash64(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
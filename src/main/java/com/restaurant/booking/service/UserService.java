@@ -1,6 +1,12 @@
 package com.restaurant.booking.service;
 
+import com.restaurant.booking.dto.GuestSearchResultDTO;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.exception.PreconditionFailedException;
+import com.restaurant.booking.exception.ResourceInUseException;
 import com.restaurant.booking.model.User;
+import com.restaurant.booking.repository.ArchivedReservationRepository;
+import com.restaurant.booking.repository.ReservationRepository;
 import com.restaurant.booking.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -8,6 +14,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +25,11 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final GuestSearchIndex guestIndex;
+    private final ReservationService reservationService;
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
 
     /**
      * Obtiene todos los usuarios
@@ -48,18 +62,41 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con username: " + username));
     }
 
+    /**
+     * Busca clientes por parte del nombre, username, email o teléfono (índice en
+     * memoria) y añade sus próximas reservas
+     */
+    @Transactional(readOnly = true)
+    public List<GuestSearchResultDTO> searchGuests(String query, int limit) {
+        List<Long> ids = guestIndex.search(query, Math.max(1, Math.min(limit, 50)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        Map<Long, List<ReservationDTO>> upcoming = reservationService.getUpcomingByUserIds(ids);
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(u -> new GuestSearchResultDTO(u.getId(), u.getUsername(), u.getFullName(),
+                        u.getEmail(), u.getPhone(), upcoming.getOrDefault(u.getId(), List.of())))
+                .toList();
+    }
+
     /**
      * Crea un nuevo usuario (solo para ADMIN)
      * Los usuarios regulares usan /api/auth/register
      */
     public User createUser(User user) {
         // Validar email único
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (availabilityIndex.mightContainEmail(user.getEmail())
+                && userRepository.existsByEmail(user.getEmail())) {
             throw new RuntimeException("El email ya está registrado: " + user.getEmail());
         }
 
         // Validar username único
-        if (userRepository.existsByUsername(user.getUsername())) {
+        if (availabilityIndex.mightContainUsername(user.getUsername())
+                && userRepository.existsByUsername(user.getUsername())) {
             throw new RuntimeException("El username ya está en uso: " + user.getUsername());
         }
 
@@ -80,48 +117,82 @@ public class UserService {
         user.setEnabled(true);
         user.setAccountNonLocked(true);
 
-        return userRepository.save(user);
+        availabilityIndex.addUser(user.getUsername(), user.getEmail());
+        User saved = userRepository.save(user);
+        guestIndex.upsert(saved);
+        return saved;
     }
 
     /**
      * Actualiza un usuario
      */
     public User updateUser(Long id, User userDetails) {
+        return updateUser(id, userDetails, null);
+    }
+
+    /**
+     * Actualiza un usuario si sigue en la versión que leyó el cliente (If-Match)
+     * @param expectedVersion versión esperada (null: sin comprobación)
+     */
+    public User updateUser(Long id, User userDetails, Long expectedVersion) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new PreconditionFailedException("El usuario " + id + " ha cambiado (versión actual "
+                    + existingUser.getVersion() + ")");
+        }
 
         // Validar email único (si cambió)
         if (!existingUser.getEmail().equals(userDetails.getEmail())) {
-            if (userRepository.existsByEmail(userDetails.getEmail())) {
+            if (availabilityIndex.mightContainEmail(userDetails.getEmail())
+                    && userRepository.existsByEmail(userDetails.getEmail())) {
                 throw new RuntimeException("El email ya está registrado: " + userDetails.getEmail());
             }
         }
 
         // Validar username único (si cambió)
         if (!existingUser.getUsername().equals(userDetails.getUsername())) {
-            if (userRepository.existsByUsername(userDetails.getUsername())) {
+            if (availabilityIndex.mightContainUsername(userDetails.getUsername())
+                    && userRepository.existsByUsername(userDetails.getUsername())) {
                 throw new RuntimeException("El username ya está en uso: " + userDetails.getUsername());
             }
         }
 
+        // Los valores antiguos quedan obsoletos en el filtro; los nuevos se marcan tras el commit
+        boolean usernameChanged = !existingUser.getUsername().equals(userDetails.getUsername());
+        boolean emailChanged = !existingUser.getEmail().equals(userDetails.getEmail());
+        if (usernameChanged || emailChanged) {
+            availabilityIndex.addUser(userDetails.getUsername(), userDetails.getEmail());
+            availabilityIndex.markStale(1);
+        }
+
         existingUser.setUsername(userDetails.getUsername());
         existingUser.setEmail(userDetails.getEmail());
         existingUser.setFullName(userDetails.getFullName());
         existingUser.setPhone(userDetails.getPhone());
         existingUser.setRole(userDetails.getRole());
 
-
-        return userRepository.save(existingUser);
+        // Flush inmediato: la respuesta (y su ETag) lleva la nueva versión
+        User saved = userRepository.saveAndFlush(existingUser);
+        guestIndex.upsert(saved);
+        return saved;
     }
 
     /**
      * Elimina un usuario
+     * Las reservas no tienen clave foránea (tabla particionada): no se puede
+     * borrar un usuario con reservas, tampoco archivadas
      */
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("Usuario no encontrado con ID: " + id);
         }
+        if (reservationRepository.existsByUserId(id) || archivedReservationRepository.existsByUserId(id)) {
+            throw new ResourceInUseException("No se puede eliminar el usuario " + id + ": tiene reservas");
+        }
         userRepository.deleteById(id);
+        availabilityIndex.markStale(1);
+        guestIndex.remove(id);
     }
 
     /**
@@ -0,0 +1,185 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.TableLocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de la lista de espera.
+ *
+ * Cada grupo se indexa en todos los tramos (por defecto de 15 minutos) de su
+ * franja horaria: (restaurante, fecha) → tramo → ubicación → comensales →
+ * cola por antigüedad.
+ * Para un hueco libre se busca con floorEntry(capacidad) el grupo más grande
+ * que cabe en la mesa, y entre iguales el que lleva más tiempo esperando,
+ * en O(log n) sin recorrer la lista.
+ */
+@Component
+public class WaitlistEngine {
+
+    private static final Comparator<Candidate> BY_SENIORITY =
+            Comparator.comparing(Candidate::createdAt).thenComparing(Candidate::entryId);
+
+    @Value("${app.waitlist.slot-minutes:15}")
+    private int slotMinutes;
+
+    private final Map<DayKey, DayIndex> days = new ConcurrentHashMap<>();
+
+    /**
+     * Grupo en espera (datos mínimos para decidir la asignación)
+     */
+    public record Candidate(Long entryId, Long restaurantId, Long userId, LocalDate date, LocalTime windowStart,
+                            LocalTime windowEnd, int guests, TableLocation location,
+                            LocalDateTime createdAt) {
+    }
+
+    private record DayKey(Long restaurantId, LocalDate date) {
+    }
+
+    public void add(Candidate candidate) {
+        days.computeIfAbsent(new DayKey(candidate.restaurantId(), candidate.date()), k -> new DayIndex())
+                .add(candidate);
+    }
+
+    public void remove(Candidate candidate) {
+        DayIndex day = days.get(new DayKey(candidate.restaurantId(), candidate.date()));
+        if (day != null) {
+            day.remove(candidate);
+        }
+    }
+
+    /**
+     * Saca del índice el mejor grupo para una mesa libre, o null si no hay ninguno
+     */
+    public Candidate pollBest(Long restaurantId, LocalDate date, LocalTime time, int capacity,
+                              TableLocation location) {
+        DayIndex day = days.get(new DayKey(restaurantId, date));
+        return day == null ? null : day.pollBest(slotOf(time), capacity, location);
+    }
+
+    /**
+     * Descarta los días ya pasados de todos los restaurantes
+     */
+    public void dropBefore(LocalDate date) {
+        days.keySet().removeIf(key -> key.date().isBefore(date));
+    }
+
+    public int size(Long restaurantId) {
+        return days.entrySet().stream()
+                .filter(e -> e.getKey().restaurantId().equals(restaurantId))
+                .mapToInt(e -> e.getValue().size())
+                .sum();
+    }
+
+    private int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / slotMinutes;
+    }
+
+    /**
+     * Índice de un día. Las operaciones sobre el mismo día se serializan;
+     * días distintos no compiten entre sí.
+     */
+    private final class DayIndex {
+
+        private final Map<Integer, SlotBucket> slots = new HashMap<>();
+        private final Map<Long, Candidate> entries = new HashMap<>();
+
+        synchronized void add(Candidate candidate) {
+            if (entries.putIfAbsent(candidate.entryId(), candidate) != null) {
+                return;
+            }
+            for (int slot = slotOf(candidate.windowStart()); slot <= slotOf(candidate.windowEnd()); slot++) {
+                slots.computeIfAbsent(slot, s -> new SlotBucket()).queueFor(candidate.location(), true)
+                        .computeIfAbsent(candidate.guests(), g -> new TreeSet<>(BY_SENIORITY))
+                        .add(candidate);
+            }
+        }
+
+        synchronized void remove(Candidate candidate) {
+            Candidate existing = entries.remove(candidate.entryId());
+            if (existing == null) {
+                return;
+            }
+            for (int slot = slotOf(existing.windowStart()); slot <= slotOf(existing.windowEnd()); slot++) {
+                SlotBucket bucket = slots.get(slot);
+                if (bucket == null) {
+                    continue;
+                }
+                TreeMap<Integer, NavigableSet<Candidate>> byGuests = bucket.queueFor(existing.location(), false);
+                if (byGuests == null) {
+                    continue;
+                }
+                NavigableSet<Candidate> queue = byGuests.get(existing.guests());
+                if (queue != null && queue.remove(existing) && queue.isEmpty()) {
+                    byGuests.remove(existing.guests());
+                }
+            }
+        }
+
+        synchronized Candidate pollBest(int slot, int capacity, TableLocation location) {
+            SlotBucket bucket = slots.get(slot);
+            if (bucket == null) {
+                return null;
+            }
+            Candidate specific = best(bucket.queueFor(location, false), capacity);
+            Candidate any = best(bucket.anyLocation, capacity);
+
+            Candidate chosen;
+            if (specific == null || any == null) {
+                chosen = specific != null ? specific : any;
+            } else if (specific.guests() != any.guests()) {
+                chosen = specific.guests() > any.guests() ? specific : any;
+            } else {
+                chosen = BY_SENIORITY.compare(specific, any) <= 0 ? specific : any;
+            }
+
+            if (chosen != null) {
+                remove(chosen);
+            }
+            return chosen;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private Candidate best(TreeMap<Integer, NavigableSet<Candidate>> byGuests, int capacity) {
+            if (byGuests == null) {
+                return null;
+            }
+            Map.Entry<Integer, NavigableSet<Candidate>> entry = byGuests.floorEntry(capacity);
+            return entry == null ? null : entry.getValue().first();
+        }
+    }
+
+    /**
+     * Colas de un tramo: por ubicación concreta y "cualquier ubicación"
+     */
+    private static final class SlotBucket {
+
+        private final Map<TableLocation, TreeMap<Integer, NavigableSet<Candidate>>> byLocation =
+                new EnumMap<>(TableLocation.class);
+        private final TreeMap<Integer, NavigableSet<Candidate>> anyLocation = new TreeMap<>();
+
+        TreeMap<Integer, NavigableSet<Candidate>> queueFor(TableLocation location, boolean create) {
+            if (location == null) {
+                return anyLocation;
+            }
+            return create
+                    ? byLocation.computeIfAbsent(location, l -> new TreeMap<>())
+                    : byLocation.get(location);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.CreateReservationRequest;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.dto.WaitlistEntryDTO;
+import com.restaurant.booking.dto.WaitlistRequest;
+import com.restaurant.booking.enums.WaitlistStatus;
+import com.restaurant.booking.event.SlotFreedEvent;
+import com.restaurant.booking.model.User;
+import com.restaurant.booking.model.WaitlistEntry;
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.repository.WaitlistEntryRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+@Transactional
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistRepository;
+    private final UserRepository userRepository;
+    private final ReservationService reservationService;
+    private final WaitlistEngine engine;
+    private final TransactionTemplate transactionTemplate;
+
+    private final RestaurantService restaurantService;
+
+    // ReentrantLock y no synchronized: la carga hace JDBC y no debe fijar hilos virtuales a su portador
+    private final ReentrantLock loadLock = new ReentrantLock();
+    // Restaurantes cuya lista de espera ya está en el índice
+    private final Set<Long> loadedRestaurants = ConcurrentHashMap.newKeySet();
+
+    public WaitlistService(WaitlistEntryRepository waitlistRepository,
+                           UserRepository userRepository,
+                           ReservationService reservationService,
+                           WaitlistEngine engine,
+                           RestaurantService restaurantService,
+                           PlatformTransactionManager transactionManager) {
+        this.waitlistRepository = waitlistRepository;
+        this.userRepository = userRepository;
+        this.reservationService = reservationService;
+        this.engine = engine;
+        this.restaurantService = restaurantService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==================== MÉTODOS CRUD ====================
+
+    /**
+     * Apunta a un grupo en la lista de espera
+     */
+    public WaitlistEntryDTO join(WaitlistRequest request) {
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + request.getUserId()));
+
+        if (request.getDesiredDate().isBefore(LocalDate.now())) {
+            throw new RuntimeException("No se puede apuntar a la lista de espera para una fecha pasada");
+        }
+
+        if (request.getWindowEnd().isBefore(request.getWindowStart())) {
+            throw new RuntimeException("El fin de la franja debe ser posterior al inicio");
+        }
+
+        // Antes de guardar: la carga no debe ver la entrada nueva sin confirmar
+        ensureLoaded();
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setUser(user);
+        entry.setDesiredDate(request.getDesiredDate());
+        entry.setWindowStart(request.getWindowStart());
+        entry.setWindowEnd(request.getWindowEnd());
+        entry.setGuests(request.getGuests());
+        entry.setLocation(request.getLocation());
+        entry.setStatus(WaitlistStatus.WAITING);
+
+        WaitlistEntry saved = waitlistRepository.save(entry);
+        WaitlistEngine.Candidate candidate = toCandidate(saved);
+        afterCommit(() -> engine.add(candidate));
+        return convertToDTO(saved);
+    }
+
+    /**
+     * Cancela una entrada de la lista de espera
+     */
+    public WaitlistEntryDTO cancel(Long id) {
+        WaitlistEntry entry = waitlistRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Entrada de lista de espera no encontrada con ID: " + id));
+
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            throw new RuntimeException("Solo se pueden cancelar entradas en espera");
+        }
+
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        WaitlistEngine.Candidate candidate = toCandidate(entry);
+        afterCommit(() -> engine.remove(candidate));
+        return convertToDTO(waitlistRepository.save(entry));
+    }
+
+    /**
+     * Obtiene una entrada por ID
+     */
+    @Transactional(readOnly = true)
+    public WaitlistEntryDTO getEntryById(Long id) {
+        return waitlistRepository.findById(id)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Entrada de lista de espera no encontrada con ID: " + id));
+    }
+
+    /**
+     * Entradas de un usuario
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> getEntriesByUser(Long userId) {
+        return waitlistRepository.findByUserIdOrderByDesiredDateAsc(userId).stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    /**
+     * Entradas de una fecha (para el personal)
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> getEntriesByDate(LocalDate date) {
+        return waitlistRepository.findByDesiredDateOrderByCreatedAtAsc(date).stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    // ==================== ASIGNACIÓN AUTOMÁTICA ====================
+
+    /**
+     * Cuando se libera una mesa, reserva automáticamente para el mejor grupo en espera.
+     * Se ejecuta tras el commit de la cancelación y fuera del hilo de la petición.
+     */
+    @Async
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotFreed(SlotFreedEvent event) {
+        TenantContext.runAs(event.getRestaurantId(), () -> assignFreedSlot(event));
+    }
+
+    private void assignFreedSlot(SlotFreedEvent event) {
+        ensureLoaded();
+
+        // Grupos que siguen en espera pero no pudieron usar este hueco: vuelven al índice al terminar
+        List<WaitlistEngine.Candidate> skipped = new ArrayList<>();
+        try {
+            WaitlistEngine.Candidate candidate;
+            while ((candidate = engine.pollBest(event.getRestaurantId(), event.getDate(), event.getTime(),
+                    event.getCapacity(), event.getLocation())) != null) {
+
+                if (!reservationService.isTableAvailable(event.getTableId(), event.getDate(), event.getTime())) {
+                    // Otro cliente ocupó el hueco antes: el grupo sigue esperando
+                    skipped.add(candidate);
+                    return;
+                }
+
+                try {
+                    WaitlistEngine.Candidate chosen = candidate;
+                    ReservationDTO reservation = transactionTemplate.execute(tx -> book(chosen, event));
+                    log.info("Lista de espera: entrada {} asignada a la reserva {}",
+                            chosen.entryId(), reservation.getId());
+                    return;
+                } catch (RuntimeException e) {
+                    // Cupo de cocina, conflicto de reserva, bloqueo optimista...: el hueco no
+                    // sirvió, pero el grupo sigue esperando salvo que la entrada ya no valga
+                    if (stillWaiting(candidate)) {
+                        skipped.add(candidate);
+                    }
+                    log.warn("No se pudo asignar la entrada {} de la lista de espera: {}",
+                            candidate.entryId(), e.getMessage());
+                }
+            }
+        } finally {
+            skipped.forEach(engine::add);
+        }
+    }
+
+    /**
+     * La entrada sigue en espera y su usuario existe. Si no se puede comprobar
+     * se da por buena: la caducidad nocturna limpia lo que sobre.
+     */
+    private boolean stillWaiting(WaitlistEngine.Candidate candidate) {
+        try {
+            Boolean waiting = transactionTemplate.execute(tx -> waitlistRepository.findById(candidate.entryId())
+                    .filter(entry -> entry.getStatus() == WaitlistStatus.WAITING)
+                    .map(entry -> userRepository.existsById(candidate.userId()))
+                    .orElse(false));
+            return Boolean.TRUE.equals(waiting);
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private ReservationDTO book(WaitlistEngine.Candidate candidate, SlotFreedEvent event) {
+        WaitlistEntry entry = waitlistRepository.findById(candidate.entryId())
+                .orElseThrow(() -> new RuntimeException("Entrada de lista de espera no encontrada"));
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            throw new RuntimeException("La entrada ya no está en espera");
+        }
+
+        ReservationDTO reservation = reservationService.createReservation(new CreateReservationRequest(
+                candidate.userId(),
+                event.getTableId(),
+                event.getDate(),
+                event.getTime(),
+                candidate.guests(),
+                "Reserva asignada desde la lista de espera"
+        ));
+
+        entry.setStatus(WaitlistStatus.BOOKED);
+        entry.setReservationId(reservation.getId());
+        waitlistRepository.save(entry);
+        return reservation;
+    }
+
+    /**
+     * Cada noche caduca las entradas de días pasados, restaurante a restaurante
+     */
+    @Scheduled(cron = "${app.waitlist.expire-cron:0 5 0 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expirePastEntries() {
+        LocalDate today = LocalDate.now();
+        restaurantService.forEachRestaurant(restaurantId -> {
+            Integer expired = transactionTemplate.execute(tx -> waitlistRepository.expireBefore(restaurantId, today));
+            if (expired != null && expired > 0) {
+                log.info("Lista de espera del restaurante {}: {} entradas caducadas", restaurantId, expired);
+            }
+        });
+        engine.dropBefore(today);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void ensureLoaded() {
+        Long restaurantId = TenantContext.getRestaurantId();
+        if (loadedRestaurants.contains(restaurantId)) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loadedRestaurants.contains(restaurantId)) {
+                transactionTemplate.executeWithoutResult(tx -> waitlistRepository.findWaitingFrom(LocalDate.now())
+                        .forEach(entry -> engine.add(toCandidate(entry))));
+                loadedRestaurants.add(restaurantId);
+                log.info("Lista de espera del restaurante {} cargada: {} grupos en espera",
+                        restaurantId, engine.size(restaurantId));
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private WaitlistEngine.Candidate toCandidate(WaitlistEntry entry) {
+        return new WaitlistEngine.Candidate(
+                entry.getId(),
+                entry.getRestaurantId(),
+                entry.getUser().getId(),
+                entry.getDesiredDate(),
+                entry.getWindowStart(),
+                entry.getWindowEnd(),
+                entry.getGuests(),
+                entry.getLocation(),
+                entry.getCreatedAt()
+        );
+    }
+
+    // ==================== CONVERSIÓN ====================
+
+    /**
+     * Convierte Entity a DTO
+     */
+    private WaitlistEntryDTO convertToDTO(WaitlistEntry entry) {
+        WaitlistEntryDTO dto = new WaitlistEntryDTO();
+        dto.setId(entry.getId());
+        dto.setUserId(entry.getUser().getId());
+        dto.setUserName(entry.getUser().getUsername());
+        dto.setDesiredDate(entry.getDesiredDate());
+        dto.setWindowStart(entry.getWindowStart());
+        dto.setWindowEnd(entry.getWindowEnd());
+        dto.setGuests(entry.getGuests());
+        dto.setLocation(entry.getLocation());
+        dto.setStatus(entry.getStatus());
+        dto.setReservationId(entry.getReservationId());
+        dto.setCreatedAt(entry.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,78 @@
+package com.restaurant.booking.tenant;
+
+import com.restaurant.booking.config.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(TenancyProperties.class)
+public class TenancyConfig {
+
+    /**
+     * Solo con app.tenancy.routing-enabled=true: un pool por base de datos y
+     * un DataSource que enruta cada restaurante al suyo. Sin enrutado se usa
+     * el DataSource autoconfigurado de Spring Boot.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.tenancy", name = "routing-enabled", havingValue = "true")
+    public DataSource tenantRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                              TenancyProperties tenancy,
+                                              Environment environment) {
+        Map<Object, Object> targets = new HashMap<>();
+
+        HikariDataSource defaultPool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(defaultPool));
+        defaultPool.setPoolName("tenant-default");
+        targets.put(TenantRoutingDataSource.DEFAULT_KEY, limited(defaultPool, environment));
+
+        tenancy.getDatasources().forEach((name, settings) -> {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("tenant-" + name);
+            pool.setJdbcUrl(settings.getUrl());
+            pool.setUsername(settings.getUsername());
+            pool.setPassword(settings.getPassword());
+            pool.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            pool.setMaximumPoolSize(settings.getMaximumPoolSize());
+            targets.put(name, limited(pool, environment));
+        });
+
+        tenancy.getRoutes().forEach((restaurantId, name) -> {
+            if (!targets.containsKey(name)) {
+                throw new IllegalStateException("Ruta del restaurante " + restaurantId
+                        + " a una base de datos no configurada: " + name);
+            }
+        });
+
+        TenantRoutingDataSource routing = new TenantRoutingDataSource(Map.copyOf(tenancy.getRoutes()));
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(TenantRoutingDataSource.DEFAULT_KEY));
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    /**
+     * En modo hilos virtuales cada pool lleva su propio semáforo
+     */
+    private DataSource limited(HikariDataSource pool, Environment environment) {
+        if (!environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            return pool;
+        }
+        long acquireTimeoutMs = environment.getProperty("app.db.acquire-timeout-ms", Long.class, 30000L);
+        return new ConnectionLimitingDataSource(pool, pool.getMaximumPoolSize(), acquireTimeoutMs);
+    }
+}
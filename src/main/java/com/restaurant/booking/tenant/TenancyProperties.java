@@ -0,0 +1,52 @@
+package com.restaurant.booking.tenant;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración multi-restaurante (app.tenancy.*)
+ */
+@Data
+@ConfigurationProperties(prefix = "app.tenancy")
+public class TenancyProperties {
+
+    // Restaurante usado cuando la petición no indica ninguno
+    private Long defaultRestaurantId = 1L;
+
+    // Header con el que un cliente sin token elige restaurante
+    private String header = "X-Restaurant-Id";
+
+    // Enrutado de restaurantes a otras bases de datos
+    private boolean routingEnabled = false;
+
+    // Bases de datos adicionales por nombre (app.tenancy.datasources.<nombre>.url, ...)
+    private Map<String, DataSourceSettings> datasources = new HashMap<>();
+
+    // Restaurante → nombre de base de datos; los que no aparecen van a la principal
+    private Map<Long, String> routes = new HashMap<>();
+
+    /**
+     * Un restaurante por cada base de datos en uso, para tareas que se hacen
+     * una vez por esquema (particiones, mantenimiento)
+     */
+    public Map<String, Long> restaurantPerDatabase() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put(TenantRoutingDataSource.DEFAULT_KEY, defaultRestaurantId);
+        if (routingEnabled) {
+            routes.forEach((restaurantId, name) -> result.putIfAbsent(name, restaurantId));
+        }
+        return result;
+    }
+
+    @Data
+    public static class DataSourceSettings {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
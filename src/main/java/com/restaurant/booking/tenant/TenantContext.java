@@ -0,0 +1,77 @@
+package com.restaurant.booking.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * Restaurante (tenant) de la petición o tarea en curso.
+ *
+ * Lo fija JwtRequestFilter en cada petición y se propaga a las tareas @Async.
+ * Si no hay ninguno fijado se usa el restaurante por defecto.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+    private static volatile Long defaultRestaurantId = 1L;
+
+    private TenantContext() {
+    }
+
+    /**
+     * Restaurante actual (o el restaurante por defecto)
+     */
+    public static Long getRestaurantId() {
+        Long id = CURRENT.get();
+        return id != null ? id : defaultRestaurantId;
+    }
+
+    /**
+     * Restaurante fijado explícitamente en este hilo (puede ser null)
+     */
+    public static Long peek() {
+        return CURRENT.get();
+    }
+
+    public static void setRestaurantId(Long restaurantId) {
+        CURRENT.set(restaurantId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Long getDefaultRestaurantId() {
+        return defaultRestaurantId;
+    }
+
+    static void setDefaultRestaurantId(Long restaurantId) {
+        defaultRestaurantId = restaurantId;
+    }
+
+    /**
+     * Ejecuta una tarea como el restaurante indicado y restaura el anterior
+     */
+    public static void runAs(Long restaurantId, Runnable task) {
+        callAs(restaurantId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(Long restaurantId, Supplier<T> task) {
+        Long previous = CURRENT.get();
+        if (restaurantId != null) {
+            CURRENT.set(restaurantId);
+        } else {
+            CURRENT.remove();
+        }
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.restaurant.booking.tenant;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Indica a Hibernate el restaurante de la sesión. Las entidades con @TenantId
+ * se filtran y se rellenan automáticamente con este valor.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<Long>, HibernatePropertiesCustomizer {
+
+    private final TenancyProperties properties;
+
+    @PostConstruct
+    public void init() {
+        TenantContext.setDefaultRestaurantId(properties.getDefaultRestaurantId());
+    }
+
+    @Override
+    public Long resolveCurrentTenantIdentifier() {
+        return TenantContext.getRestaurantId();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
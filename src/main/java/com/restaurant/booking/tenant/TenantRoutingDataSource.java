@@ -0,0 +1,25 @@
+package com.restaurant.booking.tenant;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.Map;
+
+/**
+ * Elige la base de datos según el restaurante actual.
+ * Los restaurantes sin ruta usan la base de datos principal.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String DEFAULT_KEY = "default";
+
+    private final Map<Long, String> routes;
+
+    public TenantRoutingDataSource(Map<Long, String> routes) {
+        this.routes = routes;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return routes.getOrDefault(TenantContext.getRestaurantId(), DEFAULT_KEY);
+    }
+}
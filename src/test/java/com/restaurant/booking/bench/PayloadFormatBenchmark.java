@@ -0,0 +1,107 @@
+package com.restaurant.booking.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.restaurant.booking.config.BinaryContentConfig;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.enums.ReservationStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara tamaño y tiempo de (de)serialización de una lista de reservas en
+ * JSON, CBOR y Smile, con la misma configuración de Jackson que la API.
+ *
+ * No es un test (no lo ejecuta surefire). Uso:
+ *   ./mvnw test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat cp.txt) \
+ *        com.restaurant.booking.bench.PayloadFormatBenchmark 10000 200
+ */
+public class PayloadFormatBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<ReservationDTO> reservations = sample(rows);
+        System.out.printf("%d reservas, %d iteraciones por formato%n", rows, iterations);
+        System.out.printf("%-7s %12s %10s %14s %14s%n", "Formato", "Bytes", "vs JSON", "Escritura ms", "Lectura ms");
+
+        // Como la API: Spring Boot escribe las fechas JSON en texto ISO
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        int jsonSize = measure("JSON", json, reservations, iterations, 0);
+        measure("CBOR", binary(new CBORFactory()), reservations, iterations, jsonSize);
+        measure("Smile", binary(new SmileFactory()), reservations, iterations, jsonSize);
+    }
+
+    private static ObjectMapper binary(JsonFactory factory) {
+        return BinaryContentConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), factory);
+    }
+
+    private static int measure(String name, ObjectMapper mapper, List<ReservationDTO> reservations,
+                               int iterations, int jsonSize) throws Exception {
+        CollectionType type = mapper.getTypeFactory().constructCollectionType(List.class, ReservationDTO.class);
+        byte[] payload = mapper.writeValueAsBytes(reservations);
+
+        // Calentamiento del JIT
+        for (int i = 0; i < iterations / 2; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(reservations), type);
+        }
+
+        long writeNanos = 0;
+        long readNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            payload = mapper.writeValueAsBytes(reservations);
+            long written = System.nanoTime();
+            List<ReservationDTO> decoded = mapper.readValue(payload, type);
+            readNanos += System.nanoTime() - written;
+            writeNanos += written - start;
+            if (decoded.size() != reservations.size()) {
+                throw new IllegalStateException("Lista decodificada incompleta");
+            }
+        }
+
+        System.out.printf("%-7s %12d %9.0f%% %14.2f %14.2f%n", name, payload.length,
+                jsonSize == 0 ? 100.0 : 100.0 * payload.length / jsonSize,
+                writeNanos / 1e6 / iterations, readNanos / 1e6 / iterations);
+        return payload.length;
+    }
+
+    private static List<ReservationDTO> sample(int rows) {
+        Random random = new Random(42);
+        ReservationStatus[] statuses = ReservationStatus.values();
+        LocalDate today = LocalDate.now();
+        List<ReservationDTO> reservations = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long userId = 1 + random.nextInt(2_000);
+            reservations.add(new ReservationDTO(
+                    (long) i + 1,
+                    userId,
+                    "cliente" + userId,
+                    "+34 6" + (10_000_000 + random.nextInt(89_999_999)),
+                    1L + random.nextInt(40),
+                    1 + random.nextInt(40),
+                    today.plusDays(random.nextInt(60)),
+                    LocalTime.of(12 + random.nextInt(11), random.nextBoolean() ? 0 : 30),
+                    1 + random.nextInt(8),
+                    statuses[random.nextInt(statuses.length)],
+                    random.nextInt(5) == 0 ? "Mesa junto a la ventana, por favor" : null,
+                    0L,
+                    List.of()
+            ));
+        }
+        return reservations;
+    }
+}
@@ -0,0 +1,131 @@
+package com.restaurant.booking.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga para comparar el modo hilos de plataforma con el modo
+ * hilos virtuales contra una instancia ya arrancada.
+ *
+ * No es un test (no lo ejecuta surefire). Uso:
+ *   ./mvnw test-compile
+ *   java -cp target/test-classes com.restaurant.booking.bench.ThreadModeBenchmark \
+ *        http://localhost:8081/api/tables/available <jwt> 1000 30
+ */
+public class ThreadModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8081/api/tables/available";
+        String token = args.length > 1 ? args[1] : System.getenv("BENCH_TOKEN");
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int warmupSeconds = Math.max(1, seconds / 6);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(64))
+                .build();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        if (token != null && !token.isBlank()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        System.out.printf("Objetivo: %s | concurrencia: %d | duración: %ds (+%ds calentamiento)%n",
+                url, concurrency, seconds, warmupSeconds);
+
+        run(client, request, concurrency, warmupSeconds, false);
+        Result result = run(client, request, concurrency, seconds, true);
+        result.print(seconds);
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency,
+                              int seconds, boolean record) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long[][] samples = new long[concurrency][];
+        AtomicLong errors = new AtomicLong();
+
+        for (int i = 0; i < concurrency; i++) {
+            LatencyBuffer buffer = new LatencyBuffer();
+            int slot = i;
+            workers.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (record) {
+                            buffer.add(System.nanoTime() - start);
+                        }
+                    }
+                } finally {
+                    samples[slot] = buffer.toArray();
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        workers.shutdown();
+
+        long[] all = Arrays.stream(samples).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return new Result(all, errors.get());
+    }
+
+    private record Result(long[] latenciesNanos, long errors) {
+
+        void print(int seconds) {
+            int count = latenciesNanos.length;
+            if (count == 0) {
+                System.out.println("Sin respuestas");
+                return;
+            }
+            System.out.printf("Peticiones: %d | errores: %d | rendimiento: %.1f req/s%n",
+                    count, errors, count / (double) seconds);
+            System.out.printf("Latencia ms  p50: %.1f  p90: %.1f  p99: %.1f  máx: %.1f%n",
+                    percentile(0.50), percentile(0.90), percentile(0.99), latenciesNanos[count - 1] / 1e6);
+        }
+
+        private double percentile(double p) {
+            int index = (int) Math.min(latenciesNanos.length - 1, Math.ceil(p * latenciesNanos.length) - 1);
+            return latenciesNanos[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static final class LatencyBuffer {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.restaurant.booking.idempotency;
+
+import com.restaurant.booking.service.RestaurantService;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyFilterTest {
+
+    private static final String BODY = "{\"tableId\":1,\"guests\":2}";
+
+    private IdempotencyFilter filter;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyStore store = new IdempotencyStore(new InMemoryIdempotencyRecords().repository(),
+                mock(RestaurantService.class));
+        ReflectionTestUtils.setField(store, "ttlHours", 24L);
+        ReflectionTestUtils.setField(store, "waitTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(store, "inProgressTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(store, "memoryMaxEntries", 100);
+        filter = new IdempotencyFilter(store);
+        TenantContext.setRestaurantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void retryGetsTheStoredResponseWithoutExecuting() throws Exception {
+        FilterChain controller = created();
+
+        MockHttpServletResponse first = send(request(BODY), controller);
+        MockHttpServletResponse retry = send(request(BODY), controller);
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader("ETag")).isEqualTo("\"0\"");
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void controllerReadsTheBodyAfterTheFingerprint() throws Exception {
+        List<String> received = new ArrayList<>();
+
+        send(request(BODY), (request, response) ->
+                received.add(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8)));
+
+        assertThat(received).containsExactly(BODY);
+    }
+
+    @Test
+    void sameKeyWithAnotherBodyIsRejected() throws Exception {
+        FilterChain controller = created();
+        send(request(BODY), controller);
+
+        MockHttpServletResponse conflicting = send(request("{\"tableId\":2,\"guests\":2}"), controller);
+
+        assertThat(conflicting.getStatus()).isEqualTo(422);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void retryableRejectionIsNotStored() throws Exception {
+        FilterChain full = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_CONFLICT, "Cupo completo");
+        };
+
+        send(request(BODY), full);
+        send(request(BODY), full);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotTouched() throws Exception {
+        FilterChain controller = created();
+
+        send(withoutKey(), controller);
+        MockHttpServletResponse second = send(withoutKey(), controller);
+
+        assertThat(executions).hasValue(2);
+        assertThat(second.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void cachedBodySupportsNonBlockingReads() throws IOException {
+        CachedBodyRequest request = new CachedBodyRequest(request(BODY));
+        ServletInputStream input = request.getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> callbacks = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                callbacks.add("data");
+                byte[] buffer = new byte[8];
+                int n;
+                while (input.isReady() && (n = input.read(buffer)) != -1) {
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                callbacks.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                callbacks.add("error");
+            }
+        });
+
+        assertThat(callbacks).containsExactly("data", "done");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+
+    private FilterChain created() {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setHeader("ETag", "\"0\"");
+            http.setContentType("application/json");
+            http.getWriter().write("{\"id\":" + executions.get() + "}");
+        };
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/reservations");
+        request.addHeader(IdempotencyFilter.HEADER, "clave-1");
+        request.addHeader("Accept", "application/json");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletRequest withoutKey() {
+        MockHttpServletRequest request = request(BODY);
+        request.removeHeader(IdempotencyFilter.HEADER);
+        return request;
+    }
+}
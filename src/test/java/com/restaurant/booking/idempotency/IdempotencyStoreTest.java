@@ -0,0 +1,129 @@
+package com.restaurant.booking.idempotency;
+
+import com.restaurant.booking.enums.IdempotencyStatus;
+import com.restaurant.booking.model.IdempotencyRecord;
+import com.restaurant.booking.service.RestaurantService;
+import com.restaurant.booking.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyStoreTest {
+
+    private static final String KEY = "profadmin:clave-1";
+    private static final String REQUEST = "huella-1";
+
+    private InMemoryIdempotencyRecords records;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        records = new InMemoryIdempotencyRecords();
+        store = newInstance();
+        TenantContext.setRestaurantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void completedResponseIsReplayed() {
+        IdempotencyStore.Claim first = store.claim(KEY, REQUEST);
+        assertThat(first.outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+        store.complete(first, response(201, "{\"id\":7}"));
+
+        IdempotencyStore.Claim retry = store.claim(KEY, REQUEST);
+
+        assertThat(retry.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(retry.response().status()).isEqualTo(201);
+        assertThat(retry.response().headers()).containsEntry("ETag", List.of("\"0\""));
+        assertThat(new String(retry.response().body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":7}");
+    }
+
+    @Test
+    void sameKeyWithAnotherRequestIsAMismatch() {
+        store.complete(store.claim(KEY, REQUEST), response(201, "{}"));
+
+        assertThat(store.claim(KEY, "otra-huella").outcome()).isEqualTo(IdempotencyStore.Outcome.MISMATCH);
+    }
+
+    @Test
+    void abandonedKeyExecutesAgain() {
+        store.abandon(store.claim(KEY, REQUEST));
+
+        assertThat(store.claim(KEY, REQUEST).outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+    }
+
+    @Test
+    void otherInstanceReplaysFromTheDatabase() {
+        store.complete(store.claim(KEY, REQUEST), response(201, "{\"id\":7}"));
+
+        IdempotencyStore.Claim retry = newInstance().claim(KEY, REQUEST);
+
+        assertThat(retry.outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+        assertThat(retry.response().headers()).containsEntry("ETag", List.of("\"0\""));
+    }
+
+    @Test
+    void duplicateWaitsForTheFirstRequest() throws Exception {
+        IdempotencyStore.Claim first = store.claim(KEY, REQUEST);
+
+        CompletableFuture<IdempotencyStore.Claim> duplicate = CompletableFuture.supplyAsync(() ->
+                TenantContext.callAs(1L, () -> store.claim(KEY, REQUEST)));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+        store.complete(first, response(201, "{}"));
+
+        assertThat(duplicate.get(2, TimeUnit.SECONDS).outcome()).isEqualTo(IdempotencyStore.Outcome.REPLAY);
+    }
+
+    @Test
+    void inProgressOnAnotherInstanceIsBusy() {
+        store.claim(KEY, REQUEST);
+        IdempotencyStore other = newInstance();
+        ReflectionTestUtils.setField(other, "waitTimeoutMs", 300L);
+
+        assertThat(other.claim(KEY, REQUEST).outcome()).isEqualTo(IdempotencyStore.Outcome.BUSY);
+    }
+
+    @Test
+    void inProgressOlderThanTheTimeoutIsTakenOver() {
+        store.claim(KEY, REQUEST);
+        // La instancia que la reclamó murió hace más de 60 s
+        IdempotencyRecord record = records.single();
+        record.setCreatedAt(LocalDateTime.now().minusSeconds(61));
+
+        IdempotencyStore.Claim takeover = newInstance().claim(KEY, REQUEST);
+
+        assertThat(takeover.outcome()).isEqualTo(IdempotencyStore.Outcome.EXECUTE);
+        assertThat(records.single().getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+        assertThat(records.single().getCreatedAt()).isAfter(LocalDateTime.now().minusSeconds(5));
+    }
+
+    private IdempotencyStore newInstance() {
+        IdempotencyStore instance = new IdempotencyStore(records.repository(), mock(RestaurantService.class));
+        ReflectionTestUtils.setField(instance, "ttlHours", 24L);
+        ReflectionTestUtils.setField(instance, "waitTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(instance, "inProgressTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(instance, "memoryMaxEntries", 100);
+        return instance;
+    }
+
+    private static IdempotencyStore.StoredResponse response(int status, String body) {
+        return new IdempotencyStore.StoredResponse(status, "application/json",
+                Map.of("ETag", List.of("\"0\"")), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
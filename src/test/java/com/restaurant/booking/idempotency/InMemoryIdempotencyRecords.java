@@ -0,0 +1,64 @@
+package com.restaurant.booking.idempotency;
+
+import com.restaurant.booking.model.IdempotencyRecord;
+import com.restaurant.booking.repository.IdempotencyRecordRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tabla idempotency_records en memoria, con la clave única de key_hash.
+ * Varios IdempotencyStore sobre la misma instancia simulan varias instancias.
+ */
+class InMemoryIdempotencyRecords {
+
+    private final Map<String, IdempotencyRecord> byKeyHash = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+
+    InMemoryIdempotencyRecords() {
+        when(repository.findByKeyHash(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(byKeyHash.get(invocation.<String>getArgument(0))));
+        when(repository.findById(anyLong())).thenAnswer(invocation -> byKeyHash.values().stream()
+                .filter(record -> record.getId().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        when(repository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        when(repository.deleteByKeyHash(anyString()))
+                .thenAnswer(invocation -> byKeyHash.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+    }
+
+    IdempotencyRecordRepository repository() {
+        return repository;
+    }
+
+    /**
+     * Único registro guardado (el de la clave de la prueba)
+     */
+    IdempotencyRecord single() {
+        return byKeyHash.values().iterator().next();
+    }
+
+    private IdempotencyRecord save(IdempotencyRecord record) {
+        synchronized (byKeyHash) {
+            IdempotencyRecord existing = byKeyHash.get(record.getKeyHash());
+            if (existing != null && existing != record) {
+                throw new DataIntegrityViolationException("Duplicate entry " + record.getKeyHash());
+            }
+            if (record.getId() == null) {
+                record.setId(ids.incrementAndGet());
+            }
+            byKeyHash.put(record.getKeyHash(), record);
+            return record;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.restaurant.booking.mail;
+
+import com.restaurant.booking.model.EmailDeadLetter;
+import com.restaurant.booking.repository.EmailDeadLetterRepository;
+import com.restaurant.booking.service.EmailDeadLetterService;
+import com.restaurant.booking.tenant.TenantContext;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MailDispatcherTest {
+
+    private static final Session SESSION = Session.getInstance(new Properties());
+
+    // Lo que hace el servidor en cada envío, en orden (vacío: acepta)
+    private final Deque<Function<MimeMessage[], RuntimeException>> script = new ConcurrentLinkedDeque<>();
+    private final List<Sent> sends = new CopyOnWriteArrayList<>();
+    private final Semaphore sendCalls = new Semaphore(0);
+    private final List<EmailDeadLetter> deadLetters = new CopyOnWriteArrayList<>();
+    private final Semaphore parked = new Semaphore(0);
+
+    private JavaMailSender mailSender;
+    private EmailDeadLetterRepository deadLetterRepository;
+    private MailDispatcher dispatcher;
+
+    private record Sent(List<String> subjects, long nanos) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(SESSION));
+        when(mailSender.createMimeMessage(any(InputStream.class)))
+                .thenAnswer(invocation -> new MimeMessage(SESSION, invocation.<InputStream>getArgument(0)));
+        doAnswer(invocation -> {
+            MimeMessage[] messages = Arrays.stream(invocation.getArguments())
+                    .map(MimeMessage.class::cast)
+                    .toArray(MimeMessage[]::new);
+            List<String> subjects = new ArrayList<>();
+            for (MimeMessage message : messages) {
+                subjects.add(message.getSubject());
+            }
+            sends.add(new Sent(subjects, System.nanoTime()));
+            Function<MimeMessage[], RuntimeException> outcome = script.poll();
+            sendCalls.release();
+            if (outcome != null) {
+                throw outcome.apply(messages);
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        deadLetterRepository = mock(EmailDeadLetterRepository.class);
+        when(deadLetterRepository.save(any(EmailDeadLetter.class))).thenAnswer(invocation -> {
+            EmailDeadLetter deadLetter = invocation.getArgument(0);
+            deadLetter.setId((long) deadLetters.size() + 1);
+            deadLetter.setRestaurantId(TenantContext.getRestaurantId());
+            deadLetters.add(deadLetter);
+            parked.release();
+            return deadLetter;
+        });
+        when(deadLetterRepository.findById(anyLong())).thenAnswer(invocation -> deadLetters.stream()
+                .filter(deadLetter -> deadLetter.getId().equals(invocation.getArgument(0)))
+                .findFirst());
+
+        TenantContext.setRestaurantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+        TenantContext.clear();
+    }
+
+    @Test
+    void temporaryFailureIsRetriedAfterABackoff() throws Exception {
+        dispatcher = dispatcher(new SmtpCircuitBreaker(5, 30_000), 5, 200);
+        script.add(MailDispatcherTest::serverDown);
+
+        dispatcher.submit(message("confirmada"));
+
+        assertThat(sendCalls.tryAcquire(2, 3, TimeUnit.SECONDS)).isTrue();
+        // Espera exponencial con jitter: entre la mitad y el total de initialBackoffMs
+        assertThat(gapMs(0, 1)).isGreaterThanOrEqualTo(100);
+        assertThat(sends.get(1).subjects()).containsExactly("confirmada");
+        assertThat(deadLetters).isEmpty();
+    }
+
+    @Test
+    void permanentRejectionIsParkedWithoutRetrying() throws Exception {
+        dispatcher = dispatcher(new SmtpCircuitBreaker(5, 30_000), 5, 20);
+        script.add(MailDispatcherTest::rejected);
+        TenantContext.setRestaurantId(2L);
+
+        dispatcher.submit(message("cancelada"));
+
+        assertThat(parked.tryAcquire(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(sends).hasSize(1);
+        EmailDeadLetter deadLetter = deadLetters.get(0);
+        assertThat(deadLetter.getRestaurantId()).isEqualTo(2L);
+        assertThat(deadLetter.getAttempts()).isEqualTo(1);
+        assertThat(deadLetter.getRecipients()).isEqualTo("cliente@restaurante.test");
+        assertThat(deadLetter.getSubject()).isEqualTo("cancelada");
+        assertThat(deadLetter.getLastError()).contains("User unknown");
+        assertThat(new String(deadLetter.getRawMessage(), StandardCharsets.UTF_8)).contains("Subject: cancelada");
+    }
+
+    @Test
+    void exhaustedRetriesAreParked() throws Exception {
+        dispatcher = dispatcher(new SmtpCircuitBreaker(10, 30_000), 3, 20);
+        for (int i = 0; i < 3; i++) {
+            script.add(MailDispatcherTest::serverDown);
+        }
+
+        dispatcher.submit(message("recordatorio"));
+
+        assertThat(parked.tryAcquire(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(sends).hasSize(3);
+        assertThat(deadLetters.get(0).getAttempts()).isEqualTo(3);
+        assertThat(deadLetters.get(0).getLastError()).contains("Connection refused");
+    }
+
+    @Test
+    void openCircuitHoldsEmailsUntilTheTrialBatch() throws Exception {
+        SmtpCircuitBreaker breaker = new SmtpCircuitBreaker(1, 300);
+        dispatcher = dispatcher(breaker, 5, 20);
+        script.add(MailDispatcherTest::serverDown);
+
+        dispatcher.submit(message("confirmada"));
+
+        assertThat(sendCalls.tryAcquire(2, 3, TimeUnit.SECONDS)).isTrue();
+        // El reintento estaba listo a los 20 ms, pero el circuito siguió abierto 300 ms
+        assertThat(gapMs(0, 1)).isGreaterThanOrEqualTo(250);
+        // El lote de prueba cierra el circuito al volver del envío
+        long deadline = System.currentTimeMillis() + 2000;
+        while (breaker.getState() != SmtpCircuitBreaker.State.CLOSED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.CLOSED);
+        assertThat(deadLetters).isEmpty();
+    }
+
+    @Test
+    void parkedEmailCanBeReplayedOnce() throws Exception {
+        dispatcher = dispatcher(new SmtpCircuitBreaker(5, 30_000), 5, 20);
+        script.add(MailDispatcherTest::rejected);
+        dispatcher.submit(message("confirmada"));
+        assertThat(parked.tryAcquire(3, TimeUnit.SECONDS)).isTrue();
+        EmailDeadLetterService deadLetterService = new EmailDeadLetterService(deadLetterRepository, dispatcher);
+
+        deadLetterService.replay(1L);
+
+        assertThat(sendCalls.tryAcquire(2, 3, TimeUnit.SECONDS)).isTrue();
+        assertThat(sends.get(1).subjects()).containsExactly("confirmada");
+        assertThat(deadLetters.get(0).getReplayedAt()).isNotNull();
+        assertThatThrownBy(() -> deadLetterService.replay(1L))
+                .hasMessage("Este email ya se ha reenviado");
+    }
+
+    private MailDispatcher dispatcher(SmtpCircuitBreaker breaker, int maxAttempts, long initialBackoffMs) {
+        MailDispatcher instance = new MailDispatcher(mailSender, deadLetterRepository, breaker, 10, 1, 20, 10);
+        ReflectionTestUtils.setField(instance, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(instance, "initialBackoffMs", initialBackoffMs);
+        ReflectionTestUtils.setField(instance, "maxBackoffMs", 60_000L);
+        return instance;
+    }
+
+    private MimeMessage message(String subject) throws MessagingException {
+        MimeMessage message = dispatcher.createMimeMessage();
+        message.setFrom("reservas@restaurante.test");
+        message.setRecipients(MimeMessage.RecipientType.TO, "cliente@restaurante.test");
+        message.setSubject(subject);
+        message.setText("Cuerpo de " + subject);
+        return message;
+    }
+
+    private long gapMs(int first, int second) {
+        return TimeUnit.NANOSECONDS.toMillis(sends.get(second).nanos() - sends.get(first).nanos());
+    }
+
+    /**
+     * El servidor no responde: fallan todos los mensajes del lote (como JavaMailSenderImpl)
+     */
+    private static RuntimeException serverDown(MimeMessage[] messages) {
+        MessagingException error = new MessagingException("Connection refused");
+        return new MailSendException("Mail server connection failed", error, failedMessages(messages, error));
+    }
+
+    /**
+     * El servidor rechaza el destinatario (550)
+     */
+    private static RuntimeException rejected(MimeMessage[] messages) {
+        try {
+            Exception error = new SMTPAddressFailedException(
+                    new InternetAddress("cliente@restaurante.test"), "RCPT TO", 550, "550 User unknown");
+            return new MailSendException(failedMessages(messages, error));
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<Object, Exception> failedMessages(MimeMessage[] messages, Exception error) {
+        Map<Object, Exception> failed = new LinkedHashMap<>();
+        for (MimeMessage message : messages) {
+            failed.put(message, error);
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.restaurant.booking.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationCoalescerTest {
+
+    private static final long WINDOW_MS = 100;
+
+    private ExecutorService executor;
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-async"));
+        coalescer = new NotificationCoalescer(executor, WINDOW_MS, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void onlyLastNotificationOfAKeyIsSent() throws InterruptedException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        coalescer.submit(1L, () -> sent.add("creada"));
+        coalescer.submit(1L, () -> {
+            sent.add("confirmada");
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).containsExactly("confirmada");
+    }
+
+    @Test
+    void sendRunsOnTheExecutorNotTheWheel() throws InterruptedException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        coalescer.submit(1L, () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).containsExactly("test-async");
+    }
+
+    @Test
+    void stoppedExecutorSendsOnTheWheel() throws InterruptedException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        executor.shutdown();
+
+        coalescer.submit(1L, () -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).containsExactly("notification-wheel");
+    }
+
+    @Test
+    void pendingNotificationsAreSentOnShutdown() {
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        coalescer.submit(1L, () -> sent.add("uno"));
+        coalescer.submit(2L, () -> sent.add("dos"));
+        coalescer.shutdown();
+
+        assertThat(sent).containsExactlyInAnyOrder("uno", "dos");
+    }
+}
@@ -0,0 +1,122 @@
+package com.restaurant.booking.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Envíos reales contra un servidor SMTP en memoria (GreenMail)
+ */
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    // Conexiones abiertas por el pool, en orden
+    private final List<Transport> connections = new CopyOnWriteArrayList<>();
+
+    private PooledJavaMailSender sender;
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.destroy();
+        }
+    }
+
+    @Test
+    void consecutiveSendsReuseTheConnection() {
+        sender = sender(60_000, 100);
+
+        sender.send(message("uno"));
+        sender.send(message("dos"));
+        sender.send(message("tres"));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(3);
+        assertThat(connections).hasSize(1);
+    }
+
+    @Test
+    void batchGoesThroughOneConnection() {
+        sender = sender(60_000, 100);
+
+        sender.send(message("uno"), message("dos"), message("tres"));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(3);
+        assertThat(connections).hasSize(1);
+    }
+
+    @Test
+    void connectionIsReplacedAfterMaxMessages() {
+        sender = sender(60_000, 2);
+
+        sender.send(message("uno"));
+        sender.send(message("dos"));
+        sender.send(message("tres"));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(3);
+        assertThat(connections).hasSize(2);
+        assertThat(connections.get(0).isConnected()).isFalse();
+    }
+
+    @Test
+    void idleConnectionIsEvicted() throws InterruptedException {
+        sender = sender(100, 100);
+
+        sender.send(message("uno"));
+        Thread.sleep(200);
+        sender.evictIdle();
+
+        assertThat(connections).hasSize(1);
+        assertThat(connections.get(0).isConnected()).isFalse();
+
+        sender.send(message("dos"));
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(connections).hasSize(2);
+    }
+
+    @Test
+    void recentConnectionSurvivesEviction() {
+        sender = sender(60_000, 100);
+
+        sender.send(message("uno"));
+        sender.evictIdle();
+        sender.send(message("dos"));
+
+        assertThat(connections).hasSize(1);
+        assertThat(connections.get(0).isConnected()).isTrue();
+    }
+
+    private PooledJavaMailSender sender(long idleTimeoutMs, int maxMessagesPerConnection) {
+        PooledJavaMailSender pooled = new PooledJavaMailSender(2, idleTimeoutMs, maxMessagesPerConnection) {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                Transport transport = super.connectTransport();
+                connections.add(transport);
+                return transport;
+            }
+        };
+        pooled.setHost("localhost");
+        pooled.setPort(greenMail.getSmtp().getPort());
+        return pooled;
+    }
+
+    private static SimpleMailMessage message(String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("reservas@restaurante.test");
+        message.setTo("cliente@restaurante.test");
+        message.setSubject(subject);
+        message.setText("Cuerpo de " + subject);
+        return message;
+    }
+}
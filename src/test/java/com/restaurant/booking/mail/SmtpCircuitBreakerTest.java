@@ -0,0 +1,74 @@
+package com.restaurant.booking.mail;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpCircuitBreakerTest {
+
+    private static final long OPEN_MS = 100;
+
+    private final SmtpCircuitBreaker breaker = new SmtpCircuitBreaker(2, OPEN_MS);
+
+    @Test
+    void opensAfterTheThresholdOfConsecutiveFailures() {
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.CLOSED);
+        assertThat(breaker.waitBeforeSendMs()).isZero();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.OPEN);
+        assertThat(breaker.waitBeforeSendMs()).isPositive().isLessThanOrEqualTo(OPEN_MS);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void onlyOneTrialBatchWhenHalfOpen() throws InterruptedException {
+        open();
+
+        assertThat(breaker.waitBeforeSendMs()).isZero();
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.HALF_OPEN);
+        // Los demás hilos esperan al resultado del lote de prueba
+        assertThat(breaker.waitBeforeSendMs()).isPositive();
+    }
+
+    @Test
+    void successfulTrialCloses() throws InterruptedException {
+        open();
+        breaker.waitBeforeSendMs();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.CLOSED);
+        assertThat(breaker.waitBeforeSendMs()).isZero();
+    }
+
+    @Test
+    void failedTrialOpensAgain() throws InterruptedException {
+        open();
+        breaker.waitBeforeSendMs();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(SmtpCircuitBreaker.State.OPEN);
+        assertThat(breaker.waitBeforeSendMs()).isPositive();
+    }
+
+    /**
+     * Abre el circuito y espera a que venza
+     */
+    private void open() throws InterruptedException {
+        breaker.onFailure();
+        breaker.onFailure();
+        Thread.sleep(OPEN_MS + 50);
+    }
+}
@@ -0,0 +1,110 @@
+package com.restaurant.booking.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    private TimerWheel wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void runsTaskAfterItsDelay() throws InterruptedException {
+        wheel = new TimerWheel("test-wheel", TICK_MS, 64);
+        CountDownLatch done = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        wheel.schedule(done::countDown, 100);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(elapsedMs(start)).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void delayLongerThanOneRoundWaitsForTheRemainingRounds() throws InterruptedException {
+        // 4 casillas de 10 ms: una vuelta son 40 ms
+        wheel = new TimerWheel("test-wheel", TICK_MS, 4);
+        CountDownLatch done = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        wheel.schedule(done::countDown, 150);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(elapsedMs(start)).isGreaterThanOrEqualTo(150);
+    }
+
+    @Test
+    void runsTasksInDeadlineOrder() throws InterruptedException {
+        wheel = new TimerWheel("test-wheel", TICK_MS, 8);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        wheel.schedule(() -> { order.add(3); done.countDown(); }, 200);
+        wheel.schedule(() -> { order.add(1); done.countDown(); }, 20);
+        wheel.schedule(() -> { order.add(2); done.countDown(); }, 100);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void cancelledTaskDoesNotRun() throws InterruptedException {
+        wheel = new TimerWheel("test-wheel", TICK_MS, 64);
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        wheel.schedule(() -> ran.set(true), 50).cancel();
+        wheel.schedule(later::countDown, 150);
+
+        assertThat(later.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        wheel = new TimerWheel("test-wheel", TICK_MS, 64);
+        CountDownLatch done = new CountDownLatch(1);
+
+        wheel.schedule(() -> {
+            throw new IllegalStateException("fallo");
+        }, 20);
+        wheel.schedule(done::countDown, 60);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void tasksRunOnTheWheelThread() throws InterruptedException {
+        wheel = new TimerWheel("test-wheel", TICK_MS, 64);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        wheel.schedule(() -> {
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        }, 0);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).containsExactly("test-wheel");
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,196 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.ReservationStatus;
+import com.restaurant.booking.exception.SlotQuotaExceededException;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoversQuotaTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+    private static final LocalTime NINE = LocalTime.of(21, 0);
+
+    // Comensales guardados en la base de datos por hora
+    private final Map<LocalTime, Integer> stored = new HashMap<>();
+    // Lo que pasa mientras el cuadre lee los totales
+    private Runnable duringRead = () -> { };
+
+    private CoversQuota quota;
+
+    @BeforeEach
+    void setUp() {
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        when(reservationRepository.sumCoversByTime(any())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            stored.forEach((time, guests) -> rows.add(new Object[]{time, (long) guests}));
+            duringRead.run();
+            return rows;
+        });
+        RestaurantService restaurantService = mock(RestaurantService.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Long>>getArgument(0).accept(1L);
+            return null;
+        }).when(restaurantService).forEachRestaurant(any());
+
+        CoversQuotaProperties properties = new CoversQuotaProperties();
+        properties.setMaxCovers(10);
+        quota = new CoversQuota(properties, reservationRepository, restaurantService);
+        TenantContext.setRestaurantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void fullSlotIsRejected() {
+        quota.acquire(DATE, NINE, 8);
+
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE.plusMinutes(10), 3))
+                .isInstanceOf(SlotQuotaExceededException.class);
+        quota.acquire(DATE, NINE, 2);
+    }
+
+    @Test
+    void rolledBackReservationReturnsItsCovers() {
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            quota.acquire(DATE, NINE, 8);
+            // Mientras la transacción sigue abierta las plazas están cogidas
+            assertThatThrownBy(() -> quota.acquire(DATE, NINE, 3))
+                    .isInstanceOf(SlotQuotaExceededException.class);
+        });
+
+        quota.acquire(DATE, NINE, 10);
+    }
+
+    @Test
+    void committedReservationKeepsItsCovers() {
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> quota.acquire(DATE, NINE, 8));
+
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 3))
+                .isInstanceOf(SlotQuotaExceededException.class);
+    }
+
+    @Test
+    void cancellationFreesCoversOnlyAfterCommit() {
+        quota.acquire(DATE, NINE, 10);
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            quota.recordStatusChange(DATE, NINE, 4, ReservationStatus.CONFIRMED, ReservationStatus.CANCELLED);
+            assertThatThrownBy(() -> quota.acquire(DATE, NINE, 4))
+                    .isInstanceOf(SlotQuotaExceededException.class);
+        });
+
+        quota.acquire(DATE, NINE, 4);
+    }
+
+    @Test
+    void rolledBackCancellationKeepsTheCovers() {
+        quota.acquire(DATE, NINE, 10);
+
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () ->
+                quota.recordStatusChange(DATE, NINE, 4, ReservationStatus.CONFIRMED, ReservationStatus.NO_SHOW));
+
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 1))
+                .isInstanceOf(SlotQuotaExceededException.class);
+    }
+
+    @Test
+    void reconcileAlignsWithTheDatabase() {
+        quota.acquire(DATE, NINE, 4);
+        // Otra instancia guardó más reservas en ese tramo
+        stored.put(NINE, 9);
+
+        quota.reconcile();
+
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 2))
+                .isInstanceOf(SlotQuotaExceededException.class);
+        quota.acquire(DATE, NINE, 1);
+    }
+
+    @Test
+    void reconcileGivesUpWhenTheDayChangesWhileReading() {
+        quota.acquire(DATE, NINE, 4);
+        stored.put(NINE, 9);
+        // Una reserva de esta instancia termina mientras se leen los totales
+        duringRead = () -> quota.acquire(DATE, NINE, 1);
+
+        quota.reconcile();
+
+        // Si se hubiera aplicado el cuadre habría 9 y no cabrían 5 más
+        duringRead = () -> { };
+        quota.acquire(DATE, NINE, 5);
+    }
+
+    @Test
+    void reconcileWaitsForPendingStatusChanges() {
+        quota.acquire(DATE, NINE, 10);
+        stored.put(NINE, 10);
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            quota.recordStatusChange(DATE, NINE, 4, ReservationStatus.CONFIRMED, ReservationStatus.CANCELLED);
+            // La base de datos ya no la cuenta, pero el contador aún no la ha restado
+            stored.put(NINE, 6);
+            quota.reconcile();
+        });
+
+        // Cuadrar durante el cambio habría restado las 4 plazas dos veces
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 5))
+                .isInstanceOf(SlotQuotaExceededException.class);
+        quota.acquire(DATE, NINE, 4);
+    }
+
+    @Test
+    void fullSlotSuggestsTheClosestSlotWithRoom() {
+        quota.acquire(DATE, NINE, 10);
+        quota.acquire(DATE, NINE.minusMinutes(15), 9);
+
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 2))
+                .isInstanceOfSatisfying(SlotQuotaExceededException.class, e -> {
+                    assertThat(e.getSuggestedTime()).isEqualTo(LocalTime.of(21, 15));
+                    assertThat(e.getMessage()).contains("21:15");
+                });
+        assertThatThrownBy(() -> quota.acquire(DATE, NINE, 1))
+                .isInstanceOfSatisfying(SlotQuotaExceededException.class,
+                        e -> assertThat(e.getSuggestedTime()).isEqualTo(LocalTime.of(20, 45)));
+    }
+
+    /**
+     * Ejecuta el bloque con sincronización de transacción activa y la termina
+     * con el estado indicado
+     */
+    private static void inTransaction(int status, Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(sync -> sync.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
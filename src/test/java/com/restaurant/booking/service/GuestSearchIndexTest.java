@@ -0,0 +1,150 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.model.User;
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GuestSearchIndexTest {
+
+    // Usuarios guardados por restaurante (findAllForSearch filtra por el tenant)
+    private final Map<Long, List<Object[]>> stored = new HashMap<>();
+
+    private GuestSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllForSearch()).thenAnswer(invocation ->
+                stored.getOrDefault(TenantContext.getRestaurantId(), List.of()));
+
+        index = new GuestSearchIndex(userRepository, mock(RestaurantService.class),
+                mock(PlatformTransactionManager.class));
+        TenantContext.setRestaurantId(1L);
+
+        store(1L, 1L, "mgarcia", "María García López", "maria.garcia@example.com", "612345789");
+        store(1L, 2L, "jperez", "José Pérez", "jose@correo.es", "699000111");
+        store(1L, 3L, "agarcia", "Ana García", "ana@example.com", null);
+        store(2L, 4L, "mgarcia", "Mario García", "mario@otro.es", "612000000");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void findsByThePrefixOfAnyWord() {
+        assertThat(index.search("garc", 10)).containsExactly(3L, 1L);
+        assertThat(index.search("lop", 10)).containsExactly(1L);
+        assertThat(index.search("jpe", 10)).containsExactly(2L);
+        assertThat(index.search("correo", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void everyWordOfTheQueryMustMatch() {
+        assertThat(index.search("garcia mar", 10)).containsExactly(1L);
+        assertThat(index.search("garcia jose", 10)).isEmpty();
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        assertThat(index.search("JOSE perez", 10)).containsExactly(2L);
+        assertThat(index.search("maría", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void findsPhonesByStartOrEnd() {
+        assertThat(index.search("612 34", 10)).containsExactly(1L);
+        assertThat(index.search("0111", 10)).containsExactly(2L);
+        assertThat(index.search("555", 10)).isEmpty();
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertThat(index.search("garcia", 1)).hasSize(1);
+    }
+
+    @Test
+    void eachRestaurantHasItsOwnGuests() {
+        assertThat(index.search("mario", 10)).isEmpty();
+
+        TenantContext.setRestaurantId(2L);
+        assertThat(index.search("mario", 10)).containsExactly(4L);
+        assertThat(index.search("ana", 10)).isEmpty();
+    }
+
+    @Test
+    void updatedUserIsFoundByItsNewNameOnlyAfterCommit() {
+        index.search("ana", 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.upsert(user(3L, "agarcia", "Ana Martín", "ana@example.com", null));
+            assertThat(index.search("martin", 10)).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.search("martin", 10)).containsExactly(3L);
+        assertThat(index.search("ana garcia", 10)).isEmpty();
+    }
+
+    @Test
+    void rolledBackUserIsNotIndexed() {
+        index.search("ana", 10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.upsert(user(5L, "lruiz", "Luis Ruiz", "luis@example.com", "600111222"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.search("luis", 10)).isEmpty();
+        assertThat(index.search("600111", 10)).isEmpty();
+    }
+
+    @Test
+    void removedUserIsNoLongerFound() {
+        index.search("ana", 10);
+
+        index.remove(1L);
+
+        assertThat(index.search("garcia", 10)).containsExactly(3L);
+        assertThat(index.search("612345", 10)).isEmpty();
+    }
+
+    private void store(Long restaurantId, Long id, String username, String fullName, String email, String phone) {
+        stored.computeIfAbsent(restaurantId, k -> new ArrayList<>())
+                .add(new Object[]{id, username, fullName, email, phone});
+    }
+
+    private static User user(Long id, String username, String fullName, String email, String phone) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setFullName(fullName);
+        user.setEmail(email);
+        user.setPhone(phone);
+        return user;
+    }
+}
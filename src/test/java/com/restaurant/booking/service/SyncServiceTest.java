@@ -0,0 +1,187 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.ChangeRef;
+import com.restaurant.booking.dto.ReservationDTO;
+import com.restaurant.booking.dto.SyncChangesDTO;
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.SyncEntityType;
+import com.restaurant.booking.model.SyncTombstone;
+import com.restaurant.booking.repository.ReservationRepository;
+import com.restaurant.booking.repository.RestaurantTableRepository;
+import com.restaurant.booking.repository.SyncTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SyncServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    // Filas de cada tabla, como las ve la consulta keyset
+    private final List<ChangeRef> reservationRows = new ArrayList<>();
+    private final List<ChangeRef> tableRows = new ArrayList<>();
+    private final List<SyncTombstone> tombstoneRows = new ArrayList<>();
+
+    private SyncService service;
+
+    @BeforeEach
+    void setUp() {
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        when(reservationRepository.findChangesAfter(any(), anyLong(), any(), any())).thenAnswer(invocation ->
+                keyset(reservationRows, ChangeRef::updatedAt, ChangeRef::id, invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        RestaurantTableRepository tableRepository = mock(RestaurantTableRepository.class);
+        when(tableRepository.findChangesAfter(any(), anyLong(), any(), any())).thenAnswer(invocation ->
+                keyset(tableRows, ChangeRef::updatedAt, ChangeRef::id, invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        SyncTombstoneRepository tombstoneRepository = mock(SyncTombstoneRepository.class);
+        when(tombstoneRepository.findAfter(any(), anyLong(), any(), any())).thenAnswer(invocation ->
+                keyset(tombstoneRows, SyncTombstone::getDeletedAt, SyncTombstone::getId, invocation.getArgument(0),
+                        invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+
+        ReservationService reservationService = mock(ReservationService.class);
+        when(reservationService.getReservationsByIds(anyList())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).stream().map(id -> {
+                    ReservationDTO dto = new ReservationDTO();
+                    dto.setId(id);
+                    return dto;
+                }).toList());
+        FloorStateStore floorState = mock(FloorStateStore.class);
+        when(floorState.find(anyLong())).thenAnswer(invocation -> {
+            TableDTO dto = new TableDTO();
+            dto.setId(invocation.getArgument(0));
+            return Optional.of(dto);
+        });
+
+        service = new SyncService(reservationRepository, tableRepository, tombstoneRepository,
+                reservationService, floorState, mock(RestaurantService.class));
+        ReflectionTestUtils.setField(service, "safetyLagMs", 5000L);
+        ReflectionTestUtils.setField(service, "tombstoneRetentionDays", 30);
+    }
+
+    @Test
+    void cursorSurvivesTheRoundTrip() {
+        SyncCursor cursor = new SyncCursor(
+                new SyncCursor.Position(NOW.minusHours(1), 7L),
+                new SyncCursor.Position(NOW.minusMinutes(5), 3L),
+                SyncCursor.Position.after(NOW));
+
+        assertThat(SyncCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> service.getChanges("no-es-un-cursor", 100))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Cursor de sincronización no válido");
+    }
+
+    @Test
+    void firstSyncGetsEverythingButNoPastDeletions() {
+        reservationRows.add(new ChangeRef(1L, NOW.minusDays(3)));
+        tableRows.add(new ChangeRef(5L, NOW.minusDays(10)));
+        tombstone(9L, NOW.minusDays(1));
+
+        SyncChangesDTO changes = service.getChanges(null, 100);
+
+        assertThat(changes.getReservations()).extracting(ReservationDTO::getId).containsExactly(1L);
+        assertThat(changes.getTables()).extracting(TableDTO::getId).containsExactly(5L);
+        assertThat(changes.getDeleted()).isEmpty();
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(changes.isFullResync()).isFalse();
+    }
+
+    @Test
+    void nextCallGetsOnlyWhatChangedSinceTheCursor() {
+        reservationRows.add(new ChangeRef(1L, NOW.minusDays(3)));
+        SyncCursor delivered = new SyncCursor(
+                new SyncCursor.Position(NOW.minusDays(3), 1L),
+                SyncCursor.Position.after(NOW.minusMinutes(1)),
+                SyncCursor.Position.after(NOW.minusMinutes(1)));
+        String cursor = delivered.encode();
+
+        reservationRows.add(new ChangeRef(2L, NOW.minusSeconds(30)));
+        tombstone(1L, NOW.minusSeconds(20));
+        SyncChangesDTO changes = service.getChanges(cursor, 100);
+
+        assertThat(changes.getReservations()).extracting(ReservationDTO::getId).containsExactly(2L);
+        assertThat(changes.getDeleted())
+                .containsExactly(new SyncChangesDTO.Deleted(SyncEntityType.RESERVATION, 1L));
+        assertThat(service.getChanges(changes.getCursor(), 100).getDeleted()).isEmpty();
+    }
+
+    @Test
+    void pagesDoNotSkipRowsWithTheSameTimestamp() {
+        LocalDateTime same = NOW.minusMinutes(1);
+        reservationRows.add(new ChangeRef(3L, same));
+        reservationRows.add(new ChangeRef(1L, same));
+        reservationRows.add(new ChangeRef(2L, same));
+
+        SyncChangesDTO first = service.getChanges(null, 2);
+        SyncChangesDTO second = service.getChanges(first.getCursor(), 2);
+
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getReservations()).extracting(ReservationDTO::getId).containsExactly(1L, 2L);
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getReservations()).extracting(ReservationDTO::getId).containsExactly(3L);
+    }
+
+    @Test
+    void rowsInsideTheSafetyLagWaitForTheNextCall() {
+        String cursor = service.getChanges(null, 100).getCursor();
+        // Escrita hace un instante: su transacción podría no haber hecho commit aún
+        reservationRows.add(new ChangeRef(1L, NOW.plusSeconds(1)));
+
+        assertThat(service.getChanges(cursor, 100).getReservations()).isEmpty();
+    }
+
+    @Test
+    void cursorOlderThanTheRetentionForcesAFullResync() {
+        reservationRows.add(new ChangeRef(1L, NOW.minusDays(60)));
+        SyncCursor old = new SyncCursor(
+                SyncCursor.Position.after(NOW.minusDays(40)),
+                SyncCursor.Position.after(NOW.minusDays(40)),
+                SyncCursor.Position.after(NOW.minusDays(40)));
+
+        SyncChangesDTO changes = service.getChanges(old.encode(), 100);
+
+        assertThat(changes.isFullResync()).isTrue();
+        assertThat(changes.getReservations()).extracting(ReservationDTO::getId).containsExactly(1L);
+    }
+
+    private void tombstone(Long reservationId, LocalDateTime deletedAt) {
+        tombstoneRows.add(new SyncTombstone((long) tombstoneRows.size() + 1, 1L,
+                SyncEntityType.RESERVATION, reservationId, deletedAt));
+    }
+
+    /**
+     * Lo que devolvería la consulta: filas posteriores a (after, afterId) hasta
+     * upTo, ordenadas por (marca, id) y cortadas al tamaño de página
+     */
+    private static <T> List<T> keyset(List<T> rows, Function<T, LocalDateTime> at, Function<T, Long> id,
+                                      LocalDateTime after, Long afterId, LocalDateTime upTo, Pageable page) {
+        return rows.stream()
+                .filter(row -> at.apply(row).isAfter(after)
+                        || (at.apply(row).isEqual(after) && id.apply(row) > afterId))
+                .filter(row -> !at.apply(row).isAfter(upTo))
+                .sorted(Comparator.comparing(at).thenComparing(id))
+                .limit(page.getPageSize())
+                .toList();
+    }
+}
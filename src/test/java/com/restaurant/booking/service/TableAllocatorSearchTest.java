@@ -0,0 +1,135 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.dto.TableDTO;
+import com.restaurant.booking.enums.TableLocation;
+import com.restaurant.booking.enums.TableStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableAllocatorSearchTest {
+
+    private static final int MAX_JOINED = 4;
+
+    @Test
+    void singleTableWinsOverCombinations() {
+        List<TableDTO> floor = List.of(
+                table(1L, 2, 2L, 3L),
+                table(2L, 4, 3L),
+                table(3L, 6));
+
+        assertThat(ids(search(floor, 4, null))).containsExactly(2L);
+        assertThat(ids(search(floor, 5, null))).containsExactly(3L);
+    }
+
+    @Test
+    void joinsTwoNeighboursWithLeastWaste() {
+        // Cadena 1 - 2 - 3
+        List<TableDTO> floor = List.of(
+                table(1L, 2, 2L),
+                table(2L, 4, 3L),
+                table(3L, 4));
+
+        // 2+3 sienta a 8 sin sillas vacías; 1+2 dejaría dos
+        assertThat(ids(search(floor, 8, null))).containsExactly(2L, 3L);
+        // La principal es la de más capacidad
+        assertThat(ids(search(floor, 6, null))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void joinsThreeTablesAlongTheChain() {
+        // 1 y 3 no son vecinas: solo se juntan pasando por la 2
+        List<TableDTO> floor = List.of(
+                table(1L, 4, 2L),
+                table(2L, 2, 3L),
+                table(3L, 4));
+
+        assertThat(ids(search(floor, 8, null))).containsExactly(1L, 3L, 2L);
+    }
+
+    @Test
+    void includesRequiredTableFirst() {
+        List<TableDTO> floor = List.of(
+                table(1L, 6, 2L),
+                table(2L, 2),
+                table(3L, 4));
+
+        // La 3 bastaría sola, pero la combinación tiene que llevar la 2
+        assertThat(ids(search(floor, 4, 2L))).containsExactly(2L, 1L);
+        assertThat(ids(search(floor, 4, 3L))).containsExactly(3L);
+    }
+
+    @Test
+    void returnsEmptyWhenNoCombinationSeatsTheParty() {
+        // Entre todas suman 12, pero la 3 no es vecina de ninguna
+        List<TableDTO> floor = List.of(
+                table(1L, 4, 2L),
+                table(2L, 4),
+                table(3L, 4));
+
+        assertThat(search(floor, 10, null)).isEmpty();
+        // Con la 3 obligatoria no se puede juntar con nada
+        assertThat(search(floor, 6, 3L)).isEmpty();
+    }
+
+    @Test
+    void respectsMaximumNumberOfJoinedTables() {
+        List<TableDTO> floor = List.of(
+                table(1L, 2, 2L),
+                table(2L, 2, 3L),
+                table(3L, 2));
+
+        assertThat(new TableAllocator.Search(floor, 6, null).run(2)).isEmpty();
+        assertThat(ids(new TableAllocator.Search(floor, 6, null).run(3))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void visitsEachConnectedSubsetOnce() {
+        // Cuatro mesas todas vecinas y una mesa pedida aislada que no basta:
+        // nunca hay solución y no se poda, así que se recorren todos los
+        // subconjuntos conexos de cada profundidad
+        List<TableDTO> floor = List.of(
+                table(1L, 2, 2L, 3L, 4L),
+                table(2L, 2, 3L, 4L),
+                table(3L, 2, 4L),
+                table(4L, 2),
+                table(5L, 1));
+
+        TableAllocator.Search search = new TableAllocator.Search(floor, 2, 5L);
+        assertThat(search.run(MAX_JOINED)).isEmpty();
+
+        // Profundidad k: subconjuntos de 1..k mesas de las cuatro, más la pedida sola
+        int expected = 0;
+        for (int k = 1; k <= MAX_JOINED; k++) {
+            for (int size = 1; size <= k; size++) {
+                expected += binomial(4, size);
+            }
+            expected += 1;
+        }
+        assertThat(search.visited()).isEqualTo(expected);
+    }
+
+    private static List<TableDTO> search(List<TableDTO> floor, int guests, Long requiredTableId) {
+        return new TableAllocator.Search(floor, guests, requiredTableId).run(MAX_JOINED);
+    }
+
+    private static List<Long> ids(List<TableDTO> tables) {
+        return tables.stream().map(TableDTO::getId).toList();
+    }
+
+    private static int binomial(int n, int k) {
+        int result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static TableDTO table(Long id, int capacity, Long... joinableWith) {
+        return new TableDTO(id, id.intValue(), capacity, TableLocation.INDOOR, TableStatus.AVAILABLE,
+                null, 0L, Set.of(joinableWith));
+    }
+}
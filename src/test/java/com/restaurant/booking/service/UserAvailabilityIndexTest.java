@@ -0,0 +1,158 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.repository.UserRepository;
+import com.restaurant.booking.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserAvailabilityIndexTest {
+
+    private static final Long RESTAURANT = 1L;
+
+    private final List<String> storedUsernames = new ArrayList<>();
+    private final List<String> storedEmails = new ArrayList<>();
+
+    private UserAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllUsernames()).thenAnswer(invocation -> List.copyOf(storedUsernames));
+        when(userRepository.findAllEmails()).thenAnswer(invocation -> List.copyOf(storedEmails));
+
+        index = new UserAvailabilityIndex(userRepository, mock(RestaurantService.class));
+        ReflectionTestUtils.setField(index, "expectedUsers", 1000);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.01);
+        TenantContext.setRestaurantId(RESTAURANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+        TenantContext.clear();
+    }
+
+    @Test
+    void storedValuesMightExistAndOthersDoNot() {
+        store("ana", "ana@example.com");
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("ana")).isTrue();
+        assertThat(index.mightContainEmail("ana@example.com")).isTrue();
+        assertThat(index.mightContainUsername("bruno")).isFalse();
+        assertThat(index.mightContainEmail("bruno@example.com")).isFalse();
+    }
+
+    @Test
+    void everythingMightExistUntilLoaded() {
+        assertThat(index.mightContainUsername("bruno")).isTrue();
+        assertThat(index.mightContainEmail("bruno@example.com")).isTrue();
+    }
+
+    @Test
+    void caseAccentsAndSpacesCollideLikeTheCollation() {
+        store("José", "jose@example.com");
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("JOSE")).isTrue();
+        assertThat(index.mightContainUsername(" josé ")).isTrue();
+        assertThat(index.mightContainEmail("JOSE@EXAMPLE.COM")).isTrue();
+    }
+
+    @Test
+    void sharpSCollidesWithDoubleS() {
+        store("straße", "strasse@example.com");
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("STRASSE")).isTrue();
+        assertThat(index.mightContainUsername("strasse")).isTrue();
+        assertThat(index.mightContainEmail("STRAßE@example.com")).isTrue();
+    }
+
+    @Test
+    void compatibilityFormsCollide() {
+        store("ﬁlo", "ａｎａ@example.com");
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("filo")).isTrue();
+        assertThat(index.mightContainEmail("ana@example.com")).isTrue();
+    }
+
+    @Test
+    void nonAsciiQueriesAlwaysGoToTheDatabase() {
+        store("ana", "ana@example.com");
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("Ωmega")).isTrue();
+        assertThat(index.mightContainEmail("пётр@example.com")).isTrue();
+    }
+
+    @Test
+    void addedUserSurvivesARebuildThatDidNotSeeIt() {
+        index.rebuild();
+        index.addUser("nuevo", "nuevo@example.com");
+        // La fila aún no era visible cuando se leyeron los usuarios
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("nuevo")).isTrue();
+        assertThat(index.mightContainEmail("nuevo@example.com")).isTrue();
+    }
+
+    @Test
+    void userIsAddedOnlyAfterCommit() {
+        index.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.addUser("nuevo", "nuevo@example.com");
+            assertThat(index.mightContainUsername("nuevo")).isFalse();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.mightContainUsername("nuevo")).isTrue();
+    }
+
+    @Test
+    void rolledBackUserIsNotAdded() {
+        index.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.addUser("nuevo", "nuevo@example.com");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(index.mightContainUsername("nuevo")).isFalse();
+    }
+
+    @Test
+    void normalizeFoldsToComparableAscii() {
+        assertThat(UserAvailabilityIndex.normalize("  Straße ")).isEqualTo("strasse");
+        assertThat(UserAvailabilityIndex.normalize("ÁNGEL")).isEqualTo("angel");
+        assertThat(UserAvailabilityIndex.normalize("ﬁ")).isEqualTo("fi");
+        assertThat(UserAvailabilityIndex.normalize("an\u200Bna")).isEqualTo("anna");
+        assertThat(UserAvailabilityIndex.normalize(null)).isEmpty();
+    }
+
+    private void store(String username, String email) {
+        storedUsernames.add(username);
+        storedEmails.add(email);
+    }
+}
@@ -0,0 +1,121 @@
+package com.restaurant.booking.service;
+
+import com.restaurant.booking.enums.TableLocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaitlistEngineTest {
+
+    private static final Long RESTAURANT = 1L;
+    private static final LocalDate DATE = LocalDate.of(2030, 6, 1);
+    private static final LocalTime NINE_PM = LocalTime.of(21, 0);
+    private static final LocalDateTime T0 = LocalDateTime.of(2030, 5, 1, 12, 0);
+
+    private WaitlistEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new WaitlistEngine();
+        ReflectionTestUtils.setField(engine, "slotMinutes", 15);
+    }
+
+    @Test
+    void picksLargestGroupThatFits() {
+        engine.add(candidate(1L, 2, null, 0));
+        engine.add(candidate(2L, 4, null, 1));
+        engine.add(candidate(3L, 6, null, 2));
+
+        assertThat(poll(4, TableLocation.INDOOR).entryId()).isEqualTo(2L);
+    }
+
+    @Test
+    void breaksTiesBySeniority() {
+        engine.add(candidate(1L, 4, null, 5));
+        engine.add(candidate(2L, 4, null, 1));
+
+        assertThat(poll(4, TableLocation.INDOOR).entryId()).isEqualTo(2L);
+        assertThat(poll(4, TableLocation.INDOOR).entryId()).isEqualTo(1L);
+        assertThat(poll(4, TableLocation.INDOOR)).isNull();
+    }
+
+    @Test
+    void respectsRequestedLocation() {
+        engine.add(candidate(1L, 4, TableLocation.OUTDOOR, 0));
+        engine.add(candidate(2L, 2, TableLocation.INDOOR, 1));
+
+        assertThat(poll(4, TableLocation.INDOOR).entryId()).isEqualTo(2L);
+        assertThat(poll(4, TableLocation.INDOOR)).isNull();
+        assertThat(poll(4, TableLocation.OUTDOOR).entryId()).isEqualTo(1L);
+    }
+
+    @Test
+    void specificLocationAndAnyLocationCompeteOnSize() {
+        engine.add(candidate(1L, 2, TableLocation.INDOOR, 0));
+        engine.add(candidate(2L, 4, null, 1));
+
+        assertThat(poll(4, TableLocation.INDOOR).entryId()).isEqualTo(2L);
+    }
+
+    @Test
+    void ignoresSlotsOutsideTheWindow() {
+        engine.add(new WaitlistEngine.Candidate(1L, RESTAURANT, 10L, DATE, LocalTime.of(20, 0),
+                LocalTime.of(20, 30), 2, null, T0));
+
+        assertThat(poll(4, TableLocation.INDOOR)).isNull();
+        assertThat(engine.pollBest(RESTAURANT, DATE, LocalTime.of(20, 30), 4, TableLocation.INDOOR).entryId())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void pollRemovesCandidateFromEverySlot() {
+        engine.add(candidate(1L, 2, null, 0));
+
+        assertThat(poll(2, null).entryId()).isEqualTo(1L);
+        assertThat(engine.pollBest(RESTAURANT, DATE, NINE_PM.plusMinutes(30), 2, null)).isNull();
+        assertThat(engine.size(RESTAURANT)).isZero();
+    }
+
+    @Test
+    void readdedCandidateCanBePolledAgain() {
+        WaitlistEngine.Candidate candidate = candidate(1L, 2, null, 0);
+        engine.add(candidate);
+
+        engine.add(poll(2, null));
+
+        assertThat(poll(2, null)).isEqualTo(candidate);
+    }
+
+    @Test
+    void groupTooLargeForTableIsNotChosen() {
+        engine.add(candidate(1L, 6, null, 0));
+
+        assertThat(poll(4, TableLocation.INDOOR)).isNull();
+        assertThat(engine.size(RESTAURANT)).isEqualTo(1);
+    }
+
+    @Test
+    void restaurantsAreIsolated() {
+        engine.add(candidate(1L, 2, null, 0));
+
+        assertThat(engine.pollBest(2L, DATE, NINE_PM, 4, null)).isNull();
+        assertThat(poll(4, null).entryId()).isEqualTo(1L);
+    }
+
+    private WaitlistEngine.Candidate poll(int capacity, TableLocation location) {
+        return engine.pollBest(RESTAURANT, DATE, NINE_PM, capacity, location);
+    }
+
+    // Franja de 20:30 a 22:00; joinedAfter ordena la antigüedad (menos es más antiguo)
+    private static WaitlistEngine.Candidate candidate(Long entryId, int guests, TableLocation location,
+                                                      int joinedAfter) {
+        return new WaitlistEngine.Candidate(entryId, RESTAURANT, 100L + entryId, DATE, LocalTime.of(20, 30),
+                LocalTime.of(22, 0), guests, location, T0.plusMinutes(joinedAfter));
+    }
+}